@@ -2,50 +2,86 @@ package com.moneytracker;
 
 import com.moneytracker.controller.MainController;
 import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.database.StorageMaintenance;
+import com.moneytracker.event.EventBus;
 import com.moneytracker.service.BudgetService;
+import com.moneytracker.service.BudgetRolloverJob;
+import com.moneytracker.service.MaintenanceJob;
+import com.moneytracker.service.RecurringTransactionService;
+import com.moneytracker.service.TransactionArchiver;
 import com.moneytracker.service.TransactionService;
+import com.moneytracker.util.DashboardSnapshotStore;
 import com.moneytracker.util.DemoDataInitializer;
+import com.moneytracker.util.StartupProfiler;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Anton Java - Money Tracker Application
  * A comprehensive budgeting and expense tracking application.
- * 
+ *
  * Features:
  * - Budget management with period-based tracking
  * - Daily budget calculation and redistribution
  * - Expense tracking with categories
  * - Analytics and spending visualization
  * - Modern JavaFX interface
+ *
+ * Startup is staged: the database is warmed up on a background thread while the
+ * scene is built, the first frame shows the last persisted dashboard snapshot
+ * (or a loading skeleton), and live data replaces it once the services are ready.
+ * The autocomplete index and category model, which scan the whole history, are
+ * built in the background after that; until then suggestions come back empty.
  */
 public class AntonApp extends Application {
     
     private static final String APP_TITLE = "Anton Java - Money Tracker";
     private static final String MAIN_FXML = "/fxml/main_basic.fxml";
     private static final String APP_ICON = "/images/app-icon.png";
+    private static final long FIRST_FRAME_BUDGET_MS = 500;
     
     private DatabaseManager databaseManager;
+    private EventBus eventBus;
     private BudgetService budgetService;
     private TransactionService transactionService;
+    private RecurringTransactionService recurringTransactionService;
+    private BudgetRolloverJob budgetRolloverJob;
+    private MaintenanceJob maintenanceJob;
+    private MainController controller;
+    private DashboardSnapshotStore snapshotStore;
     
     @Override
     public void start(Stage primaryStage) throws IOException {
-        // Initialize database and services
-        initializeServices();
+        StartupProfiler profiler = new StartupProfiler(FIRST_FRAME_BUDGET_MS);
+        
+        // Warm up the database concurrently with scene construction
+        CompletableFuture<Void> servicesReady = CompletableFuture.runAsync(
+            () -> initializeServices(profiler), backgroundThread("anton-startup"));
         
         // Load FXML and create scene
+        long fxmlStart = System.nanoTime();
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(MAIN_FXML));
         Scene scene = new Scene(fxmlLoader.load(), 1200, 800);
+        profiler.record("fxml-scene", fxmlStart);
         
-        // Get controller and inject services
-        MainController controller = fxmlLoader.getController();
-        controller.initializeServices(budgetService, transactionService);
+        // Render the last snapshot (or a skeleton) until the services are available
+        controller = fxmlLoader.getController();
+        controller.showLoadingState();
+        long snapshotStart = System.nanoTime();
+        snapshotStore = new DashboardSnapshotStore(Path.of(DashboardSnapshotStore.DEFAULT_SNAPSHOT_FILE));
+        snapshotStore.load().ifPresent(controller::showSnapshot);
+        controller.setSnapshotStore(snapshotStore);
+        profiler.record("snapshot-render", snapshotStart);
         
         // Configure stage
         primaryStage.setTitle(APP_TITLE);
@@ -60,38 +96,132 @@ public class AntonApp extends Application {
             System.out.println("Could not load application icon: " + e.getMessage());
         }
         
+        // Report startup phases once the first frame has been laid out
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                profiler.markFirstFrame();
+            }
+        });
+        
         // Show the stage
         primaryStage.show();
         
+        // Inject services and load data once the database is ready
+        servicesReady.whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                System.err.println("Failed to initialize services: " + cause.getMessage());
+                cause.printStackTrace();
+                System.exit(1);
+            }
+            long injectStart = System.nanoTime();
+            controller.initializeServices(budgetService, transactionService);
+            profiler.record("inject-services", injectStart);
+            profiler.markServicesReady();
+            
+            // Live data is on screen; the history scans no longer hold it up
+            CompletableFuture.runAsync(this::loadSuggestions, backgroundThread("anton-warmup"));
+        }));
+        
         // Handle application close
         primaryStage.setOnCloseRequest(event -> {
             shutdown();
         });
     }
     
-    private void initializeServices() {
+    private void initializeServices(StartupProfiler profiler) {
         try {
             // Initialize database manager
-            databaseManager = new DatabaseManager();
-            databaseManager.initializeDatabase();
-                 // Initialize services
-        budgetService = new BudgetService(databaseManager);
-        transactionService = new TransactionService(databaseManager);
-        
-        // Initialize demo data if needed
-        DemoDataInitializer demoInitializer = new DemoDataInitializer(budgetService, transactionService, databaseManager);
-        demoInitializer.initializeDemoDataIfNeeded();
-        
-        System.out.println("Services initialized successfully");
+            databaseManager = profiler.time("database", () -> {
+                DatabaseManager manager = new DatabaseManager();
+                manager.initializeDatabase();
+                return manager;
+            });
+            
+            // Initialize services
+            eventBus = new EventBus();
+            budgetService = new BudgetService(databaseManager, eventBus);
+            transactionService = new TransactionService(databaseManager, eventBus);
+            
+            // Initialize demo data if needed
+            profiler.time("demo-data", () -> {
+                DemoDataInitializer demoInitializer = new DemoDataInitializer(budgetService, transactionService, databaseManager);
+                demoInitializer.initializeDemoDataIfNeeded();
+                return null;
+            });
+            
+            // Catch up on recurring transactions missed while the app was closed
+            recurringTransactionService = new RecurringTransactionService(databaseManager, transactionService, budgetService);
+            profiler.time("recurring", () -> {
+                recurringTransactionService.start();
+                return null;
+            });
+            
+            // Expire ended budgets and recalculate daily budgets, then again each new day
+            budgetRolloverJob = new BudgetRolloverJob(budgetService);
+            profiler.time("budget-rollover", () -> {
+                budgetRolloverJob.start();
+                return null;
+            });
+            
+            // Archive, compact and analyze in the background whenever the user is idle
+            maintenanceJob = new MaintenanceJob(new StorageMaintenance(databaseManager),
+                new TransactionArchiver(databaseManager, transactionService), transactionService, eventBus);
+            maintenanceJob.start();
+            
+            // Keyword rules only need the categories; the model is trained after startup
+            transactionService.loadCategoryRules();
+            
+            System.out.println("Services initialized successfully");
         } catch (Exception e) {
-            System.err.println("Failed to initialize services: " + e.getMessage());
-            e.printStackTrace();
-            System.exit(1);
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Build the autocomplete index and train the category model from the full history
+     */
+    private void loadSuggestions() {
+        long start = System.nanoTime();
+        try {
+            transactionService.buildDescriptionIndex();
+            transactionService.trainCategoryClassifier();
+            System.out.println("Suggestions and categorizer loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (SQLException e) {
+            System.err.println("Failed to load suggestions and categorizer: " + e.getMessage());
         }
     }
     
+    private static Executor backgroundThread(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+    
     private void shutdown() {
         try {
+            if (controller != null) {
+                controller.saveSnapshot();
+            }
+            if (snapshotStore != null) {
+                snapshotStore.close();
+            }
+            if (recurringTransactionService != null) {
+                recurringTransactionService.close();
+            }
+            if (budgetRolloverJob != null) {
+                budgetRolloverJob.close();
+            }
+            if (maintenanceJob != null) {
+                maintenanceJob.close();
+            }
+            if (eventBus != null) {
+                eventBus.close();
+            }
             if (databaseManager != null) {
                 databaseManager.closeConnection();
             }
@@ -0,0 +1,885 @@
+package com.moneytracker.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.database.ShardRouter;
+import com.moneytracker.database.StorageMaintenance;
+import com.moneytracker.event.EventBus;
+import com.moneytracker.event.TransactionPublisher;
+import com.moneytracker.model.Budget;
+import com.moneytracker.model.Category;
+import com.moneytracker.model.RecurringTransaction;
+import com.moneytracker.model.Transaction;
+import com.moneytracker.service.BudgetRolloverJob;
+import com.moneytracker.service.BudgetService;
+import com.moneytracker.service.CategoryService;
+import com.moneytracker.service.MaintenanceJob;
+import com.moneytracker.service.RecurringTransactionService;
+import com.moneytracker.service.TransactionArchiver;
+import com.moneytracker.service.TransactionService;
+import com.moneytracker.util.CurrencyUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Headless mode: exposes the budget, transaction and category services as a
+ * local JSON HTTP API, so scripts and other tools can post expenses without
+ * the GUI.
+ *
+ * Endpoints, all under /api:
+ * <pre>
+ *   GET    /health
+ *   GET    /budgets[?status=all|archived] POST /budgets
+ *   GET    /budgets/{id}                  POST /budgets/{id}/complete
+ *   GET    /budgets/{id}/summary          GET  /budgets/{id}/forecast
+ *   GET    /budgets/{id}/transactions?offset=&amp;limit=
+ *   POST   /expenses                      POST /income
+ *   GET    /transactions?q=&amp;budgetId=&amp;limit=
+ *   GET    /transactions/{id}             PUT  /transactions/{id}    DELETE /transactions/{id}
+ *   GET    /categories                    POST /categories
+ *   GET    /categories/{id}               DELETE /categories/{id}
+ *   GET    /suggestions?prefix=&amp;limit=
+ *   GET    /recurring                     POST /recurring
+ *   GET    /recurring/{id}                DELETE /recurring/{id}
+ *   GET    /stream?budgetId=&amp;type=&amp;categoryId=    (server-sent events)
+ * </pre>
+ * Budgets, expenses and income take an optional {@code currency} code: budgets
+ * and income default to rupees, expenses to their budget's currency.
+ *
+ * With {@code --shards <dir>} every request names its tenant in the
+ * {@value #TENANT_HEADER} header and is served from that tenant's own database.
+ * Recurring transactions are then caught up whenever a tenant's shard is opened,
+ * rather than by a running scheduler per tenant.
+ */
+public class ApiServer {
+    
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_OPEN_SHARDS = 64;
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+    private static final int STREAM_BUFFER_SIZE = 256;
+    private static final long STREAM_KEEPALIVE_SECONDS = 15;
+    // Each open stream holds a request thread; stay well below the smallest fallback pool
+    private static final int MAX_OPEN_STREAMS = 4;
+    
+    /**
+     * The services one request works with
+     */
+    private static final class Services {
+        private final BudgetService budgets;
+        private final TransactionService transactions;
+        private final CategoryService categories;
+        private final RecurringTransactionService recurring;
+        
+        Services(BudgetService budgets, TransactionService transactions, CategoryService categories,
+                 RecurringTransactionService recurring) {
+            this.budgets = budgets;
+            this.transactions = transactions;
+            this.categories = categories;
+            this.recurring = recurring;
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Endpoint {
+        Object handle(Request request, Services services) throws SQLException;
+    }
+    
+    @FunctionalInterface
+    private interface ServicesWork {
+        Object run(Services services) throws SQLException;
+    }
+    
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+    private final Services sharedServices;
+    private final ShardRouter shardRouter;
+    private final BudgetRolloverJob budgetRolloverJob;
+    private final MaintenanceJob maintenanceJob;
+    private final Semaphore streamSlots = new Semaphore(MAX_OPEN_STREAMS);
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    /**
+     * Serve one database
+     */
+    public ApiServer(DatabaseManager databaseManager) {
+        // One bus for both services, so stream clients and the maintenance job see budget events too
+        EventBus eventBus = new EventBus();
+        BudgetService budgetService = new BudgetService(databaseManager, eventBus);
+        TransactionService transactionService = openTransactionService(databaseManager, eventBus);
+        this.sharedServices = new Services(budgetService, transactionService, new CategoryService(databaseManager),
+            new RecurringTransactionService(databaseManager, transactionService, budgetService));
+        this.shardRouter = null;
+        this.budgetRolloverJob = new BudgetRolloverJob(budgetService);
+        this.maintenanceJob = new MaintenanceJob(new StorageMaintenance(databaseManager),
+            new TransactionArchiver(databaseManager, transactionService), transactionService, eventBus);
+    }
+    
+    /**
+     * Serve one database per tenant, chosen by the tenant header
+     */
+    public ApiServer(ShardRouter shardRouter) {
+        this.sharedServices = null;
+        this.shardRouter = shardRouter;
+        this.budgetRolloverJob = null;
+        this.maintenanceJob = null;
+    }
+    
+    /**
+     * Start listening on the loopback interface
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/api/health", exchange -> respond(exchange, 200, Map.of("status", "ok")));
+        server.createContext("/api/budgets", exchange -> handle(exchange, this::budgets));
+        server.createContext("/api/expenses", exchange -> handle(exchange, this::expenses));
+        server.createContext("/api/income", exchange -> handle(exchange, this::income));
+        server.createContext("/api/transactions", exchange -> handle(exchange, this::transactions));
+        server.createContext("/api/categories", exchange -> handle(exchange, this::categories));
+        server.createContext("/api/suggestions", exchange -> handle(exchange, this::suggestions));
+        server.createContext("/api/stream", this::stream);
+        server.createContext("/api/recurring", exchange -> handle(exchange, this::recurring));
+        if (sharedServices != null) {
+            try {
+                sharedServices.recurring.start();
+            } catch (SQLException e) {
+                throw new IOException("Failed to start the recurring transaction scheduler", e);
+            }
+            budgetRolloverJob.start();
+            maintenanceJob.start();
+        }
+        executor = createExecutor();
+        server.setExecutor(executor);
+        server.start();
+        System.out.println("API server listening on http://" + server.getAddress().getHostString() + ":"
+            + server.getAddress().getPort() + "/api");
+    }
+    
+    /**
+     * Stop accepting requests, letting running ones finish for up to a second
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+        }
+        if (sharedServices != null) {
+            sharedServices.recurring.close();
+            budgetRolloverJob.close();
+            maintenanceJob.close();
+            sharedServices.transactions.getEventBus().close();
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Get the port actually bound, e.g. after starting on port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    // Endpoints
+    
+    private Object budgets(Request request, Services services) throws SQLException {
+        BudgetService budgetService = services.budgets;
+        if (request.path.length == 0) {
+            if (request.isGet()) {
+                String status = request.query("status");
+                if ("archived".equals(status)) {
+                    return budgetService.getArchivedBudgets();
+                }
+                return "all".equals(status) ? budgetService.getAllBudgets() : budgetService.getActiveBudgets();
+            }
+            request.requirePost();
+            BigDecimal totalAmount = request.requiredAmount("totalAmount");
+            LocalDate startDate = request.date("startDate", LocalDate.now());
+            LocalDate endDate = request.date("endDate", startDate.plusDays(30));
+            if (endDate.isBefore(startDate)) {
+                throw new ApiException(400, "endDate is before startDate");
+            }
+            String currency = request.text("currency");
+            try {
+                return budgetService.createBudget(totalAmount, currency != null ? currency : CurrencyUtil.DEFAULT_CURRENCY,
+                    startDate, endDate, request.text("description"));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, e.getMessage());
+            }
+        }
+        
+        Long budgetId = request.pathId(0);
+        Budget budget = budgetService.getBudgetById(budgetId)
+            .orElseThrow(() -> new ApiException(404, "Budget " + budgetId + " not found"));
+        String action = request.path.length > 1 ? request.path[1] : "";
+        switch (action) {
+            case "":
+                request.requireGet();
+                return budget;
+            case "summary":
+                request.requireGet();
+                return budgetService.calculateBudgetSummary(budgetId);
+            case "forecast":
+                request.requireGet();
+                return services.transactions.getSpendForecast(budget);
+            case "transactions":
+                request.requireGet();
+                return services.transactions.getTransactionsPage(budgetId, request.intQuery("offset", 0, Integer.MAX_VALUE, 0),
+                    request.intQuery("limit", 1, MAX_PAGE_SIZE, DEFAULT_PAGE_SIZE), null);
+            case "complete":
+                request.requirePost();
+                budgetService.completeBudget(budgetId);
+                return budgetService.getBudgetById(budgetId).orElse(budget);
+            default:
+                throw new ApiException(404, "Unknown budget resource: " + action);
+        }
+    }
+    
+    private Object expenses(Request request, Services services) throws SQLException {
+        request.requirePost();
+        request.requireNoPath();
+        Long requestedBudgetId = request.optionalLong("budgetId");
+        Budget budget = services.budgets.routeExpense(requestedBudgetId, LocalDate.now())
+            .orElseThrow(() -> new ApiException(409, "No active budget covers today"));
+        if (requestedBudgetId != null && !requestedBudgetId.equals(budget.getId())) {
+            throw new ApiException(409, "Budget " + requestedBudgetId + " is not active");
+        }
+        try {
+            return services.transactions.addExpense(request.requiredAmount("amount"), request.text("currency"),
+                request.requiredText("description"), request.optionalLong("categoryId"), request.text("notes"), budget.getId());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+    }
+    
+    private Object income(Request request, Services services) throws SQLException {
+        request.requirePost();
+        request.requireNoPath();
+        String currency = request.text("currency");
+        try {
+            return services.transactions.addIncome(request.requiredAmount("amount"),
+                currency != null ? currency : CurrencyUtil.DEFAULT_CURRENCY, request.requiredText("description"),
+                request.text("notes"));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+    }
+    
+    private Object transactions(Request request, Services services) throws SQLException {
+        TransactionService transactionService = services.transactions;
+        if (request.path.length == 0) {
+            request.requireGet();
+            int limit = request.intQuery("limit", 1, MAX_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+            String query = request.query("q");
+            if (query == null || query.isBlank()) {
+                return transactionService.getRecentTransactions(limit);
+            }
+            String budgetId = request.query("budgetId");
+            return transactionService.searchTransactions(query, budgetId != null ? parseId(budgetId) : null, null, null, limit);
+        }
+        
+        Long transactionId = request.pathId(0);
+        Transaction transaction = transactionService.getTransactionById(transactionId)
+            .orElseThrow(() -> new ApiException(404, "Transaction " + transactionId + " not found"));
+        try {
+            switch (request.method) {
+                case "GET":
+                    return transaction;
+                case "PUT":
+                    transactionService.updateTransaction(transactionId,
+                        request.amount("amount", transaction.getAmount()),
+                        request.text("description", transaction.getDescription()),
+                        request.has("categoryId") ? request.optionalLong("categoryId") : transaction.getCategoryId(),
+                        request.text("notes", transaction.getNotes()));
+                    return transactionService.getTransactionById(transactionId).orElse(transaction);
+                case "DELETE":
+                    transactionService.deleteTransaction(transactionId);
+                    return transaction;
+                default:
+                    throw new ApiException(405, "Method not allowed: " + request.method);
+            }
+        } catch (IllegalStateException e) {
+            // Archived transactions are read-only
+            throw new ApiException(409, e.getMessage());
+        }
+    }
+    
+    private Object categories(Request request, Services services) throws SQLException {
+        CategoryService categoryService = services.categories;
+        if (request.path.length == 0) {
+            if (request.isGet()) {
+                return categoryService.getAllCategories();
+            }
+            request.requirePost();
+            return categoryService.createCategory(request.requiredText("name"), request.text("description"),
+                request.text("color"));
+        }
+        
+        Long categoryId = request.pathId(0);
+        Category category = categoryService.getCategoryById(categoryId)
+            .orElseThrow(() -> new ApiException(404, "Category " + categoryId + " not found"));
+        switch (request.method) {
+            case "GET":
+                return category;
+            case "DELETE":
+                if (category.isDefault()) {
+                    throw new ApiException(409, "Default categories cannot be deleted");
+                }
+                categoryService.deleteCategory(categoryId);
+                return category;
+            default:
+                throw new ApiException(405, "Method not allowed: " + request.method);
+        }
+    }
+    
+    private Object recurring(Request request, Services services) throws SQLException {
+        RecurringTransactionService recurringService = services.recurring;
+        if (request.path.length == 0) {
+            if (request.isGet()) {
+                return recurringService.getRecurringTransactions();
+            }
+            request.requirePost();
+            RecurringTransaction definition = new RecurringTransaction(
+                request.enumValue("type", Transaction.TransactionType.class, Transaction.TransactionType.EXPENSE),
+                request.requiredAmount("amount"), request.requiredText("description"),
+                request.enumValue("frequency", RecurringTransaction.Frequency.class, RecurringTransaction.Frequency.MONTHLY),
+                request.date("startDate", LocalDate.now()));
+            definition.setIntervalCount(request.has("interval") ? request.optionalLong("interval").intValue() : 1);
+            definition.setEndDate(request.date("endDate", null));
+            definition.setCategoryId(request.optionalLong("categoryId"));
+            definition.setBudgetId(request.optionalLong("budgetId"));
+            definition.setNotes(request.text("notes"));
+            try {
+                return recurringService.createRecurringTransaction(definition);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, e.getMessage());
+            }
+        }
+        
+        Long recurringId = request.pathId(0);
+        RecurringTransaction definition = recurringService.getRecurringTransactionById(recurringId)
+            .orElseThrow(() -> new ApiException(404, "Recurring transaction " + recurringId + " not found"));
+        switch (request.method) {
+            case "GET":
+                return definition;
+            case "DELETE":
+                recurringService.deactivateRecurringTransaction(recurringId);
+                definition.setActive(false);
+                return definition;
+            default:
+                throw new ApiException(405, "Method not allowed: " + request.method);
+        }
+    }
+    
+    private Object suggestions(Request request, Services services) {
+        request.requireGet();
+        request.requireNoPath();
+        return services.transactions.suggestDescriptions(request.query("prefix"), request.intQuery("limit", 1, 20, 6));
+    }
+    
+    /**
+     * Server-sent events: one "transaction" event per added transaction matching the
+     * optional filters, until the client disconnects. A client that falls behind skips
+     * to the latest transactions; it never slows down writes.
+     */
+    private void stream(HttpExchange exchange) {
+        if (!streamSlots.tryAcquire()) {
+            respond(exchange, 503, Map.of("error", "Too many open streams"));
+            return;
+        }
+        try {
+            Request request = readRequest(exchange);
+            request.requireGet();
+            request.requireNoPath();
+            Predicate<Transaction> filter = streamFilter(request);
+            withServices(exchange.getRequestHeaders().getFirst(TENANT_HEADER), services -> {
+                streamTransactions(exchange, services.transactions, filter);
+                return null;
+            });
+        } catch (ApiException e) {
+            respond(exchange, e.getStatus(), Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            System.err.println("API stream failed: " + e.getMessage());
+            respond(exchange, 500, Map.of("error", "Internal error"));
+        } finally {
+            streamSlots.release();
+        }
+    }
+    
+    private static Predicate<Transaction> streamFilter(Request request) {
+        Predicate<Transaction> filter = transaction -> true;
+        String budgetId = request.query("budgetId");
+        if (budgetId != null) {
+            filter = filter.and(TransactionPublisher.forBudget(parseId(budgetId)));
+        }
+        String categoryId = request.query("categoryId");
+        if (categoryId != null) {
+            filter = filter.and(TransactionPublisher.inCategory(parseId(categoryId)));
+        }
+        String type = request.query("type");
+        if (type != null) {
+            try {
+                filter = filter.and(TransactionPublisher.ofType(Transaction.TransactionType.valueOf(type.trim().toUpperCase())));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Invalid type: " + type);
+            }
+        }
+        return filter;
+    }
+    
+    private void streamTransactions(HttpExchange exchange, TransactionService transactionService,
+                                    Predicate<Transaction> filter) {
+        CountDownLatch finished = new CountDownLatch(1);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        try (TransactionPublisher publisher = transactionService.streamTransactions(filter, STREAM_BUFFER_SIZE,
+                 TransactionPublisher.Overflow.KEEP_LATEST);
+             OutputStream output = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, 0);
+            output.flush();
+            publisher.subscribe(new Flow.Subscriber<Transaction>() {
+                private Flow.Subscription subscription;
+                
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+                
+                @Override
+                public void onNext(Transaction transaction) {
+                    try {
+                        writeEvent(output, "event: transaction\ndata: " + mapper.writeValueAsString(transaction) + "\n\n");
+                        subscription.request(1);
+                    } catch (IOException e) {
+                        subscription.cancel();
+                        finished.countDown();
+                    }
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                    finished.countDown();
+                }
+                
+                @Override
+                public void onComplete() {
+                    finished.countDown();
+                }
+            });
+            // Comments keep idle connections alive and reveal clients that went away
+            while (!finished.await(STREAM_KEEPALIVE_SECONDS, TimeUnit.SECONDS)) {
+                writeEvent(output, ": keepalive\n\n");
+            }
+        } catch (IOException e) {
+            // The client disconnected
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private static void writeEvent(OutputStream output, String event) throws IOException {
+        synchronized (output) {
+            output.write(event.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+    }
+    
+    // Plumbing
+    
+    private void handle(HttpExchange exchange, Endpoint endpoint) {
+        int status;
+        Object body;
+        try {
+            Request request = readRequest(exchange);
+            body = withServices(exchange.getRequestHeaders().getFirst(TENANT_HEADER),
+                services -> endpoint.handle(request, services));
+            status = "POST".equals(request.method) && request.path.length == 0 ? 201 : 200;
+        } catch (ApiException e) {
+            status = e.getStatus();
+            body = Map.of("error", e.getMessage());
+        } catch (JsonProcessingException e) {
+            status = 400;
+            body = Map.of("error", "Malformed JSON: " + e.getOriginalMessage());
+        } catch (Exception e) {
+            System.err.println("API request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                + ": " + e.getMessage());
+            status = 500;
+            body = Map.of("error", "Internal error");
+        }
+        respond(exchange, status, body);
+    }
+    
+    private Object withServices(String tenantId, ServicesWork work) throws SQLException {
+        if (shardRouter == null) {
+            return work.run(sharedServices);
+        }
+        if (tenantId == null || tenantId.isBlank()) {
+            throw new ApiException(400, "Missing " + TENANT_HEADER + " header");
+        }
+        try {
+            return shardRouter.withShard(tenantId, shard -> {
+                EventBus eventBus = shard.getService(EventBus.class, manager -> new EventBus());
+                BudgetService budgetService = shard.getService(BudgetService.class,
+                    manager -> openBudgetService(manager, eventBus));
+                TransactionService transactionService = shard.getService(TransactionService.class,
+                    manager -> openTransactionService(manager, eventBus));
+                return work.run(new Services(budgetService, transactionService,
+                    shard.getService(CategoryService.class, CategoryService::new),
+                    shard.getService(RecurringTransactionService.class,
+                        manager -> openRecurringService(manager, transactionService, budgetService))));
+            });
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+    }
+    
+    private Request readRequest(HttpExchange exchange) throws IOException {
+        String context = exchange.getHttpContext().getPath();
+        String rest = exchange.getRequestURI().getRawPath().substring(context.length()).replaceAll("^/+|/+$", "");
+        String[] path = rest.isEmpty() ? new String[0] : rest.split("/+");
+        
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                String key = equals >= 0 ? pair.substring(0, equals) : pair;
+                String value = equals >= 0 ? pair.substring(equals + 1) : "";
+                query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        
+        JsonNode body = null;
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] bytes = input.readAllBytes();
+            if (bytes.length > 0) {
+                body = mapper.readTree(bytes);
+            }
+        }
+        return new Request(exchange.getRequestMethod().toUpperCase(), path, query, body);
+    }
+    
+    private void respond(HttpExchange exchange, int status, Object body) {
+        try {
+            byte[] bytes = mapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write API response: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Virtual threads where the runtime has them (Java 21+); the build targets Java 17,
+     * so otherwise a fixed pool. Requests are short and share one connection per
+     * database, so a few threads per core keep it saturated.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "anton-api");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Create a transaction service with its autocomplete index and categorizer loaded
+     */
+    private static TransactionService openTransactionService(DatabaseManager databaseManager, EventBus eventBus) {
+        TransactionService transactionService = new TransactionService(databaseManager, eventBus);
+        try {
+            transactionService.buildDescriptionIndex();
+            transactionService.trainCategoryClassifier();
+        } catch (SQLException e) {
+            System.err.println("Failed to load suggestions and categorizer: " + e.getMessage());
+        }
+        return transactionService;
+    }
+    
+    /**
+     * Create a shard's budget service, rolling over budgets that ended while the shard was closed
+     */
+    private static BudgetService openBudgetService(DatabaseManager databaseManager, EventBus eventBus) {
+        BudgetService budgetService = new BudgetService(databaseManager, eventBus);
+        try {
+            budgetService.rollOverBudgets(LocalDate.now());
+        } catch (SQLException e) {
+            System.err.println("Failed to roll over budgets: " + e.getMessage());
+        }
+        return budgetService;
+    }
+    
+    /**
+     * Create a shard's recurring transaction service, catching up on what fell due
+     * while the shard was closed
+     */
+    private static RecurringTransactionService openRecurringService(DatabaseManager databaseManager,
+                                                                    TransactionService transactionService,
+                                                                    BudgetService budgetService) {
+        RecurringTransactionService recurringService = new RecurringTransactionService(databaseManager,
+            transactionService, budgetService);
+        try {
+            recurringService.runDue(LocalDate.now());
+        } catch (SQLException e) {
+            System.err.println("Failed to catch up recurring transactions: " + e.getMessage());
+        }
+        return recurringService;
+    }
+    
+    private static Long parseId(String text) {
+        try {
+            return Long.valueOf(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid ID: " + text);
+        }
+    }
+    
+    /**
+     * Parsed method, path below the endpoint, query parameters and JSON body
+     */
+    private static final class Request {
+        private final String method;
+        private final String[] path;
+        private final Map<String, String> query;
+        private final JsonNode body;
+        
+        Request(String method, String[] path, Map<String, String> query, JsonNode body) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+        }
+        
+        boolean isGet() {
+            return "GET".equals(method);
+        }
+        
+        void requireGet() {
+            requireMethod("GET");
+        }
+        
+        void requirePost() {
+            requireMethod("POST");
+        }
+        
+        void requireNoPath() {
+            if (path.length > 0) {
+                throw new ApiException(404, "Not found");
+            }
+        }
+        
+        private void requireMethod(String expected) {
+            if (!expected.equals(method)) {
+                throw new ApiException(405, "Method not allowed: " + method);
+            }
+        }
+        
+        Long pathId(int index) {
+            return parseId(path[index]);
+        }
+        
+        String query(String name) {
+            return query.get(name);
+        }
+        
+        int intQuery(String name, int min, int max, int defaultValue) {
+            String value = query.get(name);
+            if (value == null || value.isBlank()) {
+                return defaultValue;
+            }
+            try {
+                return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Invalid " + name + ": " + value);
+            }
+        }
+        
+        boolean has(String field) {
+            return body != null && body.has(field);
+        }
+        
+        private JsonNode field(String name) {
+            JsonNode node = body != null ? body.get(name) : null;
+            return node == null || node.isNull() ? null : node;
+        }
+        
+        String text(String name) {
+            return text(name, null);
+        }
+        
+        String text(String name, String defaultValue) {
+            JsonNode node = field(name);
+            return node != null ? node.asText() : defaultValue;
+        }
+        
+        String requiredText(String name) {
+            String value = text(name);
+            if (value == null || value.isBlank()) {
+                throw new ApiException(400, name + " is required");
+            }
+            return value.trim();
+        }
+        
+        Long optionalLong(String name) {
+            JsonNode node = field(name);
+            if (node == null) {
+                return null;
+            }
+            if (!node.canConvertToLong()) {
+                throw new ApiException(400, "Invalid " + name + ": " + node);
+            }
+            return node.asLong();
+        }
+        
+        BigDecimal amount(String name, BigDecimal defaultValue) {
+            JsonNode node = field(name);
+            if (node == null) {
+                return defaultValue;
+            }
+            BigDecimal amount;
+            try {
+                amount = node.isNumber() ? node.decimalValue() : new BigDecimal(node.asText().trim());
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Invalid " + name + ": " + node);
+            }
+            if (amount.signum() <= 0) {
+                throw new ApiException(400, name + " must be positive");
+            }
+            return amount;
+        }
+        
+        BigDecimal requiredAmount(String name) {
+            return Optional.ofNullable(amount(name, null))
+                .orElseThrow(() -> new ApiException(400, name + " is required"));
+        }
+        
+        <E extends Enum<E>> E enumValue(String name, Class<E> type, E defaultValue) {
+            String value = text(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Enum.valueOf(type, value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Invalid " + name + ": " + value);
+            }
+        }
+        
+        LocalDate date(String name, LocalDate defaultValue) {
+            String value = text(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return LocalDate.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                throw new ApiException(400, "Invalid " + name + ", expected YYYY-MM-DD: " + value);
+            }
+        }
+    }
+    
+    /**
+     * A request error reported to the client with an HTTP status
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+        
+        int getStatus() {
+            return status;
+        }
+    }
+    
+    /**
+     * Run the API server without the GUI.
+     * Usage: ApiServer [--port N] [--shards DIR]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("anton.api.port", DEFAULT_PORT);
+        String shardDirectory = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--shards".equals(args[i]) && i + 1 < args.length) {
+                shardDirectory = args[++i];
+            } else {
+                System.err.println("Usage: ApiServer [--port N] [--shards DIR]");
+                System.exit(2);
+            }
+        }
+        
+        ApiServer apiServer;
+        Runnable closeDatabase;
+        if (shardDirectory != null) {
+            ShardRouter router = new ShardRouter(Path.of(shardDirectory), MAX_OPEN_SHARDS);
+            apiServer = new ApiServer(router);
+            closeDatabase = router::close;
+        } else {
+            DatabaseManager databaseManager = new DatabaseManager();
+            databaseManager.initializeDatabase();
+            apiServer = new ApiServer(databaseManager);
+            closeDatabase = () -> {
+                try {
+                    databaseManager.closeConnection();
+                } catch (SQLException e) {
+                    System.err.println("Error closing database: " + e.getMessage());
+                }
+            };
+        }
+        
+        apiServer.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            apiServer.stop();
+            closeDatabase.run();
+        }, "anton-api-shutdown"));
+    }
+}
@@ -0,0 +1,443 @@
+package com.moneytracker.cli;
+
+import com.moneytracker.database.BackupManager;
+import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.database.StorageMaintenance;
+import com.moneytracker.model.Budget;
+import com.moneytracker.model.Category;
+import com.moneytracker.model.Transaction;
+import com.moneytracker.service.BudgetService;
+import com.moneytracker.service.CategoryService;
+import com.moneytracker.service.MaintenanceJob;
+import com.moneytracker.service.SpendForecaster;
+import com.moneytracker.service.TransactionArchiver;
+import com.moneytracker.service.TransactionService;
+import com.moneytracker.util.CurrencyUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Command-line entry point for quick adds and reports from a shell.
+ *
+ * Never touches JavaFX, and only opens the database and the services a
+ * command needs: adding an expense loads the categorizer's keyword rules but
+ * neither trains the model nor builds the autocomplete index, so it finishes in
+ * a fraction of the GUI's startup time.
+ *
+ * <pre>
+ * Usage: AntonCli [--db FILE] COMMAND [OPTIONS]
+ *   add AMOUNT DESCRIPTION... [--category NAME] [--budget ID] [--notes TEXT] [--currency CODE]
+ *   list    [--budget ID] [--limit N]
+ *   summary [--budget ID]
+ *   export  [--budget ID] [--output FILE]
+ *   backup  [--dir DIR]
+ *   verify  FILE
+ *   restore FILE
+ *   archive
+ *   maintenance
+ *   vacuum
+ * </pre>
+ */
+public class AntonCli {
+    
+    private static final int DEFAULT_LIST_LIMIT = 20;
+    private static final DateTimeFormatter LIST_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    private static final String USAGE = """
+        Usage: AntonCli [--db FILE] COMMAND [OPTIONS]
+          add AMOUNT DESCRIPTION... [--category NAME] [--budget ID] [--notes TEXT] [--currency CODE]
+                                     record an expense in the given or matching active budget
+          list    [--budget ID] [--limit N]      show a budget's latest transactions
+          summary [--budget ID]                  show a budget's totals and forecast
+          export  [--budget ID] [--output FILE]  write a budget's transactions as CSV
+          backup  [--dir DIR]                    write a compressed, verified online backup
+                                                 and delete ones the retention policy drops
+          verify  FILE                           check a backup can be restored
+          restore FILE                           replace the database with a verified backup
+          archive                                move transactions of budgets that ended over
+                                                 30 days ago to the archive database
+          maintenance                            archive, reclaim free space and refresh query
+                                                 statistics, as the app does when idle
+          vacuum                                 rebuild the database files, blocking writers
+        Without --budget, add charges the active budget covering today that started
+        last; the other commands use the most recently created active budget. An expense
+        is in its budget's currency unless --currency is given. Backups go to a
+        "backups" directory next to the database unless --dir is given.""";
+    
+    private final DatabaseManager databaseManager;
+    private final PrintStream out;
+    
+    AntonCli(DatabaseManager databaseManager, PrintStream out) {
+        this.databaseManager = databaseManager;
+        this.out = out;
+    }
+    
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+    
+    /**
+     * Run one command
+     * @return the process exit code: 0 on success, 1 on failure, 2 on a usage error
+     */
+    static int run(String[] args) {
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (arguments.command == null || "help".equals(arguments.command)) {
+            System.out.println(USAGE);
+            return arguments.command == null ? 2 : 0;
+        }
+        
+        // Services report progress on standard output; send that to standard error
+        // so command output, e.g. an exported CSV, can be piped cleanly
+        PrintStream out = System.out;
+        System.setOut(System.err);
+        String databaseFile = arguments.option("db", null);
+        DatabaseManager databaseManager = databaseFile != null ? new DatabaseManager(databaseFile) : new DatabaseManager();
+        try {
+            databaseManager.initializeDatabase();
+            AntonCli cli = new AntonCli(databaseManager, out);
+            switch (arguments.command) {
+                case "add":
+                    cli.add(arguments);
+                    break;
+                case "list":
+                    cli.list(arguments);
+                    break;
+                case "summary":
+                    cli.summary(arguments);
+                    break;
+                case "export":
+                    cli.export(arguments);
+                    break;
+                case "backup":
+                    cli.backup(arguments);
+                    break;
+                case "verify":
+                    cli.verify(arguments);
+                    break;
+                case "restore":
+                    cli.restore(arguments);
+                    break;
+                case "archive":
+                    cli.archive();
+                    break;
+                case "maintenance":
+                    cli.maintenance();
+                    break;
+                case "vacuum":
+                    cli.vacuum();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + arguments.command);
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        } catch (SQLException | IOException | IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            try {
+                databaseManager.closeConnection();
+            } catch (SQLException e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+            System.setOut(out);
+        }
+    }
+    
+    private void add(Arguments arguments) throws SQLException {
+        if (arguments.positional.size() < 2) {
+            throw new IllegalArgumentException("add needs an amount and a description");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(arguments.positional.get(0));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + arguments.positional.get(0));
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        String description = String.join(" ", arguments.positional.subList(1, arguments.positional.size()));
+        
+        BudgetService budgetService = new BudgetService(databaseManager);
+        Long requestedBudgetId = arguments.longOption("budget");
+        Budget budget = budgetService.routeExpense(requestedBudgetId, LocalDate.now())
+            .orElseThrow(() -> new IllegalStateException("No active budget covers today"));
+        if (requestedBudgetId != null && !requestedBudgetId.equals(budget.getId())) {
+            throw new IllegalStateException("Budget " + requestedBudgetId + " is not active");
+        }
+        
+        TransactionService transactionService = new TransactionService(databaseManager);
+        Long categoryId = null;
+        String categoryName = arguments.option("category", null);
+        if (categoryName != null) {
+            categoryId = findCategoryId(categoryName);
+        } else {
+            transactionService.loadCategoryRules();
+        }
+        
+        Transaction expense = transactionService.addExpense(amount, arguments.option("currency", null), description,
+            categoryId, arguments.option("notes", null), budget.getId());
+        Budget updated = budgetService.getBudgetById(budget.getId()).orElse(budget);
+        out.println("Added " + CurrencyUtil.formatAmount(expense.getAmount(), expense.getCurrency())
+            + " \"" + expense.getDescription() + "\""
+            + " [" + (expense.getCategory() != null ? expense.getCategory() : "Uncategorized") + "]"
+            + " to " + budgetName(updated) + "; remaining "
+            + CurrencyUtil.formatAmount(updated.getRemainingAmount(), updated.getCurrency()));
+    }
+    
+    private void list(Arguments arguments) throws SQLException {
+        Budget budget = resolveBudget(arguments);
+        int limit = arguments.intOption("limit", DEFAULT_LIST_LIMIT);
+        List<Transaction> transactions = new TransactionService(databaseManager)
+            .getTransactionsPage(budget.getId(), 0, limit, null);
+        
+        out.println(budgetName(budget) + " - latest " + transactions.size() + " transactions");
+        for (Transaction transaction : transactions) {
+            String amount = transaction.isExpense()
+                ? CurrencyUtil.formatAmountWithPrefix(transaction.getAmount(), "-", transaction.getCurrency())
+                : CurrencyUtil.formatAmount(transaction.getAmount(), transaction.getCurrency());
+            out.printf("%5d  %s  %14s  %-20s  %s%n", transaction.getId(),
+                transaction.getTimestamp().format(LIST_DATE_FORMATTER), amount,
+                transaction.getCategory() != null ? transaction.getCategory() : transaction.getType().getDisplayName(),
+                transaction.getDescription());
+        }
+    }
+    
+    private void summary(Arguments arguments) throws SQLException {
+        Budget budget = resolveBudget(arguments);
+        BudgetService.BudgetSummary summary = new BudgetService(databaseManager).calculateBudgetSummary(budget.getId());
+        TransactionService transactionService = new TransactionService(databaseManager);
+        Map<String, BigDecimal> spendingByCategory = transactionService.getSpendingByCategory(budget.getId());
+        SpendForecaster.SpendForecast forecast = transactionService.getSpendForecast(budget);
+        
+        out.println(budgetName(budget) + " (" + budget.getStartDate() + " to " + budget.getEndDate() + ", "
+            + budget.getStatus().getDisplayName() + ")");
+        out.println("  Budget:        " + CurrencyUtil.formatAmount(budget.getTotalAmount(), budget.getCurrency()));
+        out.println("  Spent:         " + CurrencyUtil.formatAmount(summary.getTotalExpenses(), budget.getCurrency())
+            + String.format(" (%.1f%%)", summary.getSpentPercentage()));
+        out.println("  Remaining:     " + CurrencyUtil.formatAmount(summary.getRemainingBudget(), budget.getCurrency()));
+        out.println("  Daily budget:  " + CurrencyUtil.formatAmount(budget.getDailyBudget(), budget.getCurrency()));
+        out.println("  Transactions:  " + summary.getTransactionCount());
+        out.println("  Projected:     " + CurrencyUtil.formatAmount(forecast.getProjectedSpend(), budget.getCurrency())
+            + (forecast.runsOutBefore(budget.getEndDate()) ? ", runs out " + forecast.getRunOutDate() : ", on track"));
+        if (!spendingByCategory.isEmpty()) {
+            out.println("  By category:");
+            spendingByCategory.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .forEach(entry -> out.printf("    %-20s %14s%n", entry.getKey(), CurrencyUtil.formatAmount(entry.getValue(), budget.getCurrency())));
+        }
+    }
+    
+    private void export(Arguments arguments) throws SQLException, IOException {
+        Budget budget = resolveBudget(arguments);
+        String output = arguments.option("output", null);
+        Writer writer = output != null
+            ? Files.newBufferedWriter(Path.of(output), StandardCharsets.UTF_8)
+            : new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int rows = 0;
+        try {
+            writer.write("id,timestamp,type,amount,currency,category,description,notes\n");
+            for (Transaction transaction : new TransactionService(databaseManager).getTransactionsByBudget(budget.getId())) {
+                writer.write(transaction.getId() + "," + transaction.getTimestamp() + "," + transaction.getType().name() + ","
+                    + transaction.getAmount().toPlainString() + "," + transaction.getCurrency() + ","
+                    + csv(transaction.getCategory()) + ","
+                    + csv(transaction.getDescription()) + "," + csv(transaction.getNotes()) + "\n");
+                rows++;
+            }
+        } finally {
+            if (output != null) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+        if (output != null) {
+            out.println("Exported " + rows + " transactions of " + budgetName(budget) + " to " + output);
+        }
+    }
+    
+    private void backup(Arguments arguments) throws SQLException, IOException {
+        BackupManager.BackupResult result = backupManager(arguments).backup(true);
+        out.println("Backed up to " + result.getFile() + ": " + result.getDatabaseBytes() / 1024 + " KB, "
+            + result.getCompressedBytes() / 1024 + " KB compressed, " + result.getRowCounts().get("transactions")
+            + " transactions, in " + result.getElapsed().toMillis() + " ms");
+        for (BackupManager.BackupFile pruned : result.getPruned()) {
+            out.println("Deleted old backup " + pruned);
+        }
+    }
+    
+    private void verify(Arguments arguments) throws SQLException, IOException {
+        Path file = backupFile(arguments);
+        Map<String, Long> rowCounts = backupManager(arguments).verify(file);
+        out.println(file + " is intact: " + rowCounts);
+    }
+    
+    private void restore(Arguments arguments) throws SQLException, IOException {
+        Path file = backupFile(arguments);
+        backupManager(arguments).restore(file);
+        out.println("Restored " + databaseManager.getDatabaseName() + " from " + file);
+    }
+    
+    private void archive() throws SQLException {
+        TransactionArchiver archiver = new TransactionArchiver(databaseManager, new TransactionService(databaseManager));
+        TransactionArchiver.ArchiveResult result = archiver.archive(LocalDate.now());
+        out.println("Archived " + result.getTransactionCount() + " transactions of " + result.getBudgetCount()
+            + " budgets to " + databaseManager.getArchiveName());
+    }
+    
+    private void maintenance() throws SQLException {
+        TransactionService transactionService = new TransactionService(databaseManager);
+        MaintenanceJob job = new MaintenanceJob(new StorageMaintenance(databaseManager),
+            new TransactionArchiver(databaseManager, transactionService), transactionService,
+            transactionService.getEventBus());
+        MaintenanceJob.MaintenanceReport report = job.runNow(false);
+        out.println("Archived " + report.getArchived().getTransactionCount() + " transactions, corrected "
+            + report.getReconciledBudgets() + " budgets' spent amounts and reclaimed "
+            + report.getReclaimedPages() + " pages in " + report.getElapsed().toMillis() + " ms");
+        for (int i = 0; i < report.getAfter().size(); i++) {
+            out.println("  before " + report.getBefore().get(i));
+            out.println("  after  " + report.getAfter().get(i));
+        }
+    }
+    
+    private void vacuum() throws SQLException {
+        StorageMaintenance storageMaintenance = new StorageMaintenance(databaseManager);
+        List<StorageMaintenance.StorageStats> before = storageMaintenance.stats();
+        long started = System.nanoTime();
+        storageMaintenance.vacuum();
+        List<StorageMaintenance.StorageStats> after = storageMaintenance.stats();
+        out.println("Vacuumed in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        for (int i = 0; i < after.size(); i++) {
+            out.println("  before " + before.get(i));
+            out.println("  after  " + after.get(i));
+        }
+    }
+    
+    private BackupManager backupManager(Arguments arguments) {
+        String directory = arguments.option("dir", null);
+        return new BackupManager(databaseManager,
+            directory != null ? Path.of(directory) : BackupManager.defaultDirectory(databaseManager));
+    }
+    
+    private static Path backupFile(Arguments arguments) {
+        if (arguments.positional.size() != 1) {
+            throw new IllegalArgumentException(arguments.command + " needs one backup file");
+        }
+        Path file = Path.of(arguments.positional.get(0));
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No such backup: " + file);
+        }
+        return file;
+    }
+    
+    private Budget resolveBudget(Arguments arguments) throws SQLException {
+        BudgetService budgetService = new BudgetService(databaseManager);
+        Long budgetId = arguments.longOption("budget");
+        Optional<Budget> budget = budgetId != null ? budgetService.getBudgetById(budgetId) : budgetService.getCurrentBudget();
+        return budget.orElseThrow(() -> new IllegalStateException(
+            budgetId != null ? "Budget " + budgetId + " not found" : "No active budget"));
+    }
+    
+    private Long findCategoryId(String name) throws SQLException {
+        for (Category category : new CategoryService(databaseManager).getAllCategories()) {
+            if (category.getName().equalsIgnoreCase(name.trim())) {
+                return category.getId();
+            }
+        }
+        throw new IllegalArgumentException("Unknown category: " + name);
+    }
+    
+    private static String budgetName(Budget budget) {
+        return budget.getDescription() != null && !budget.getDescription().isBlank()
+            ? budget.getDescription() : "Budget #" + budget.getId();
+    }
+    
+    /**
+     * Quote a CSV field when it contains a separator, quote or line break
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * Command, positional arguments and --name value options, in any order
+     */
+    static final class Arguments {
+        private String command;
+        private final List<String> positional = new ArrayList<>();
+        private final Map<String, String> options = new HashMap<>();
+        
+        static Arguments parse(String[] args) {
+            Arguments arguments = new Arguments();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--") && arg.length() > 2) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + arg);
+                    }
+                    arguments.options.put(arg.substring(2), args[++i]);
+                } else if (arguments.command == null) {
+                    arguments.command = arg;
+                } else {
+                    arguments.positional.add(arg);
+                }
+            }
+            return arguments;
+        }
+        
+        String option(String name, String defaultValue) {
+            return options.getOrDefault(name, defaultValue);
+        }
+        
+        Long longOption(String name) {
+            String value = options.get(name);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Long.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid --" + name + ": " + value);
+            }
+        }
+        
+        int intOption(String name, int defaultValue) {
+            Long value = longOption(name);
+            return value != null ? (int) Math.max(1, Math.min(Integer.MAX_VALUE, value)) : defaultValue;
+        }
+    }
+}
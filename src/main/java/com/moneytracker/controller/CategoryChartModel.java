@@ -0,0 +1,110 @@
+package com.moneytracker.controller;
+
+import javafx.collections.ObservableList;
+import javafx.scene.chart.PieChart;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the category spending PieChart in step with category totals by diffing.
+ * Existing slices are reused and only their pie value is updated; slices are
+ * added or removed only when a category appears or disappears, so frequent
+ * refreshes do not rebuild the chart's scene graph.
+ *
+ * Tolerates a null chart for layouts that do not include one.
+ */
+public class CategoryChartModel {
+    
+    private final PieChart chart;
+    private final Map<String, PieChart.Data> slices = new HashMap<>();
+    
+    public CategoryChartModel(PieChart chart) {
+        this.chart = chart;
+    }
+    
+    /**
+     * Bring the chart in line with a full set of category totals
+     */
+    public void update(Map<String, BigDecimal> totals) {
+        if (chart == null) {
+            return;
+        }
+        
+        List<PieChart.Data> removed = new ArrayList<>();
+        slices.entrySet().removeIf(entry -> {
+            BigDecimal total = totals.get(entry.getKey());
+            if (total == null || total.signum() <= 0) {
+                removed.add(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        
+        List<PieChart.Data> added = new ArrayList<>();
+        for (Map.Entry<String, BigDecimal> entry : totals.entrySet()) {
+            if (entry.getValue().signum() <= 0) {
+                continue;
+            }
+            PieChart.Data slice = slices.get(entry.getKey());
+            if (slice == null) {
+                slice = new PieChart.Data(entry.getKey(), entry.getValue().doubleValue());
+                slices.put(entry.getKey(), slice);
+                added.add(slice);
+            } else {
+                setValue(slice, entry.getValue());
+            }
+        }
+        
+        ObservableList<PieChart.Data> data = chart.getData();
+        if (!removed.isEmpty()) {
+            data.removeAll(removed);
+        }
+        if (!added.isEmpty()) {
+            data.addAll(added);
+        }
+    }
+    
+    /**
+     * Set a single category's total, adding or removing its slice as needed
+     */
+    public void setTotal(String category, BigDecimal total) {
+        if (chart == null) {
+            return;
+        }
+        
+        PieChart.Data slice = slices.get(category);
+        if (total.signum() <= 0) {
+            if (slice != null) {
+                slices.remove(category);
+                chart.getData().remove(slice);
+            }
+        } else if (slice == null) {
+            slice = new PieChart.Data(category, total.doubleValue());
+            slices.put(category, slice);
+            chart.getData().add(slice);
+        } else {
+            setValue(slice, total);
+        }
+    }
+    
+    /**
+     * Remove every slice
+     */
+    public void clear() {
+        slices.clear();
+        if (chart != null) {
+            chart.getData().clear();
+        }
+    }
+    
+    private static void setValue(PieChart.Data slice, BigDecimal total) {
+        double value = total.doubleValue();
+        if (Double.compare(slice.getPieValue(), value) != 0) {
+            slice.setPieValue(value);
+        }
+    }
+}
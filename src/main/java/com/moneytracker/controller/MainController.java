@@ -1,24 +1,44 @@
 package com.moneytracker.controller;
 
 import com.moneytracker.controller.SimpleBudgetCreator;
+import com.moneytracker.event.BudgetCompleted;
+import com.moneytracker.event.BudgetCreated;
+import com.moneytracker.event.BudgetsRolledOver;
+import com.moneytracker.event.TransactionChange;
 import com.moneytracker.model.Budget;
 import com.moneytracker.model.Transaction;
 import com.moneytracker.service.BudgetService;
+import com.moneytracker.service.SpendForecaster;
 import com.moneytracker.service.TransactionService;
 import com.moneytracker.util.CurrencyUtil;
-import javafx.beans.property.SimpleStringProperty;
+import com.moneytracker.util.DashboardSnapshot;
+import com.moneytracker.util.DashboardSnapshotStore;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.chart.PieChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main controller for the Money Tracker application.
@@ -33,6 +53,7 @@ public class MainController {
     // FXML Components - Dashboard Tab
     @FXML private TabPane mainTabPane;
     @FXML private Label currentBudgetLabel;
+    @FXML private ComboBox<Budget> budgetSelector;
     @FXML private Label spentAmountLabel;
     @FXML private Label remainingAmountLabel;
     @FXML private Label dailyBudgetLabel;
@@ -43,12 +64,13 @@ public class MainController {
     @FXML private VBox dashboardContent;
     
     // FXML Components - Transactions Tab
-    @FXML private TableView<Transaction> transactionsTable;
-    @FXML private TableColumn<Transaction, String> dateColumn;
-    @FXML private TableColumn<Transaction, String> descriptionColumn;
-    @FXML private TableColumn<Transaction, String> categoryColumn;
-    @FXML private TableColumn<Transaction, String> amountColumn;
-    @FXML private TableColumn<Transaction, String> typeColumn;
+    @FXML private TextField searchField;
+    @FXML private TableView<TransactionRow> transactionsTable;
+    @FXML private TableColumn<TransactionRow, String> dateColumn;
+    @FXML private TableColumn<TransactionRow, String> descriptionColumn;
+    @FXML private TableColumn<TransactionRow, String> categoryColumn;
+    @FXML private TableColumn<TransactionRow, String> amountColumn;
+    @FXML private TableColumn<TransactionRow, String> typeColumn;
     @FXML private Button editTransactionButton;
     @FXML private Button deleteTransactionButton;
     
@@ -57,10 +79,60 @@ public class MainController {
     @FXML private Label totalExpensesLabel;
     @FXML private Label averageDailySpendingLabel;
     @FXML private Label biggestExpenseLabel;
+    @FXML private Label projectedSpendLabel;
+    @FXML private Label runOutDateLabel;
     
     // Data
-    private ObservableList<Transaction> transactionData = FXCollections.observableArrayList();
+    private ObservableList<TransactionRow> transactionData = FXCollections.observableArrayList();
     private Budget currentBudget;
+    // Set while the selector is repopulated, so programmatic selection is not taken as a switch
+    private boolean updatingBudgetSelector;
+    private Map<String, BigDecimal> lastSpendingByCategory = Map.of();
+    private BigDecimal lastTotalExpenses = BigDecimal.ZERO;
+    private BigDecimal lastBiggestExpense = BigDecimal.ZERO;
+    
+    // Transactions are fetched in pages as the table scrolls
+    private static final int TRANSACTION_PAGE_SIZE = 100;
+    private static final int TRANSACTION_WINDOW_PAGES = 3;
+    private static final Comparator<TransactionRow> NEWEST_FIRST = Comparator.comparing(TransactionRow::getTransaction,
+        Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed());
+    
+    private static final DateTimeFormatter RUN_OUT_DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    
+    // Cold-start snapshot persistence
+    private static final int SNAPSHOT_RECENT_ROWS = 20;
+    private DashboardSnapshotStore snapshotStore;
+    
+    // Search-as-you-type runs after typing pauses, one query at a time
+    private static final int SEARCH_DEBOUNCE_MILLIS = 150;
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(SEARCH_DEBOUNCE_MILLIS));
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anton-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Bumped by every table load, so the result of a superseded search or count is dropped
+    private long transactionsGeneration;
+    
+    // Budget, count and analytics reloads run here in request order, off the FX thread
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anton-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long budgetGeneration;
+    private long analyticsGeneration;
+    // Generations last applied; behind the counters while a load is in flight
+    private long transactionsShown;
+    private long analyticsShown;
+    
+    // Diffs category totals into the pie chart's existing slices
+    private CategoryChartModel categoryChartModel;
+    
+    // Coalesces refresh requests so bursts of writes refresh each target once
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler();
+    private final Queue<TransactionChange> pendingChanges = new ConcurrentLinkedQueue<>();
     
     /**
      * JavaFX initialize method called automatically after FXML loading
@@ -69,17 +141,163 @@ public class MainController {
     private void initialize() {
         // Setup UI components only - services will be injected later
         setupUI();
+        categoryChartModel = new CategoryChartModel(categorySpendingChart);
+        
+        refreshScheduler.register(RefreshScheduler.Target.CHANGES, this::applyTransactionChanges);
+        refreshScheduler.register(RefreshScheduler.Target.BUDGET, this::loadCurrentBudget);
+        refreshScheduler.register(RefreshScheduler.Target.TRANSACTIONS, this::loadTransactions);
+        refreshScheduler.register(RefreshScheduler.Target.ANALYTICS, this::updateAnalytics);
+        refreshScheduler.setAfterPulse(this::saveSnapshot);
     }
     
     /**
-     * Initialize the controller with services (called manually from App)
+     * Initialize the controller with services (called manually from App).
+     * Data is fetched on a background thread and applied once available;
+     * afterwards each transaction write is patched in from its change event,
+     * and budgets created or completed elsewhere refresh the budget selector.
      */
     public void initializeServices(BudgetService budgetService, TransactionService transactionService) {
         this.budgetService = budgetService;
         this.transactionService = transactionService;
         
-        loadCurrentBudget();
-        refreshData();
+        // Changes are queued and patched in once per pulse, so a bulk write costs one round
+        transactionService.getEventBus().subscribe(TransactionChange.class, change -> {
+            pendingChanges.add(change);
+            refreshScheduler.request(RefreshScheduler.Target.CHANGES);
+        });
+        budgetService.getEventBus().subscribe(BudgetCreated.class,
+            event -> refreshScheduler.request(RefreshScheduler.Target.BUDGET));
+        // The completed budget may be the one on screen, in which case another takes its place
+        budgetService.getEventBus().subscribe(BudgetCompleted.class, event -> refreshAll());
+        budgetService.getEventBus().subscribe(BudgetsRolledOver.class, event -> refreshAll());
+        
+        loadInitialDataAsync();
+    }
+    
+    /**
+     * Render a skeleton dashboard while services and data are still loading
+     */
+    public void showLoadingState() {
+        setLabelText(currentBudgetLabel, "Loading...");
+        setLabelText(spentAmountLabel, "...");
+        setLabelText(remainingAmountLabel, "...");
+        setLabelText(dailyBudgetLabel, "...");
+        setLabelText(progressPercentageLabel, "");
+        setLabelText(totalExpensesLabel, "...");
+        setLabelText(averageDailySpendingLabel, "...");
+        setLabelText(biggestExpenseLabel, "...");
+        setLabelText(projectedSpendLabel, "...");
+        setLabelText(runOutDateLabel, "...");
+        if (budgetProgressBar != null) {
+            budgetProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        }
+        if (transactionsTable != null) {
+            transactionsTable.setPlaceholder(new Label("Loading transactions..."));
+        }
+        if (newBudgetButton != null) {
+            newBudgetButton.setDisable(true);
+        }
+        if (addExpenseButton != null) {
+            addExpenseButton.setDisable(true);
+        }
+    }
+    
+    /**
+     * Set the store used to persist the dashboard after every change
+     */
+    public void setSnapshotStore(DashboardSnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+    
+    /**
+     * Render the last persisted dashboard state until the database has been reconciled
+     */
+    public void showSnapshot(DashboardSnapshot snapshot) {
+        if (snapshot.getBudget() == null) {
+            return;
+        }
+        renderBudget(snapshot.getBudget());
+        transactionData = FXCollections.observableArrayList(TransactionRow.of(snapshot.getRecentTransactions()));
+        if (transactionsTable != null) {
+            transactionsTable.setItems(transactionData);
+        }
+        renderAnalytics(snapshot.getBudget(), snapshot.getSpendingByCategory(),
+            snapshot.getTotalExpenses(), snapshot.getBiggestExpense());
+    }
+    
+    /**
+     * Persist the currently displayed dashboard state
+     */
+    public void saveSnapshot() {
+        if (snapshotStore == null || budgetService == null) {
+            return;
+        }
+        // Read the paged list's cached first page directly; going through get() would
+        // move its window back to the top and queue loads
+        List<TransactionRow> recentRows = transactionData instanceof PagedObservableList<TransactionRow> pagedTransactions
+            ? pagedTransactions.leadingRows(SNAPSHOT_RECENT_ROWS)
+            : transactionData.subList(0, Math.min(SNAPSHOT_RECENT_ROWS, transactionData.size()));
+        List<Transaction> recent = TransactionRow.transactionsOf(recentRows);
+        snapshotStore.save(new DashboardSnapshot(currentBudget, lastSpendingByCategory, recent,
+            lastTotalExpenses, lastBiggestExpense));
+    }
+    
+    /**
+     * Fetch the budget, transactions and analytics off the FX thread, then apply them
+     */
+    private void loadInitialDataAsync() {
+        Task<InitialData> task = new Task<>() {
+            @Override
+            protected InitialData call() throws Exception {
+                InitialData data = new InitialData();
+                data.activeBudgets = budgetService.getActiveBudgets();
+                data.budget = data.activeBudgets.isEmpty() ? null : data.activeBudgets.get(0);
+                if (data.budget != null) {
+                    Long budgetId = data.budget.getId();
+                    data.transactionCount = transactionService.countTransactionsByBudget(budgetId);
+                    data.firstPage = TransactionRow.of(transactionService.getTransactionsPage(budgetId, 0, TRANSACTION_PAGE_SIZE, null));
+                    data.spendingByCategory = transactionService.getSpendingByCategory(budgetId);
+                    data.summary = budgetService.calculateBudgetSummary(budgetId);
+                    data.biggestExpense = transactionService.getBiggestExpense(budgetId);
+                    // Replays the budget's history once; later forecasts are answered from memory
+                    data.forecast = transactionService.getSpendForecast(data.budget);
+                }
+                return data;
+            }
+        };
+        
+        task.setOnSucceeded(e -> {
+            InitialData data = task.getValue();
+            currentBudget = data.budget;
+            showBudgetChoices(data.activeBudgets);
+            if (newBudgetButton != null) {
+                newBudgetButton.setDisable(false);
+            }
+            if (transactionsTable != null) {
+                transactionsTable.setPlaceholder(new Label("No transactions"));
+            }
+            
+            if (currentBudget != null) {
+                updateBudgetDisplay();
+                addExpenseButton.setDisable(false);
+                showTransactionPages(currentBudget.getId(), data.transactionCount, data.firstPage);
+                applyAnalytics(data.spendingByCategory, data.summary, data.biggestExpense);
+                renderForecast(data.forecast);
+            } else {
+                showNoBudgetState();
+                addExpenseButton.setDisable(true);
+                clearTransactions();
+                updateAnalytics();
+            }
+            saveSnapshot();
+        });
+        
+        task.setOnFailed(e -> showErrorAlert("Error Loading Data",
+            "Failed to load initial data: " + task.getException().getMessage()));
+        
+        Thread loader = new Thread(task, "anton-initial-load");
+        loader.setDaemon(true);
+        loader.start();
     }
     
     /**
@@ -90,6 +308,25 @@ public class MainController {
         if (transactionsTable != null) {
             setupTransactionsTable();
         }
+        if (searchField != null) {
+            searchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
+            searchDebounce.setOnFinished(e -> loadTransactions());
+        }
+        
+        if (budgetSelector != null) {
+            budgetSelector.setConverter(new StringConverter<>() {
+                @Override
+                public String toString(Budget budget) {
+                    return budget == null ? "" : budgetName(budget) + " (" + CurrencyUtil.formatAmount(budget.getTotalAmount(), budget.getCurrency()) + ")";
+                }
+                
+                @Override
+                public Budget fromString(String text) {
+                    return null;
+                }
+            });
+            budgetSelector.valueProperty().addListener((obs, oldBudget, newBudget) -> selectBudget(newBudget));
+        }
         
         // Setup button event handlers only if buttons exist
         if (newBudgetButton != null) {
@@ -109,7 +346,7 @@ public class MainController {
         if (transactionsTable != null && editTransactionButton != null && deleteTransactionButton != null) {
             transactionsTable.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldSelection, newSelection) -> {
-                    boolean hasSelection = newSelection != null;
+                    boolean hasSelection = newSelection != null && !newSelection.isLoading();
                     editTransactionButton.setDisable(!hasSelection);
                     deleteTransactionButton.setDisable(!hasSelection);
                 }
@@ -130,52 +367,133 @@ public class MainController {
             return; // Skip setup if any components are missing
         }
         
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
-        
-        dateColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getTimestamp().format(dateFormatter)));
-        
-        descriptionColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getDescription()));
-        
-        categoryColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getCategory() != null ? 
-                cellData.getValue().getCategory() : "Uncategorized"));
-        
-        amountColumn.setCellValueFactory(cellData -> {
-            BigDecimal amount = cellData.getValue().getAmount();
-            String formattedAmount = CurrencyUtil.formatAmount(amount);
-            if (cellData.getValue().getType() == Transaction.TransactionType.EXPENSE) {
-                formattedAmount = "-" + formattedAmount;
-            }
-            return new SimpleStringProperty(formattedAmount);
-        });
+        // Rows carry pre-formatted text, so cells just bind to their properties
+        dateColumn.setCellValueFactory(cellData -> cellData.getValue().dateProperty());
+        descriptionColumn.setCellValueFactory(cellData -> cellData.getValue().descriptionProperty());
+        categoryColumn.setCellValueFactory(cellData -> cellData.getValue().categoryProperty());
+        amountColumn.setCellValueFactory(cellData -> cellData.getValue().amountProperty());
+        typeColumn.setCellValueFactory(cellData -> cellData.getValue().typeProperty());
         
-        typeColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getType().getDisplayName()));
+        // Rows stay newest first: sorting the paged list in memory would read every
+        // page through get() and sort loading placeholders
+        for (TableColumn<TransactionRow, ?> column : transactionsTable.getColumns()) {
+            column.setSortable(false);
+        }
         
         transactionsTable.setItems(transactionData);
     }
     
     /**
-     * Load the current active budget
+     * Back the transactions table with a paged list over a budget's transactions
+     */
+    private void showTransactionPages(Long budgetId, int transactionCount, List<TransactionRow> firstPage) {
+        // Display rows are built on the loading thread, never while cells render
+        PagedObservableList<TransactionRow> pagedTransactions = new PagedObservableList<>(
+            (offset, limit, previousRow) -> TransactionRow.of(transactionService.getTransactionsPage(budgetId, offset, limit,
+                previousRow != null ? previousRow.getTransaction() : null)),
+            transactionCount, TRANSACTION_PAGE_SIZE, TRANSACTION_WINDOW_PAGES, TransactionRow.LOADING);
+        if (firstPage != null) {
+            pagedTransactions.putPage(0, firstPage);
+        }
+        
+        transactionData = pagedTransactions;
+        if (transactionsTable != null) {
+            transactionsTable.setItems(transactionData);
+        }
+    }
+    
+    private void clearTransactions() {
+        transactionData = FXCollections.observableArrayList();
+        if (transactionsTable != null) {
+            transactionsTable.setItems(transactionData);
+        }
+    }
+    
+    /**
+     * Load the active budgets off the FX thread, keeping the selected one if it is
+     * still active; if another takes its place, its transactions and analytics follow
      */
     private void loadCurrentBudget() {
-        try {
-            Optional<Budget> budgetOpt = budgetService.getCurrentBudget();
-            if (budgetOpt.isPresent()) {
-                currentBudget = budgetOpt.get();
+        long generation = ++budgetGeneration;
+        Task<List<Budget>> task = new Task<>() {
+            @Override
+            protected List<Budget> call() throws Exception {
+                return budgetService.getActiveBudgets();
+            }
+        };
+        
+        task.setOnSucceeded(e -> {
+            if (generation != budgetGeneration) {
+                return;
+            }
+            List<Budget> activeBudgets = task.getValue();
+            Budget selected = null;
+            for (Budget budget : activeBudgets) {
+                if (currentBudget != null && budget.getId().equals(currentBudget.getId())) {
+                    selected = budget;
+                }
+            }
+            if (selected == null && !activeBudgets.isEmpty()) {
+                selected = activeBudgets.get(0);
+            }
+            boolean switched = !sameBudget(selected, currentBudget);
+            currentBudget = selected;
+            showBudgetChoices(activeBudgets);
+            if (currentBudget != null) {
                 updateBudgetDisplay();
                 addExpenseButton.setDisable(false);
             } else {
                 // No active budget - show create budget prompt
-                currentBudget = null;
                 showNoBudgetState();
                 addExpenseButton.setDisable(true);
             }
-        } catch (Exception e) {
-            showErrorAlert("Error Loading Budget", "Failed to load current budget: " + e.getMessage());
+            if (switched) {
+                refreshScheduler.request(RefreshScheduler.Target.TRANSACTIONS, RefreshScheduler.Target.ANALYTICS);
+            }
+        });
+        
+        task.setOnFailed(e -> showErrorAlert("Error Loading Budget",
+            "Failed to load current budget: " + task.getException().getMessage()));
+        
+        loadExecutor.execute(task);
+    }
+    
+    private static boolean sameBudget(Budget first, Budget second) {
+        return first == null ? second == null : second != null && first.getId().equals(second.getId());
+    }
+    
+    /**
+     * Fill the budget selector with the active budgets and select the current one
+     */
+    private void showBudgetChoices(List<Budget> activeBudgets) {
+        if (budgetSelector == null) {
+            return;
+        }
+        updatingBudgetSelector = true;
+        try {
+            budgetSelector.getItems().setAll(activeBudgets);
+            budgetSelector.setValue(currentBudget);
+            budgetSelector.setDisable(activeBudgets.size() < 2);
+        } finally {
+            updatingBudgetSelector = false;
+        }
+    }
+    
+    /**
+     * Switch the dashboard, transactions and analytics to another active budget
+     */
+    private void selectBudget(Budget budget) {
+        if (updatingBudgetSelector || budget == null
+            || (currentBudget != null && budget.getId().equals(currentBudget.getId()))) {
+            return;
         }
+        currentBudget = budget;
+        refreshAll();
+    }
+    
+    private static String budgetName(Budget budget) {
+        return budget.getDescription() != null && !budget.getDescription().isBlank()
+            ? budget.getDescription() : "Budget #" + budget.getId();
     }
     
     /**
@@ -186,17 +504,26 @@ public class MainController {
             showNoBudgetState();
             return;
         }
-        
+        renderBudget(currentBudget);
+    }
+    
+    /**
+     * Render the labels and progress bar for a budget
+     */
+    private void renderBudget(Budget budget) {
         // Update labels
-        currentBudgetLabel.setText(CurrencyUtil.formatAmount(currentBudget.getTotalAmount()));
-        spentAmountLabel.setText(CurrencyUtil.formatAmount(currentBudget.getSpentAmount()));
-        remainingAmountLabel.setText(CurrencyUtil.formatAmount(currentBudget.getRemainingAmount()));
-        dailyBudgetLabel.setText(CurrencyUtil.formatAmount(currentBudget.getDailyBudget()));
+        setLabelText(currentBudgetLabel, CurrencyUtil.formatAmount(budget.getTotalAmount(), budget.getCurrency()));
+        setLabelText(spentAmountLabel, CurrencyUtil.formatAmount(budget.getSpentAmount(), budget.getCurrency()));
+        setLabelText(remainingAmountLabel, CurrencyUtil.formatAmount(budget.getRemainingAmount(), budget.getCurrency()));
+        setLabelText(dailyBudgetLabel, CurrencyUtil.formatAmount(budget.getDailyBudget(), budget.getCurrency()));
+        setLabelText(progressPercentageLabel, String.format("%.1f%%", budget.getSpentPercentage()));
         
-        // Update progress bar
-        double spentPercentage = currentBudget.getSpentPercentage() / 100.0;
+        // Update progress bar (not present in every layout)
+        if (budgetProgressBar == null) {
+            return;
+        }
+        double spentPercentage = budget.getSpentPercentage() / 100.0;
         budgetProgressBar.setProgress(spentPercentage);
-        progressPercentageLabel.setText(String.format("%.1f%%", currentBudget.getSpentPercentage()));
         
         // Set progress bar color based on spending
         if (spentPercentage > 0.9) {
@@ -212,99 +539,357 @@ public class MainController {
      * Show state when no budget is active
      */
     private void showNoBudgetState() {
-        currentBudgetLabel.setText("No Active Budget");
-        spentAmountLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
-        remainingAmountLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
-        dailyBudgetLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
-        budgetProgressBar.setProgress(0);
-        progressPercentageLabel.setText("0%");
+        setLabelText(currentBudgetLabel, "No Active Budget");
+        setLabelText(spentAmountLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+        setLabelText(remainingAmountLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+        setLabelText(dailyBudgetLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+        setLabelText(progressPercentageLabel, "0%");
+        if (budgetProgressBar != null) {
+            budgetProgressBar.setProgress(0);
+        }
     }
     
     /**
-     * Refresh all data displays
+     * Request a refresh of the budget and all data displays; coalesced into the next pulse
      */
-    private void refreshData() {
-        loadTransactions();
-        updateAnalytics();
+    private void refreshAll() {
+        refreshScheduler.request(RefreshScheduler.Target.BUDGET,
+            RefreshScheduler.Target.TRANSACTIONS, RefreshScheduler.Target.ANALYTICS);
     }
     
     /**
      * Load transactions for the current budget
      */
     private void loadTransactions() {
-        try {
-            transactionData.clear();
-            if (currentBudget != null) {
-                List<Transaction> transactions = transactionService.getTransactionsByBudget(currentBudget.getId());
-                transactionData.addAll(transactions);
+        if (isSearchActive()) {
+            searchTransactionsAsync(searchField.getText());
+            return;
+        }
+        // Drop any search or count still running now that the full list is shown again
+        long generation = ++transactionsGeneration;
+        if (transactionsTable != null) {
+            transactionsTable.setPlaceholder(new Label("No transactions"));
+        }
+        if (currentBudget == null) {
+            transactionsShown = generation;
+            clearTransactions();
+            return;
+        }
+        
+        // Pages load themselves once shown; only the count is needed up front
+        Long budgetId = currentBudget.getId();
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return transactionService.countTransactionsByBudget(budgetId);
             }
-        } catch (Exception e) {
-            showErrorAlert("Error Loading Transactions", "Failed to load transactions: " + e.getMessage());
+        };
+        
+        task.setOnSucceeded(e -> {
+            if (generation == transactionsGeneration) {
+                transactionsShown = generation;
+                showTransactionPages(budgetId, task.getValue(), null);
+            }
+        });
+        
+        task.setOnFailed(e -> showErrorAlert("Error Loading Transactions",
+            "Failed to load transactions: " + task.getException().getMessage()));
+        
+        loadExecutor.execute(task);
+    }
+    
+    private boolean isSearchActive() {
+        return searchField != null && !searchField.getText().isBlank();
+    }
+    
+    /**
+     * Run a full-text search in the current budget off the FX thread and show the
+     * ranked matches; results of searches superseded while running are dropped
+     */
+    private void searchTransactionsAsync(String query) {
+        if (transactionService == null || currentBudget == null) {
+            return;
         }
+        long generation = ++transactionsGeneration;
+        Long budgetId = currentBudget.getId();
+        
+        Task<List<TransactionRow>> task = new Task<>() {
+            @Override
+            protected List<TransactionRow> call() throws Exception {
+                return TransactionRow.of(transactionService.searchTransactions(query, budgetId, null, null, SEARCH_RESULT_LIMIT));
+            }
+        };
+        
+        task.setOnSucceeded(e -> {
+            if (generation != transactionsGeneration) {
+                return;
+            }
+            transactionsShown = generation;
+            transactionData = FXCollections.observableArrayList(task.getValue());
+            if (transactionsTable != null) {
+                transactionsTable.setPlaceholder(new Label("No matching transactions"));
+                transactionsTable.setItems(transactionData);
+            }
+        });
+        
+        task.setOnFailed(e -> showErrorAlert("Error Searching Transactions",
+            "Failed to search transactions: " + task.getException().getMessage()));
+        
+        searchExecutor.execute(task);
     }
     
     /**
-     * Update analytics display
+     * Fetch the current budget's analytics off the FX thread, then render them
      */
     private void updateAnalytics() {
+        long generation = ++analyticsGeneration;
         if (currentBudget == null) {
-            categorySpendingChart.getData().clear();
-            totalExpensesLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
-            averageDailySpendingLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
-            biggestExpenseLabel.setText(CurrencyUtil.formatAmount(BigDecimal.ZERO));
+            analyticsShown = generation;
+            lastSpendingByCategory = Map.of();
+            lastTotalExpenses = BigDecimal.ZERO;
+            lastBiggestExpense = BigDecimal.ZERO;
+            categoryChartModel.clear();
+            setLabelText(totalExpensesLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+            setLabelText(averageDailySpendingLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+            setLabelText(biggestExpenseLabel, CurrencyUtil.formatAmount(BigDecimal.ZERO));
+            renderForecast(null);
             return;
         }
         
-        try {
-            // Update category spending chart
-            Map<String, BigDecimal> spendingByCategory = transactionService.getSpendingByCategory(currentBudget.getId());
-            ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
-            
-            for (Map.Entry<String, BigDecimal> entry : spendingByCategory.entrySet()) {
-                pieChartData.add(new PieChart.Data(entry.getKey(), entry.getValue().doubleValue()));
+        Budget budget = currentBudget;
+        Task<AnalyticsData> task = new Task<>() {
+            @Override
+            protected AnalyticsData call() throws Exception {
+                AnalyticsData data = new AnalyticsData();
+                data.spendingByCategory = transactionService.getSpendingByCategory(budget.getId());
+                data.summary = budgetService.calculateBudgetSummary(budget.getId());
+                data.biggestExpense = transactionService.getBiggestExpense(budget.getId());
+                data.forecast = transactionService.getSpendForecast(budget);
+                return data;
+            }
+        };
+        
+        task.setOnSucceeded(e -> {
+            if (generation != analyticsGeneration || !sameBudget(budget, currentBudget)) {
+                return;
             }
+            analyticsShown = generation;
+            AnalyticsData data = task.getValue();
+            applyAnalytics(data.spendingByCategory, data.summary, data.biggestExpense);
+            renderForecast(data.forecast);
+            saveSnapshot();
+        });
+        
+        task.setOnFailed(e -> showErrorAlert("Error Updating Analytics",
+            "Failed to update analytics: " + task.getException().getMessage()));
+        
+        loadExecutor.execute(task);
+    }
+    
+    /**
+     * Apply already-fetched analytics data to the chart and summary labels
+     */
+    private void applyAnalytics(Map<String, BigDecimal> spendingByCategory, BudgetService.BudgetSummary summary,
+                                BigDecimal biggestExpense) {
+        lastSpendingByCategory = spendingByCategory;
+        lastTotalExpenses = summary != null ? summary.getTotalExpenses() : BigDecimal.ZERO;
+        lastBiggestExpense = biggestExpense;
+        if (summary != null) {
+            renderAnalytics(currentBudget, spendingByCategory, summary.getTotalExpenses(), biggestExpense);
+        } else {
+            renderAnalytics(currentBudget, spendingByCategory, null, null);
+        }
+    }
+    
+    /**
+     * Render the chart and summary labels; null totals leave the labels untouched
+     */
+    private void renderAnalytics(Budget budget, Map<String, BigDecimal> spendingByCategory,
+                                 BigDecimal totalExpenses, BigDecimal biggestExpense) {
+        // Update category spending chart, reusing existing slices
+        categoryChartModel.update(spendingByCategory);
+        
+        renderSummaryLabels(budget, totalExpenses, biggestExpense);
+    }
+    
+    /**
+     * Render the summary statistic labels; null totals leave the labels untouched
+     */
+    private void renderSummaryLabels(Budget budget, BigDecimal totalExpenses, BigDecimal biggestExpense) {
+        if (totalExpenses != null) {
+            setLabelText(totalExpensesLabel, CurrencyUtil.formatAmount(totalExpenses, budget.getCurrency()));
             
-            categorySpendingChart.setData(pieChartData);
+            // Calculate average daily spending
+            long daysElapsed = Math.max(1, budget.getTotalDays() - budget.getRemainingDays());
+            BigDecimal averageDaily = totalExpenses.divide(BigDecimal.valueOf(daysElapsed), 2, java.math.RoundingMode.HALF_UP);
+            setLabelText(averageDailySpendingLabel, CurrencyUtil.formatAmount(averageDaily, budget.getCurrency()));
             
-            // Update summary statistics
-            BudgetService.BudgetSummary summary = budgetService.calculateBudgetSummary(currentBudget.getId());
-            if (summary != null) {
-                totalExpensesLabel.setText(CurrencyUtil.formatAmount(summary.getTotalExpenses()));
-                
-                // Calculate average daily spending
-                long daysElapsed = Math.max(1, currentBudget.getTotalDays() - currentBudget.getRemainingDays());
-                BigDecimal averageDaily = summary.getTotalExpenses().divide(BigDecimal.valueOf(daysElapsed), 2, java.math.RoundingMode.HALF_UP);
-                averageDailySpendingLabel.setText(CurrencyUtil.formatAmount(averageDaily));
-                
-                // Find biggest expense
-                BigDecimal biggestExpense = findBiggestExpense();
-                biggestExpenseLabel.setText(CurrencyUtil.formatAmount(biggestExpense));
+            setLabelText(biggestExpenseLabel, CurrencyUtil.formatAmount(biggestExpense, budget.getCurrency()));
+        }
+    }
+    
+    /**
+     * Render the projected end-of-period spend and run-out date; null clears them
+     */
+    private void renderForecast(SpendForecaster.SpendForecast forecast) {
+        if (forecast == null || currentBudget == null) {
+            setLabelText(projectedSpendLabel, "-");
+            setLabelText(runOutDateLabel, "-");
+            return;
+        }
+        setLabelText(projectedSpendLabel, CurrencyUtil.formatAmount(forecast.getProjectedSpend(), currentBudget.getCurrency()));
+        if (forecast.getRunOutDate() == null || !forecast.runsOutBefore(currentBudget.getEndDate())) {
+            setLabelText(runOutDateLabel, "On track");
+        } else {
+            setLabelText(runOutDateLabel, forecast.getRunOutDate().format(RUN_OUT_DATE_FORMATTER));
+        }
+    }
+    
+    /**
+     * Find the biggest single expense. Taken from the service's top expenses
+     * because the paged table only holds a window of the budget's transactions.
+     */
+    private BigDecimal findBiggestExpense() throws SQLException {
+        return transactionService.getBiggestExpense(currentBudget.getId());
+    }
+    
+    /**
+     * Patch the budget labels, table rows and analytics with the changes queued since
+     * the last pulse; the scheduler saves the snapshot once afterwards
+     */
+    private void applyTransactionChanges() {
+        BigDecimal spentAmount = null;
+        Map<String, BigDecimal> spending = new LinkedHashMap<>(lastSpendingByCategory);
+        Set<String> touchedCategories = new TreeSet<>();
+        for (TransactionChange change; (change = pendingChanges.poll()) != null; ) {
+            if (currentBudget == null || !currentBudget.getId().equals(change.getBudgetId())) {
+                continue;
             }
-            
+            if (change.getBudgetSpentAmount() != null) {
+                spentAmount = change.getBudgetSpentAmount();
+            }
+            patchTransactionRows(change);
+            patchExpenseTotals(change, spending, touchedCategories);
+        }
+        
+        if (spentAmount != null) {
+            currentBudget.setSpentAmount(spentAmount);
+            updateBudgetDisplay();
+        }
+        if (!touchedCategories.isEmpty()) {
+            renderPatchedAnalytics(spending, touchedCategories);
+        }
+        // A load in flight may have read before these changes and would undo the patches
+        if (transactionsShown != transactionsGeneration && !isSearchActive()) {
+            refreshScheduler.request(RefreshScheduler.Target.TRANSACTIONS);
+        }
+        if (analyticsShown != analyticsGeneration && !touchedCategories.isEmpty()) {
+            refreshScheduler.request(RefreshScheduler.Target.ANALYTICS);
+        }
+    }
+    
+    /**
+     * Insert, remove or replace the changed row in the paged table model
+     */
+    private void patchTransactionRows(TransactionChange change) {
+        if (!(transactionData instanceof PagedObservableList<TransactionRow> pagedTransactions)) {
+            refreshScheduler.request(RefreshScheduler.Target.TRANSACTIONS);
+            return;
+        }
+        
+        Transaction transaction = change.getTransaction();
+        TransactionRow row = new TransactionRow(transaction);
+        int index;
+        switch (change.getKind()) {
+            case ADDED:
+                index = pagedTransactions.insertionIndexOf(row, NEWEST_FIRST);
+                if (index >= 0) {
+                    pagedTransactions.insertRow(index, row);
+                } else {
+                    // Position lies outside the cached window
+                    refreshScheduler.request(RefreshScheduler.Target.TRANSACTIONS);
+                }
+                break;
+            case REMOVED:
+                index = pagedTransactions.indexOfCached(cached -> transaction.getId().equals(cached.getTransaction().getId()));
+                if (index >= 0) {
+                    pagedTransactions.removeRow(index);
+                } else {
+                    refreshScheduler.request(RefreshScheduler.Target.TRANSACTIONS);
+                }
+                break;
+            case UPDATED:
+                index = pagedTransactions.indexOfCached(cached -> transaction.getId().equals(cached.getTransaction().getId()));
+                if (index >= 0) {
+                    pagedTransactions.setRow(index, row);
+                }
+                break;
+        }
+    }
+    
+    /**
+     * Adjust the category totals and total expenses by the change's expense delta,
+     * in the budget's currency like the totals themselves
+     */
+    private void patchExpenseTotals(TransactionChange change, Map<String, BigDecimal> spending,
+                                    Set<String> touchedCategories) {
+        Transaction removedRow = change.getKind() == TransactionChange.Kind.ADDED ? null : change.getPrevious();
+        Transaction addedRow = change.getKind() == TransactionChange.Kind.REMOVED ? null : change.getTransaction();
+        if (removedRow != null && removedRow.isExpense()) {
+            touchedCategories.add(adjustCategorySpending(spending, removedRow.getCategory(),
+                removedRow.getBudgetAmount().negate()));
+            lastTotalExpenses = lastTotalExpenses.subtract(removedRow.getBudgetAmount());
+        }
+        if (addedRow != null && addedRow.isExpense()) {
+            touchedCategories.add(adjustCategorySpending(spending, addedRow.getCategory(), addedRow.getBudgetAmount()));
+            lastTotalExpenses = lastTotalExpenses.add(addedRow.getBudgetAmount());
+        }
+    }
+    
+    /**
+     * Show patched category totals and refresh the figures derived from them
+     */
+    private void renderPatchedAnalytics(Map<String, BigDecimal> spending, Set<String> touchedCategories) {
+        for (String category : touchedCategories) {
+            categoryChartModel.setTotal(category, spending.getOrDefault(category, BigDecimal.ZERO));
+        }
+        try {
+            // Maintained incrementally by the service, so these are memory reads
+            lastBiggestExpense = findBiggestExpense();
+            renderForecast(transactionService.getSpendForecast(currentBudget));
         } catch (Exception e) {
             showErrorAlert("Error Updating Analytics", "Failed to update analytics: " + e.getMessage());
         }
+        
+        lastSpendingByCategory = spending;
+        renderSummaryLabels(currentBudget, lastTotalExpenses, lastBiggestExpense);
     }
     
     /**
-     * Find the biggest single expense
+     * Apply a delta to one category's total, returning the category's name
      */
-    private BigDecimal findBiggestExpense() {
-        return transactionData.stream()
-            .filter(Transaction::isExpense)
-            .map(Transaction::getAmount)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
+    private String adjustCategorySpending(Map<String, BigDecimal> spending, String category, BigDecimal delta) {
+        String name = category != null ? category : "Uncategorized";
+        BigDecimal total = spending.getOrDefault(name, BigDecimal.ZERO).add(delta);
+        if (total.signum() > 0) {
+            spending.put(name, total);
+        } else {
+            spending.remove(name);
+        }
+        return name;
     }
     
     /**
      * Show new budget creation dialog
      */
     private void showNewBudgetDialog() {
-        SimpleBudgetCreator.showBudgetCreationDialog(budgetService);
+        Budget created = SimpleBudgetCreator.showBudgetCreationDialog(budgetService);
+        if (created != null) {
+            // Switch to the new budget; the others stay active and selectable
+            currentBudget = created;
+        }
         // Refresh data after dialog closes
-        loadCurrentBudget();
-        refreshData();
+        refreshAll();
     }
     
     /**
@@ -316,18 +901,17 @@ public class MainController {
             return;
         }
         
+        // The new row, budget totals and analytics are patched in from the change event
         SimpleBudgetCreator.showExpenseCreationDialog(transactionService, currentBudget.getId());
-        // Refresh data after dialog closes
-        loadCurrentBudget(); // Reload budget to get updated spent amount
-        refreshData();
     }
     
     /**
      * Edit selected transaction
      */
     private void editSelectedTransaction() {
-        Transaction selectedTransaction = transactionsTable.getSelectionModel().getSelectedItem();
-        if (selectedTransaction == null) return;
+        TransactionRow selectedRow = transactionsTable.getSelectionModel().getSelectedItem();
+        if (selectedRow == null || selectedRow.isLoading()) return;
+        Transaction selectedTransaction = selectedRow.getTransaction();
         
         // TODO: Implement edit transaction dialog
         showInfoAlert("Edit Transaction", "Edit transaction functionality will be implemented in a future update.");
@@ -337,20 +921,19 @@ public class MainController {
      * Delete selected transaction
      */
     private void deleteSelectedTransaction() {
-        Transaction selectedTransaction = transactionsTable.getSelectionModel().getSelectedItem();
-        if (selectedTransaction == null) return;
+        TransactionRow selectedRow = transactionsTable.getSelectionModel().getSelectedItem();
+        if (selectedRow == null || selectedRow.isLoading()) return;
+        Transaction selectedTransaction = selectedRow.getTransaction();
         
         Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
         confirmDialog.setTitle("Delete Transaction");
         confirmDialog.setHeaderText("Are you sure you want to delete this transaction?");
-        confirmDialog.setContentText(selectedTransaction.getDescription() + " - " + CurrencyUtil.formatAmount(selectedTransaction.getAmount()));
+        confirmDialog.setContentText(selectedTransaction.getDescription() + " - " + CurrencyUtil.formatAmount(selectedTransaction.getAmount(), selectedTransaction.getCurrency()));
         
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
                 transactionService.deleteTransaction(selectedTransaction.getId());
-                loadCurrentBudget(); // Reload budget to get updated spent amount
-                refreshData();
                 showInfoAlert("Success", "Transaction deleted successfully.");
             } catch (Exception e) {
                 showErrorAlert("Error", "Failed to delete transaction: " + e.getMessage());
@@ -358,6 +941,39 @@ public class MainController {
         }
     }
     
+    /**
+     * Set label text, skipping labels that the loaded layout does not define
+     */
+    private static void setLabelText(Label label, String text) {
+        if (label != null) {
+            label.setText(text);
+        }
+    }
+    
+    /**
+     * Analytics fetched in the background on refresh
+     */
+    private static class AnalyticsData {
+        private Map<String, BigDecimal> spendingByCategory = Map.of();
+        private BudgetService.BudgetSummary summary;
+        private BigDecimal biggestExpense = BigDecimal.ZERO;
+        private SpendForecaster.SpendForecast forecast;
+    }
+    
+    /**
+     * Data fetched in the background during startup
+     */
+    private static class InitialData {
+        private Budget budget;
+        private List<Budget> activeBudgets = List.of();
+        private int transactionCount;
+        private List<TransactionRow> firstPage = List.of();
+        private Map<String, BigDecimal> spendingByCategory = Map.of();
+        private BudgetService.BudgetSummary summary;
+        private BigDecimal biggestExpense = BigDecimal.ZERO;
+        private SpendForecaster.SpendForecast forecast;
+    }
+    
     /**
      * Utility methods for showing alerts
      */
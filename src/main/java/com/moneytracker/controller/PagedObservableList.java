@@ -0,0 +1,383 @@
+package com.moneytracker.controller;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Read-only observable list that fetches its rows in pages on demand.
+ * Only the first page and a window of pages around the most recently accessed
+ * index are kept in memory, so a TableView can scroll through millions of rows
+ * with bounded memory.
+ *
+ * Pages are never fetched on the FX thread. A row whose page is not cached reads
+ * as the placeholder until the page arrives from the background, when it is
+ * reported as replaced; the next page in the direction of scrolling is prefetched.
+ *
+ * Single-row inserts, removals and replacements are patched into the cached
+ * pages directly, so an edit costs time proportional to the cached window
+ * rather than to the total number of rows.
+ *
+ * Must be accessed from the JavaFX application thread.
+ */
+public class PagedObservableList<T> extends ObservableListBase<T> {
+    
+    /**
+     * Fetches one page of rows. The previous page's last row is passed when it is
+     * cached so loaders can seek from it instead of skipping with an offset.
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> loadPage(int offset, int limit, T previousRow) throws Exception;
+    }
+    
+    private static final ExecutorService PAGE_LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anton-page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private final int windowPages;
+    private final T placeholder;
+    private final Executor background;
+    private final Executor fxThread;
+    private final Map<Integer, List<T>> pages = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    /** Pages whose rows were read as the placeholder and must be reported once loaded */
+    private final Set<Integer> awaited = new HashSet<>();
+    private int size;
+    private int generation;
+    private int lastPage;
+    private int scrollDirection = 1;
+    
+    /**
+     * @param loader      fetches pages of rows
+     * @param size        total number of rows
+     * @param pageSize    rows per page
+     * @param windowPages pages kept on either side of the current page
+     * @param placeholder row read in place of rows that are still loading
+     */
+    public PagedObservableList(PageLoader<T> loader, int size, int pageSize, int windowPages, T placeholder) {
+        this(loader, size, pageSize, windowPages, placeholder, PAGE_LOADER, Platform::runLater);
+    }
+    
+    /**
+     * @param background runs page loads
+     * @param fxThread   runs the hand-over of loaded pages, on the thread that owns the list
+     */
+    PagedObservableList(PageLoader<T> loader, int size, int pageSize, int windowPages, T placeholder,
+                        Executor background, Executor fxThread) {
+        this.loader = loader;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.windowPages = windowPages;
+        this.placeholder = placeholder;
+        this.background = background;
+        this.fxThread = fxThread;
+    }
+    
+    /**
+     * Seed a page that was fetched elsewhere, e.g. on a background thread during startup
+     */
+    public void putPage(int pageIndex, List<T> rows) {
+        pages.put(pageIndex, rows);
+    }
+    
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        
+        int pageIndex = index / pageSize;
+        int offsetInPage = index % pageSize;
+        List<T> page = pages.get(pageIndex);
+        if (page != null && offsetInPage >= page.size()) {
+            // Left short by a removal whose successor page was not cached
+            pages.remove(pageIndex);
+            page = null;
+        }
+        evictOutsideWindow(pageIndex);
+        if (page == null) {
+            awaited.add(pageIndex);
+            load(pageIndex);
+        }
+        load(pageIndex + scrollDirection(pageIndex));
+        
+        return page != null ? page.get(offsetInPage) : placeholder;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * The first rows of the list, at most limit of them, as far as they are cached.
+     * Unlike get() this never loads a page or moves the window, so it is safe for
+     * readers other than the table.
+     */
+    public List<T> leadingRows(int limit) {
+        List<T> rows = new ArrayList<>(Math.min(limit, size));
+        for (int pageIndex = 0; rows.size() < Math.min(limit, size); pageIndex++) {
+            List<T> page = pages.get(pageIndex);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            rows.addAll(page.subList(0, Math.min(page.size(), limit - rows.size())));
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Number of pages currently held in memory
+     */
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+    
+    /**
+     * Drop all cached pages so they are re-fetched on next access
+     */
+    public void invalidate() {
+        generation++;
+        pages.clear();
+    }
+    
+    /**
+     * Find the index of a cached row matching the predicate, or -1 if none is cached
+     */
+    public int indexOfCached(Predicate<T> matcher) {
+        for (Map.Entry<Integer, List<T>> entry : new TreeMap<>(pages).entrySet()) {
+            List<T> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (matcher.test(page.get(i))) {
+                    return entry.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Find where a new row belongs in a list sorted by the comparator, judged from
+     * the cached pages. Returns -1 if the position falls outside the cached window.
+     */
+    public int insertionIndexOf(T row, Comparator<? super T> order) {
+        if (size == 0) {
+            return 0;
+        }
+        for (Map.Entry<Integer, List<T>> entry : new TreeMap<>(pages).entrySet()) {
+            int pageIndex = entry.getKey();
+            List<T> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (order.compare(row, page.get(i)) < 0) {
+                    boolean knownPredecessor = i > 0 || pageIndex == 0 || pages.containsKey(pageIndex - 1);
+                    return knownPredecessor ? pageIndex * pageSize + i : -1;
+                }
+            }
+            if (pageIndex * pageSize + page.size() == size) {
+                return size;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Insert a row that was added at the source, shifting cached rows down by one
+     */
+    public void insertRow(int index, T row) {
+        TreeMap<Integer, List<T>> shifted = new TreeMap<>();
+        T carry = null;
+        boolean carrying = false;
+        for (Map.Entry<Integer, List<T>> entry : new TreeMap<>(pages).entrySet()) {
+            int pageIndex = entry.getKey();
+            int pageStart = pageIndex * pageSize;
+            List<T> page = new ArrayList<>(entry.getValue());
+            
+            if (pageStart + page.size() < index || (pageStart + page.size() == index && page.size() == pageSize)) {
+                shifted.put(pageIndex, page);
+                carrying = false;
+                continue;
+            }
+            if (index >= pageStart) {
+                page.add(index - pageStart, row);
+            } else if (carrying && shifted.containsKey(pageIndex - 1)) {
+                page.add(0, carry);
+            } else {
+                // The row shifted in from an uncached page is unknown; refetch later
+                carrying = false;
+                continue;
+            }
+            carrying = page.size() > pageSize;
+            carry = carrying ? page.remove(page.size() - 1) : null;
+            shifted.put(pageIndex, page);
+        }
+        replacePages(shifted);
+        size++;
+        
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+    
+    /**
+     * Remove a row that was deleted at the source, shifting cached rows up by one
+     */
+    public void removeRow(int index) {
+        T removed = cachedRow(index);
+        int removedPage = index / pageSize;
+        TreeMap<Integer, List<T>> shifted = new TreeMap<>();
+        for (Map.Entry<Integer, List<T>> entry : new TreeMap<>(pages).entrySet()) {
+            int pageIndex = entry.getKey();
+            List<T> page = new ArrayList<>(entry.getValue());
+            if (pageIndex == removedPage) {
+                if (index % pageSize >= page.size()) {
+                    continue;
+                }
+                page.remove(index % pageSize);
+            } else if (pageIndex > removedPage && !page.isEmpty()) {
+                // The first row moves up into the previous page's last slot
+                T first = page.remove(0);
+                List<T> previous = shifted.get(pageIndex - 1);
+                if (previous != null && previous.size() == pageSize - 1) {
+                    previous.add(first);
+                }
+            }
+            shifted.put(pageIndex, page);
+        }
+        replacePages(shifted);
+        size--;
+        
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+    
+    /**
+     * Replace a row that was updated at the source without moving it
+     */
+    public void setRow(int index, T row) {
+        int pageIndex = index / pageSize;
+        List<T> page = pages.get(pageIndex);
+        T previous = cachedRow(index);
+        if (previous != null) {
+            List<T> updated = new ArrayList<>(page);
+            updated.set(index % pageSize, row);
+            pages.put(pageIndex, updated);
+        }
+        
+        beginChange();
+        nextSet(index, previous);
+        endChange();
+    }
+    
+    /**
+     * Look up a row without fetching; the source has already changed by the time
+     * a patch arrives, so a fresh fetch would not reflect the pre-change state
+     */
+    private T cachedRow(int index) {
+        List<T> page = pages.get(index / pageSize);
+        return page != null && index % pageSize < page.size() ? page.get(index % pageSize) : null;
+    }
+    
+    private void replacePages(Map<Integer, List<T>> updated) {
+        // In-flight prefetches were computed against the old positions
+        generation++;
+        pages.clear();
+        pages.putAll(updated);
+    }
+    
+    private T lastRowOf(int pageIndex) {
+        List<T> page = pages.get(pageIndex);
+        return page != null && !page.isEmpty() ? page.get(page.size() - 1) : null;
+    }
+    
+    private void evictOutsideWindow(int currentPage) {
+        if (pages.size() <= windowPages * 2 + 2) {
+            return;
+        }
+        // The first page stays for leadingRows and for rows added at the top
+        pages.keySet().removeIf(page -> page != 0 && Math.abs(page - currentPage) > windowPages);
+    }
+    
+    /**
+     * Direction the table last moved between pages: 1 towards the end, -1 towards the start
+     */
+    private int scrollDirection(int pageIndex) {
+        if (pageIndex != lastPage) {
+            scrollDirection = pageIndex > lastPage ? 1 : -1;
+            lastPage = pageIndex;
+        }
+        return scrollDirection;
+    }
+    
+    private void load(int pageIndex) {
+        if (pageIndex < 0 || pageIndex * pageSize >= size || pages.containsKey(pageIndex) || !loading.add(pageIndex)) {
+            return;
+        }
+        
+        int requestedGeneration = generation;
+        T previousRow = lastRowOf(pageIndex - 1);
+        background.execute(() -> {
+            List<T> rows;
+            try {
+                rows = loader.loadPage(pageIndex * pageSize, pageSize, previousRow);
+            } catch (Exception e) {
+                System.err.println("Failed to load page " + pageIndex + ": " + e.getMessage());
+                rows = null;
+            }
+            List<T> loaded = rows;
+            fxThread.execute(() -> pageLoaded(pageIndex, requestedGeneration, loaded));
+        });
+    }
+    
+    private void pageLoaded(int pageIndex, int requestedGeneration, List<T> rows) {
+        loading.remove(pageIndex);
+        if (rows == null) {
+            // Retried when the table next reads one of its rows
+            awaited.remove(pageIndex);
+            return;
+        }
+        if (!pages.containsKey(pageIndex)) {
+            if (generation != requestedGeneration) {
+                // Fetched against positions that have since shifted; rows still waiting need a fresh fetch
+                if (awaited.contains(pageIndex)) {
+                    load(pageIndex);
+                }
+                return;
+            }
+            pages.put(pageIndex, rows);
+        }
+        if (!awaited.remove(pageIndex)) {
+            return;
+        }
+        
+        int from = pageIndex * pageSize;
+        int to = Math.min(from + pages.get(pageIndex).size(), size);
+        if (from < to) {
+            beginChange();
+            for (int index = from; index < to; index++) {
+                nextSet(index, placeholder);
+            }
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.moneytracker.controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalesces refresh requests for the main view.
+ * Requests arriving within one window are deduplicated by target, and each
+ * pending target then runs at most once, in declaration order, on the FX thread.
+ * A burst of writes therefore costs one refresh instead of one per row.
+ */
+public class RefreshScheduler {
+    
+    /**
+     * Refreshable parts of the view, in the order they must run
+     */
+    public enum Target {
+        /** Transaction changes queued since the last pulse, patched in before any reload */
+        CHANGES,
+        BUDGET,
+        TRANSACTIONS,
+        ANALYTICS
+    }
+    
+    private final Map<Target, Runnable> actions = new EnumMap<>(Target.class);
+    private final EnumSet<Target> pending = EnumSet.noneOf(Target.class);
+    private final Duration window;
+    private Runnable afterPulse = () -> { };
+    private boolean pulseScheduled;
+    private long requestCount;
+    private long runCount;
+    
+    /**
+     * @param windowMillis how long to collect requests before refreshing; about one frame by default
+     */
+    public RefreshScheduler(double windowMillis) {
+        this.window = Duration.millis(windowMillis);
+    }
+    
+    public RefreshScheduler() {
+        this(16);
+    }
+    
+    /**
+     * Set the action that refreshes a target
+     */
+    public void register(Target target, Runnable action) {
+        actions.put(target, action);
+    }
+    
+    /**
+     * Set an action run once after every pulse that refreshed anything
+     */
+    public void setAfterPulse(Runnable afterPulse) {
+        this.afterPulse = afterPulse;
+    }
+    
+    /**
+     * Request a refresh of the given targets. Safe to call from any thread.
+     */
+    public void request(Target... targets) {
+        boolean schedule;
+        synchronized (pending) {
+            for (Target target : targets) {
+                pending.add(target);
+            }
+            requestCount += targets.length;
+            schedule = !pulseScheduled;
+            pulseScheduled = true;
+        }
+        
+        if (schedule) {
+            if (Platform.isFxApplicationThread()) {
+                startWindow();
+            } else {
+                Platform.runLater(this::startWindow);
+            }
+        }
+    }
+    
+    /**
+     * Number of target refreshes requested versus actually run, for diagnostics
+     */
+    public String getStatistics() {
+        synchronized (pending) {
+            return String.format("%d requested, %d run", requestCount, runCount);
+        }
+    }
+    
+    private void startWindow() {
+        PauseTransition pause = new PauseTransition(window);
+        pause.setOnFinished(e -> runPulse());
+        pause.play();
+    }
+    
+    private void runPulse() {
+        Set<Target> due;
+        synchronized (pending) {
+            due = EnumSet.copyOf(pending);
+            pending.clear();
+            pulseScheduled = false;
+            runCount += due.size();
+        }
+        
+        for (Target target : due) {
+            Runnable action = actions.get(target);
+            if (action != null) {
+                action.run();
+            }
+        }
+        if (!due.isEmpty()) {
+            afterPulse.run();
+        }
+    }
+}
@@ -3,11 +3,14 @@ package com.moneytracker.controller;
 import com.moneytracker.model.Budget;
 import com.moneytracker.service.BudgetService;
 import com.moneytracker.util.CurrencyUtil;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Simple controller for budget creation dialog.
@@ -15,6 +18,8 @@ import java.time.LocalDate;
  */
 public class SimpleBudgetCreator {
     
+    private static final int MAX_DESCRIPTION_SUGGESTIONS = 6;
+    
     private BudgetService budgetService;
     private Stage dialogStage;
     
@@ -28,8 +33,11 @@ public class SimpleBudgetCreator {
     
     /**
      * Show a simple budget creation dialog using built-in JavaFX dialogs
+     * @return the created budget, or null if the user cancelled or creation failed
      */
-    public static void showBudgetCreationDialog(BudgetService budgetService) {
+    public static Budget showBudgetCreationDialog(BudgetService budgetService) {
+        AtomicReference<Budget> created = new AtomicReference<>();
+        
         // Create input dialogs for budget creation
         TextInputDialog amountDialog = new TextInputDialog("1000.00");
         amountDialog.setTitle("Create New Budget");
@@ -53,6 +61,7 @@ public class SimpleBudgetCreator {
                         LocalDate endDate = startDate.plusDays(30);
                         
                         Budget budget = budgetService.createBudget(amount, startDate, endDate, description);
+                        created.set(budget);
                         
                         Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
                         successAlert.setTitle("Success");
@@ -75,6 +84,8 @@ public class SimpleBudgetCreator {
                 showError("Please enter a valid amount (e.g., 1000.00)");
             }
         });
+        
+        return created.get();
     }
     
     /**
@@ -96,21 +107,23 @@ public class SimpleBudgetCreator {
                 descDialog.setTitle("Expense Description");
                 descDialog.setHeaderText("Record Expense");
                 descDialog.setContentText("Enter expense description:");
+                attachDescriptionSuggestions(descDialog.getEditor(), transactionService);
                 
                 descDialog.showAndWait().ifPresent(description -> {
                     try {
-                        // Add expense (using default category for now)
+                        // Add expense; the category is picked by the auto-categorizer
                         com.moneytracker.model.Transaction transaction = transactionService.addExpense(
-                            amount, description, 1L, null, budgetId
+                            amount, description, null, null, budgetId
                         );
                         
                         Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
                         successAlert.setTitle("Success");
                         successAlert.setHeaderText("Expense Added");
                         successAlert.setContentText(String.format(
-                            "Expense recorded successfully!\n\nAmount: %s\nDescription: %s",
+                            "Expense recorded successfully!\n\nAmount: %s\nDescription: %s\nCategory: %s",
                             CurrencyUtil.formatAmount(transaction.getAmount()),
-                            transaction.getDescription()
+                            transaction.getDescription(),
+                            transaction.getCategory() != null ? transaction.getCategory() : "Uncategorized"
                         ));
                         successAlert.showAndWait();
                         
@@ -125,6 +138,45 @@ public class SimpleBudgetCreator {
         });
     }
     
+    /**
+     * Offer previously used descriptions below the field as the user types
+     */
+    private static void attachDescriptionSuggestions(TextField field,
+                                                     com.moneytracker.service.TransactionService transactionService) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+        field.textProperty().addListener((obs, oldText, newText) -> {
+            if (!field.isFocused() || newText == null || newText.isBlank()) {
+                suggestionsMenu.hide();
+                return;
+            }
+            
+            List<String> suggestions = transactionService.suggestDescriptions(newText, MAX_DESCRIPTION_SUGGESTIONS);
+            suggestions.removeIf(newText::equals);
+            if (suggestions.isEmpty()) {
+                suggestionsMenu.hide();
+                return;
+            }
+            
+            suggestionsMenu.getItems().clear();
+            for (String suggestion : suggestions) {
+                MenuItem item = new MenuItem(suggestion);
+                item.setOnAction(e -> {
+                    field.setText(suggestion);
+                    field.positionCaret(suggestion.length());
+                });
+                suggestionsMenu.getItems().add(item);
+            }
+            if (!suggestionsMenu.isShowing()) {
+                suggestionsMenu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+        field.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                suggestionsMenu.hide();
+            }
+        });
+    }
+    
     private static void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -0,0 +1,95 @@
+package com.moneytracker.controller;
+
+import com.moneytracker.model.Transaction;
+import com.moneytracker.util.CurrencyUtil;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable display model for one row of the transactions table.
+ * All cell text is formatted once when the row is built and exposed through
+ * stable read-only properties, so rendering and scrolling a cell neither
+ * formats nor allocates. Rows may be built off the FX thread.
+ */
+public final class TransactionRow {
+    
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    
+    /**
+     * Stand-in shown while the page holding a row is still loading; it has no transaction
+     */
+    public static final TransactionRow LOADING = new TransactionRow();
+    
+    private final Transaction transaction;
+    private final ReadOnlyStringProperty date;
+    private final ReadOnlyStringProperty description;
+    private final ReadOnlyStringProperty category;
+    private final ReadOnlyStringProperty amount;
+    private final ReadOnlyStringProperty type;
+    
+    public TransactionRow(Transaction transaction) {
+        this.transaction = transaction;
+        this.date = constant(transaction.getTimestamp().format(DATE_FORMATTER));
+        this.description = constant(transaction.getDescription());
+        this.category = constant(transaction.getCategory() != null ? transaction.getCategory() : "Uncategorized");
+        this.amount = constant(transaction.getType() == Transaction.TransactionType.EXPENSE
+            ? CurrencyUtil.formatAmountWithPrefix(transaction.getAmount(), "-", transaction.getCurrency())
+            : CurrencyUtil.formatAmount(transaction.getAmount(), transaction.getCurrency()));
+        this.type = constant(transaction.getType().getDisplayName());
+    }
+    
+    private TransactionRow() {
+        this.transaction = null;
+        this.date = constant("Loading...");
+        this.description = constant("");
+        this.category = constant("");
+        this.amount = constant("");
+        this.type = constant("");
+    }
+    
+    /**
+     * Build display rows for a list of transactions, preserving order
+     */
+    public static List<TransactionRow> of(List<Transaction> transactions) {
+        List<TransactionRow> rows = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            rows.add(new TransactionRow(transaction));
+        }
+        return rows;
+    }
+    
+    /**
+     * Get the transactions behind a list of display rows, preserving order and
+     * skipping rows that are still loading
+     */
+    public static List<Transaction> transactionsOf(List<TransactionRow> rows) {
+        List<Transaction> transactions = new ArrayList<>(rows.size());
+        for (TransactionRow row : rows) {
+            if (!row.isLoading()) {
+                transactions.add(row.getTransaction());
+            }
+        }
+        return transactions;
+    }
+    
+    public Transaction getTransaction() { return transaction; }
+    public boolean isLoading() { return transaction == null; }
+    public ReadOnlyStringProperty dateProperty() { return date; }
+    public ReadOnlyStringProperty descriptionProperty() { return description; }
+    public ReadOnlyStringProperty categoryProperty() { return category; }
+    public ReadOnlyStringProperty amountProperty() { return amount; }
+    public ReadOnlyStringProperty typeProperty() { return type; }
+    
+    private static ReadOnlyStringProperty constant(String value) {
+        return new ReadOnlyStringWrapper(value).getReadOnlyProperty();
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionRow{" + transaction + "}";
+    }
+}
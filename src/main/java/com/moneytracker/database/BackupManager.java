@@ -0,0 +1,482 @@
+package com.moneytracker.database;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Online backups of the database while the application keeps running.
+ *
+ * Copying the database file during a write can capture a torn page, so backups
+ * go through SQLite's backup API instead, a few hundred pages per step with a
+ * short pause after each. The copy is taken from one read transaction, so in WAL
+ * mode writers are never blocked and their commits neither leak into the copy
+ * nor make it start over; the WAL just cannot be checkpointed past that snapshot
+ * until the copy is done. The attached archive database is copied within the
+ * same snapshot into a companion file. Backups are gzip-compressed, can be
+ * verified by restoring them into a scratch file, and are pruned by a
+ * {@link RetentionPolicy}.
+ */
+public class BackupManager {
+    
+    public static final int DEFAULT_PAGES_PER_STEP = 256;
+    public static final Duration DEFAULT_STEP_PAUSE = Duration.ofMillis(5);
+    
+    private static final String EXTENSION = ".db.gz";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final List<String> SCHEMAS = List.of("main", "archive");
+    private static final List<String> VERIFIED_TABLES = List.of("categories", "budgets", "transactions", "recurring_transactions");
+    private static final List<String> VERIFIED_ARCHIVE_TABLES = List.of("transactions");
+    private static final int BUSY_RETRY_MILLIS = 100;
+    private static final int BUSY_RETRY_LIMIT = 50;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * Which backups to keep: the newest few, plus the newest of each recent day
+     * and week that has any. Everything else is deleted after a backup.
+     */
+    public static class RetentionPolicy {
+        public static final RetentionPolicy DEFAULT = new RetentionPolicy(3, 7, 4);
+        
+        private final int keepLast;
+        private final int keepDaily;
+        private final int keepWeekly;
+        
+        public RetentionPolicy(int keepLast, int keepDaily, int keepWeekly) {
+            this.keepLast = Math.max(1, keepLast);
+            this.keepDaily = Math.max(0, keepDaily);
+            this.keepWeekly = Math.max(0, keepWeekly);
+        }
+        
+        /**
+         * Backups to delete, given all backups newest first
+         */
+        List<BackupFile> expired(List<BackupFile> newestFirst) {
+            Set<BackupFile> keep = new HashSet<>(newestFirst.subList(0, Math.min(keepLast, newestFirst.size())));
+            keepNewestPer(newestFirst, backup -> backup.getCreatedAt().toLocalDate(), keepDaily, keep);
+            keepNewestPer(newestFirst, backup -> backup.getCreatedAt().toLocalDate().with(DayOfWeek.MONDAY), keepWeekly, keep);
+            
+            List<BackupFile> expired = new ArrayList<>(newestFirst);
+            expired.removeAll(keep);
+            return expired;
+        }
+        
+        private static void keepNewestPer(List<BackupFile> newestFirst, Function<BackupFile, Object> period,
+                                          int periods, Set<BackupFile> keep) {
+            Set<Object> seen = new HashSet<>();
+            for (BackupFile backup : newestFirst) {
+                if (seen.size() >= periods) {
+                    return;
+                }
+                if (seen.add(period.apply(backup))) {
+                    keep.add(backup);
+                }
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "keep last " + keepLast + ", " + keepDaily + " daily, " + keepWeekly + " weekly";
+        }
+    }
+    
+    /**
+     * One backup in the backup directory
+     */
+    public static class BackupFile {
+        private final Path path;
+        private final LocalDateTime createdAt;
+        
+        BackupFile(Path path, LocalDateTime createdAt) {
+            this.path = path;
+            this.createdAt = createdAt;
+        }
+        
+        public Path getPath() { return path; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BackupFile && path.equals(((BackupFile) obj).path);
+        }
+        
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return path.getFileName().toString();
+        }
+    }
+    
+    /**
+     * What one {@link #backup} wrote
+     */
+    public static class BackupResult {
+        private final Path file;
+        private final long databaseBytes;
+        private final long compressedBytes;
+        private final Map<String, Long> rowCounts;
+        private final boolean verified;
+        private final List<BackupFile> pruned;
+        private final Duration elapsed;
+        
+        BackupResult(Path file, long databaseBytes, long compressedBytes, Map<String, Long> rowCounts,
+                     boolean verified, List<BackupFile> pruned, Duration elapsed) {
+            this.file = file;
+            this.databaseBytes = databaseBytes;
+            this.compressedBytes = compressedBytes;
+            this.rowCounts = rowCounts;
+            this.verified = verified;
+            this.pruned = pruned;
+            this.elapsed = elapsed;
+        }
+        
+        public Path getFile() { return file; }
+        public long getDatabaseBytes() { return databaseBytes; }
+        public long getCompressedBytes() { return compressedBytes; }
+        /** Rows per table in the backed-up snapshot; empty unless verified */
+        public Map<String, Long> getRowCounts() { return rowCounts; }
+        public boolean isVerified() { return verified; }
+        /** Older backups deleted by the retention policy */
+        public List<BackupFile> getPruned() { return pruned; }
+        public Duration getElapsed() { return elapsed; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s (%d KB, %d KB compressed, %s%d ms)", file.getFileName(), databaseBytes / 1024,
+                compressedBytes / 1024, verified ? "verified, " : "", elapsed.toMillis());
+        }
+    }
+    
+    private final DatabaseManager databaseManager;
+    private final Path backupDirectory;
+    private final String baseName;
+    private final int pagesPerStep;
+    private final Duration stepPause;
+    private final RetentionPolicy retentionPolicy;
+    
+    public BackupManager(DatabaseManager databaseManager, Path backupDirectory) {
+        this(databaseManager, backupDirectory, DEFAULT_PAGES_PER_STEP, DEFAULT_STEP_PAUSE, RetentionPolicy.DEFAULT);
+    }
+    
+    /**
+     * @param pagesPerStep pages copied before pausing; fewer keeps each step shorter
+     * @param stepPause    pause after each step, leaving the disk to the application
+     */
+    public BackupManager(DatabaseManager databaseManager, Path backupDirectory, int pagesPerStep, Duration stepPause,
+                         RetentionPolicy retentionPolicy) {
+        this.databaseManager = databaseManager;
+        this.backupDirectory = backupDirectory;
+        String fileName = Path.of(databaseManager.getDatabaseName()).getFileName().toString();
+        this.baseName = fileName.endsWith(".db") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.stepPause = stepPause;
+        this.retentionPolicy = retentionPolicy;
+    }
+    
+    /**
+     * The default backup directory: "backups" next to the database file
+     */
+    public static Path defaultDirectory(DatabaseManager databaseManager) {
+        Path parent = Path.of(databaseManager.getDatabaseName()).toAbsolutePath().getParent();
+        return parent.resolve("backups");
+    }
+    
+    /**
+     * Back up the database as it is now, compress it and prune old backups
+     * @param verify also restore the backup into a scratch file and check it
+     *               against the snapshot it was taken from
+     */
+    public synchronized BackupResult backup(boolean verify) throws SQLException, IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(backupDirectory);
+        String name = baseName + "-" + LocalDateTime.now().format(FILE_TIMESTAMP);
+        Path file = backupDirectory.resolve(name + EXTENSION);
+        
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        long databaseBytes = 0;
+        long compressedBytes = 0;
+        List<Path> copies = new ArrayList<>();
+        try {
+            try (Connection source = databaseManager.openConnection()) {
+                // Hold one read transaction for the whole copy, so every step reads the same
+                // snapshot; reading each database first fixes its snapshot before any copying
+                source.setAutoCommit(false);
+                for (String schema : SCHEMAS) {
+                    if (verify) {
+                        rowCounts.putAll(countRows(source, schema, schema));
+                    }
+                    databaseBytes += pragmaLong(source, schema + ".page_count") * pragmaLong(source, schema + ".page_size");
+                }
+                
+                DB database = source.unwrap(SQLiteConnection.class).getDatabase();
+                for (String schema : SCHEMAS) {
+                    Path copy = backupDirectory.resolve(name + suffix(schema) + ".db.partial");
+                    copies.add(copy);
+                    int result = database.backup(schema, copy.toString(), (remaining, pageCount) -> pause(),
+                        BUSY_RETRY_MILLIS, BUSY_RETRY_LIMIT, pagesPerStep);
+                    if (result != 0) {
+                        throw new SQLException("Backup to " + copy + " failed with SQLite error " + result);
+                    }
+                }
+                source.rollback();
+            }
+            
+            for (int i = 0; i < SCHEMAS.size(); i++) {
+                // Leave a single self-contained file rather than one expecting a WAL
+                try (Connection backup = DriverManager.getConnection("jdbc:sqlite:" + copies.get(i));
+                     Statement stmt = backup.createStatement()) {
+                    stmt.execute("PRAGMA journal_mode = DELETE");
+                }
+                Path compressed = companion(file, SCHEMAS.get(i));
+                compress(copies.get(i), compressed);
+                compressedBytes += Files.size(compressed);
+            }
+        } finally {
+            for (Path copy : copies) {
+                Files.deleteIfExists(copy);
+            }
+        }
+        
+        try {
+            if (verify) {
+                verify(file, rowCounts);
+            }
+        } catch (SQLException | IOException e) {
+            delete(file);
+            throw e;
+        }
+        
+        List<BackupFile> pruned = applyRetention();
+        return new BackupResult(file, databaseBytes, compressedBytes, rowCounts, verify, pruned,
+            Duration.ofNanos(System.nanoTime() - started));
+    }
+    
+    /**
+     * Restore a backup, and its archive companion if it has one, into scratch files
+     * and check their integrity
+     * @return rows per table in the backup, archive tables prefixed with "archive."
+     * @throws IOException if the backup cannot be read or is damaged
+     */
+    public Map<String, Long> verify(Path backupFile) throws SQLException, IOException {
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        for (String schema : SCHEMAS) {
+            Path file = companion(backupFile, schema);
+            if (file.equals(backupFile) || Files.exists(file)) {
+                rowCounts.putAll(verifyFile(file, schema));
+            }
+        }
+        return rowCounts;
+    }
+    
+    private Map<String, Long> verifyFile(Path file, String schema) throws IOException {
+        Path scratch = file.resolveSibling(file.getFileName() + ".verify");
+        try {
+            decompress(file, scratch);
+            try (Connection restored = DriverManager.getConnection("jdbc:sqlite:" + scratch)) {
+                try (Statement stmt = restored.createStatement();
+                     ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+                    String status = rs.next() ? rs.getString(1) : "no result";
+                    if (!"ok".equals(status)) {
+                        throw new IOException("Backup " + file.getFileName() + " failed the integrity check: " + status);
+                    }
+                }
+                return countRows(restored, "main", schema);
+            } catch (SQLException e) {
+                throw new IOException("Backup " + file.getFileName() + " is not a readable database: " + e.getMessage(), e);
+            }
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+    
+    /**
+     * Verify a backup and check it holds the expected rows
+     */
+    private void verify(Path backupFile, Map<String, Long> expectedRowCounts) throws SQLException, IOException {
+        Map<String, Long> rowCounts = verify(backupFile);
+        if (!rowCounts.equals(expectedRowCounts)) {
+            throw new IOException("Backup " + backupFile.getFileName() + " holds " + rowCounts
+                + " rows but the database had " + expectedRowCounts);
+        }
+    }
+    
+    /**
+     * Replace the database's contents with a backup, after verifying it. Runs
+     * online, but services that cache data, such as a running application's,
+     * must be restarted to see the restored contents.
+     */
+    public synchronized void restore(Path backupFile) throws SQLException, IOException {
+        verify(backupFile);
+        for (String schema : SCHEMAS) {
+            Path file = companion(backupFile, schema);
+            if (!file.equals(backupFile) && !Files.exists(file)) {
+                continue;
+            }
+            Path scratch = file.resolveSibling(file.getFileName() + ".restore");
+            try {
+                decompress(file, scratch);
+                try (Connection target = databaseManager.openConnection()) {
+                    DB database = target.unwrap(SQLiteConnection.class).getDatabase();
+                    int result = database.restore(schema, scratch.toString(), null,
+                        BUSY_RETRY_MILLIS, BUSY_RETRY_LIMIT, pagesPerStep);
+                    if (result != 0) {
+                        throw new SQLException("Restore from " + file + " failed with SQLite error " + result);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(scratch);
+            }
+        }
+        System.out.println("Database restored from " + backupFile);
+    }
+    
+    /**
+     * Backups of this database, newest first
+     */
+    public List<BackupFile> listBackups() throws IOException {
+        List<BackupFile> backups = new ArrayList<>();
+        if (!Files.isDirectory(backupDirectory)) {
+            return backups;
+        }
+        String prefix = baseName + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(backupDirectory, prefix + "*" + EXTENSION)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                String timestamp = name.substring(prefix.length(), name.length() - EXTENSION.length());
+                try {
+                    backups.add(new BackupFile(path, LocalDateTime.parse(timestamp, FILE_TIMESTAMP)));
+                } catch (DateTimeParseException e) {
+                    // Not one of ours, e.g. another database whose name starts the same way
+                }
+            }
+        }
+        backups.sort(Comparator.comparing(BackupFile::getCreatedAt).reversed());
+        return backups;
+    }
+    
+    /**
+     * Delete backups the retention policy no longer keeps
+     * @return the deleted backups
+     */
+    public synchronized List<BackupFile> applyRetention() throws IOException {
+        List<BackupFile> expired = retentionPolicy.expired(listBackups());
+        for (BackupFile backup : expired) {
+            delete(backup.getPath());
+        }
+        return expired;
+    }
+    
+    public Path getBackupDirectory() {
+        return backupDirectory;
+    }
+    
+    private void pause() {
+        if (stepPause.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(stepPause.toMillis());
+        } catch (InterruptedException e) {
+            // Finish the copy without pausing; the caller sees the interrupt afterwards
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * File holding one database of a backup: the backup itself for main, a companion
+     * such as "name.archive.db.gz" for the archive
+     */
+    private static Path companion(Path backupFile, String schema) {
+        String name = backupFile.getFileName().toString();
+        return backupFile.resolveSibling(name.substring(0, name.length() - EXTENSION.length()) + suffix(schema) + EXTENSION);
+    }
+    
+    private static String suffix(String schema) {
+        return "main".equals(schema) ? "" : "." + schema;
+    }
+    
+    private static void delete(Path backupFile) throws IOException {
+        for (String schema : SCHEMAS) {
+            Files.deleteIfExists(companion(backupFile, schema));
+        }
+    }
+    
+    /**
+     * Count the verified tables of one backed-up database
+     * @param schema        where the connection has that database attached
+     * @param countedSchema which database it is, "main" or "archive"
+     */
+    private static Map<String, Long> countRows(Connection connection, String schema, String countedSchema) throws SQLException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        List<String> tables = "main".equals(countedSchema) ? VERIFIED_TABLES : VERIFIED_ARCHIVE_TABLES;
+        try (Statement stmt = connection.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + schema + "." + table)) {
+                    String key = "main".equals(countedSchema) ? table : countedSchema + "." + table;
+                    counts.put(key, rs.next() ? rs.getLong(1) : 0);
+                }
+            }
+        }
+        return counts;
+    }
+    
+    private static long pragmaLong(Connection connection, String pragma) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+    
+    /**
+     * Compress into a partial file first, so a crash never leaves a truncated backup
+     * under the final name
+     */
+    private static void compress(Path source, Path target) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        try (InputStream input = Files.newInputStream(source);
+             OutputStream output = new GZIPOutputStream(Files.newOutputStream(partial), BUFFER_SIZE)) {
+            input.transferTo(output);
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static void decompress(Path source, Path target) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(source), BUFFER_SIZE)) {
+            Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
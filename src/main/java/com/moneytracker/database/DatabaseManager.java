@@ -1,8 +1,13 @@
 package com.moneytracker.database;
 
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -13,10 +18,50 @@ import java.sql.Statement;
 public class DatabaseManager {
     
     private static final String DATABASE_NAME = "anton_money_tracker.db";
-    private static final String DATABASE_URL = "jdbc:sqlite:" + DATABASE_NAME;
+    private static final int SCHEMA_VERSION = 4;
+    private static final int SQLITE_BUSY = 5;
+    private static final int TRANSACTION_ATTEMPTS = 3;
+    
+    /**
+     * Hot transactions together with those moved to the archive database; a view
+     * every connection creates for itself, since it spans both databases
+     */
+    public static final String TRANSACTIONS_WITH_ARCHIVE = "transactions_with_archive";
+    
+    /**
+     * Columns of the transactions table, in the order both databases store them
+     */
+    public static final String TRANSACTION_COLUMNS =
+        "id, type, amount, description, category_id, notes, timestamp, budget_id, currency, budget_amount";
     
+    /**
+     * Work run inside one database transaction
+     */
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+    
+    private final String databaseName;
+    private final String archiveName;
     private Connection connection;
     
+    /**
+     * Use the default database file in the working directory
+     */
+    public DatabaseManager() {
+        this(DATABASE_NAME);
+    }
+    
+    /**
+     * Use the given database file, e.g. one tenant's shard
+     */
+    public DatabaseManager(String databaseName) {
+        this.databaseName = databaseName;
+        String baseName = databaseName.endsWith(".db") ? databaseName.substring(0, databaseName.length() - 3) : databaseName;
+        this.archiveName = baseName + "_archive.db";
+    }
+    
     /**
      * Initialize the database connection and create tables if they don't exist
      */
@@ -25,26 +70,111 @@ public class DatabaseManager {
         createDatabaseFile();
         
         // Establish connection
-        connection = DriverManager.getConnection(DATABASE_URL);
+        connection = openConnection();
         
-        // Enable foreign keys
+        // WAL lets readers run alongside the writer; it is stored in the file, so set it once.
+        // Incremental auto-vacuum only takes on a file without tables; older files keep
+        // their mode until a full VACUUM (see StorageMaintenance)
         try (Statement stmt = connection.createStatement()) {
-            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("PRAGMA archive.auto_vacuum = INCREMENTAL");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA archive.journal_mode = WAL");
         }
         
         // Create tables
         createTables();
         
-        System.out.println("Database initialized successfully: " + DATABASE_NAME);
+        System.out.println("Database initialized successfully: " + databaseName);
+    }
+    
+    /**
+     * Open a connection with foreign keys enabled and the archive database attached.
+     * With synchronous=NORMAL, WAL commits no longer wait for an fsync each; the
+     * busy timeout lets a second connection wait for the writer instead of failing.
+     */
+    Connection openConnection() throws SQLException {
+        Connection opened = DriverManager.getConnection("jdbc:sqlite:" + databaseName);
+        try (Statement stmt = opened.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            try (PreparedStatement attach = opened.prepareStatement("ATTACH DATABASE ? AS archive")) {
+                attach.setString(1, archiveName);
+                attach.execute();
+            }
+            stmt.execute("PRAGMA archive.synchronous = NORMAL");
+            // A row caught in both by an interrupted archive move is read from the hot table only
+            stmt.execute("""
+                CREATE TEMP VIEW IF NOT EXISTS %s AS
+                SELECT %s FROM main.transactions
+                UNION ALL
+                SELECT %s FROM archive.transactions AS archived
+                WHERE NOT EXISTS (SELECT 1 FROM main.transactions WHERE main.transactions.id = archived.id)
+                """.formatted(TRANSACTIONS_WITH_ARCHIVE, TRANSACTION_COLUMNS, TRANSACTION_COLUMNS));
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+        return opened;
+    }
+    
+    /**
+     * Run work as one atomic database transaction, committed if it returns and
+     * rolled back if it throws.
+     *
+     * The work gets a connection of its own: statements other threads issue on the
+     * shared connection meanwhile are neither swept into this transaction nor rolled
+     * back with it. They wait for it to commit instead (see the busy timeout), so
+     * keep the work short.
+     *
+     * The transaction takes the write lock as it begins (BEGIN IMMEDIATE). A deferred
+     * one that reads first cannot wait for another writer when it upgrades, and fails
+     * with SQLITE_BUSY or SQLITE_BUSY_SNAPSHOT instead. If the database stays busy
+     * past the busy timeout anyway, the work is retried a few times.
+     */
+    public <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runTransaction(work);
+            } catch (SQLException e) {
+                if ((e.getErrorCode() & 0xff) != SQLITE_BUSY || attempt == TRANSACTION_ATTEMPTS) {
+                    throw e;
+                }
+                System.err.println("Database busy, retrying transaction (attempt " + (attempt + 1) + ")");
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private <T> T runTransaction(TransactionWork<T> work) throws SQLException {
+        try (Connection transaction = openConnection()) {
+            transaction.unwrap(SQLiteConnection.class)
+                .getConnectionConfig().setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+            transaction.setAutoCommit(false);
+            try {
+                T result = work.run(transaction);
+                transaction.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
     }
     
     /**
      * Create database file if it doesn't exist
      */
     private void createDatabaseFile() {
-        File dbFile = new File(DATABASE_NAME);
+        File dbFile = new File(databaseName);
         if (!dbFile.exists()) {
-            System.out.println("Creating new database file: " + DATABASE_NAME);
+            System.out.println("Creating new database file: " + databaseName);
         }
     }
     
@@ -55,9 +185,160 @@ public class DatabaseManager {
         createCategoriesTable();
         createBudgetsTable();
         createTransactionsTable();
+        createRecurringTransactionsTable();
+        createSearchIndex();
+        createArchiveTables();
+        migrateSchema();
+        createIndexes();
         insertDefaultCategories();
     }
     
+    /**
+     * Apply one-off data migrations tracked through PRAGMA user_version
+     */
+    private void migrateSchema() throws SQLException {
+        int version;
+        try (Statement stmt = connection.createStatement();
+             var rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= SCHEMA_VERSION) {
+            return;
+        }
+        
+        try (Statement stmt = connection.createStatement()) {
+            if (version < 1) {
+                // Rows written with CURRENT_TIMESTAMP hold UTC text while the JDBC driver
+                // stores epoch milliseconds; normalize so ordering and seeking are consistent
+                stmt.executeUpdate("""
+                    UPDATE transactions
+                    SET timestamp = CAST(strftime('%s', timestamp) AS INTEGER) * 1000
+                    WHERE typeof(timestamp) = 'text'
+                    """);
+            }
+            if (version < 2) {
+                // Index rows written before the full-text search table existed
+                stmt.execute("INSERT INTO transactions_fts (transactions_fts) VALUES ('rebuild')");
+            }
+            if (version < 3 && !hasColumn("main", "budgets", "archived_at")) {
+                stmt.execute("ALTER TABLE budgets ADD COLUMN archived_at DATETIME");
+            }
+            if (version < 4) {
+                // Everything recorded so far was in rupees, so amounts are already in their budget's currency
+                String[][] tables = {{"main", "budgets"}, {"main", "transactions"}, {"archive", "transactions"}};
+                for (String[] table : tables) {
+                    if (!hasColumn(table[0], table[1], "currency")) {
+                        stmt.execute("ALTER TABLE " + table[0] + "." + table[1]
+                            + " ADD COLUMN currency TEXT NOT NULL DEFAULT 'INR'");
+                    }
+                }
+                for (String schema : new String[] {"main", "archive"}) {
+                    if (!hasColumn(schema, "transactions", "budget_amount")) {
+                        stmt.execute("ALTER TABLE " + schema + ".transactions ADD COLUMN budget_amount DECIMAL(10,2)");
+                    }
+                    stmt.executeUpdate("UPDATE " + schema + ".transactions SET budget_amount = amount WHERE budget_amount IS NULL");
+                }
+                // Largest expenses are now ranked in the budget's currency
+                stmt.execute("DROP INDEX IF EXISTS idx_transactions_budget_type_amount");
+            }
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+        }
+        System.out.println("Database schema migrated to version " + SCHEMA_VERSION);
+    }
+    
+    /**
+     * Check whether a table of the main or archive database already has a column,
+     * for migrations adding one
+     */
+    private boolean hasColumn(String schema, String table, String column) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT 1 FROM pragma_table_info(?, ?) WHERE name = ?")) {
+            stmt.setString(1, table);
+            stmt.setString(2, schema);
+            stmt.setString(3, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Create the archive database's tables: transactions of archived budgets, moved
+     * out of the hot table with the same columns and ids, and their own search index.
+     * Foreign keys cannot span databases, so the archive has none.
+     */
+    private void createArchiveTables() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS archive.transactions (
+                    id INTEGER PRIMARY KEY,
+                    type TEXT NOT NULL,
+                    amount DECIMAL(10,2) NOT NULL,
+                    description TEXT NOT NULL,
+                    category_id INTEGER,
+                    notes TEXT,
+                    timestamp DATETIME,
+                    budget_id INTEGER,
+                    currency TEXT NOT NULL DEFAULT 'INR',
+                    budget_amount DECIMAL(10,2)
+                )
+                """);
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS archive.idx_archive_transactions_budget_timestamp
+                ON transactions (budget_id, timestamp DESC, id DESC)
+                """);
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS archive.idx_archive_transactions_timestamp
+                ON transactions (timestamp)
+                """);
+            stmt.execute("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS archive.transactions_fts USING fts5(
+                    description,
+                    notes,
+                    content = 'transactions',
+                    content_rowid = 'id',
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+                """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS archive.archive_transactions_fts_insert AFTER INSERT ON transactions BEGIN
+                    INSERT INTO transactions_fts (rowid, description, notes)
+                    VALUES (new.id, new.description, new.notes);
+                END
+                """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS archive.archive_transactions_fts_delete AFTER DELETE ON transactions BEGIN
+                    INSERT INTO transactions_fts (transactions_fts, rowid, description, notes)
+                    VALUES ('delete', old.id, old.description, old.notes);
+                END
+                """);
+        }
+    }
+    
+    /**
+     * Create indexes used by paged, per-budget, top-expense, budget total and budget rollover queries
+     */
+    private void createIndexes() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_transactions_budget_timestamp
+                ON transactions (budget_id, timestamp DESC, id DESC)
+                """);
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_transactions_budget_type_budget_amount
+                ON transactions (budget_id, type, budget_amount DESC, id DESC)
+                """);
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_recurring_transactions_next_run
+                ON recurring_transactions (active, next_run_date)
+                """);
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_budgets_status_start
+                ON budgets (status, start_date, id)
+                """);
+        }
+    }
+    
     /**
      * Create categories table
      */
@@ -94,6 +375,8 @@ public class DatabaseManager {
                 status TEXT DEFAULT 'ACTIVE',
                 description TEXT,
                 last_daily_budget_update DATE,
+                archived_at DATETIME,
+                currency TEXT NOT NULL DEFAULT 'INR',
                 created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
                 updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
             )
@@ -118,6 +401,8 @@ public class DatabaseManager {
                 notes TEXT,
                 timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
                 budget_id INTEGER,
+                currency TEXT NOT NULL DEFAULT 'INR',
+                budget_amount DECIMAL(10,2),
                 FOREIGN KEY (category_id) REFERENCES categories(id),
                 FOREIGN KEY (budget_id) REFERENCES budgets(id)
             )
@@ -128,6 +413,79 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Create the table of recurring transaction definitions. next_run_date is the
+     * date of occurrence number occurrence_count, counted from start_date, so
+     * month-end dates never drift.
+     */
+    private void createRecurringTransactionsTable() throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS recurring_transactions (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                type TEXT NOT NULL,
+                amount DECIMAL(10,2) NOT NULL,
+                description TEXT NOT NULL,
+                category_id INTEGER,
+                budget_id INTEGER,
+                notes TEXT,
+                frequency TEXT NOT NULL,
+                interval_count INTEGER NOT NULL DEFAULT 1,
+                start_date DATE NOT NULL,
+                end_date DATE,
+                occurrence_count INTEGER NOT NULL DEFAULT 0,
+                next_run_date DATE NOT NULL,
+                active INTEGER NOT NULL DEFAULT 1,
+                created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+                FOREIGN KEY (category_id) REFERENCES categories(id),
+                FOREIGN KEY (budget_id) REFERENCES budgets(id)
+            )
+            """;
+        
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+    
+    /**
+     * Create the FTS5 index over transaction descriptions and notes.
+     * It is an external-content table over transactions, so the text is not
+     * stored twice; triggers keep it in step with every insert, update and delete.
+     */
+    private void createSearchIndex() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS transactions_fts USING fts5(
+                    description,
+                    notes,
+                    content = 'transactions',
+                    content_rowid = 'id',
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+                """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS transactions_fts_insert AFTER INSERT ON transactions BEGIN
+                    INSERT INTO transactions_fts (rowid, description, notes)
+                    VALUES (new.id, new.description, new.notes);
+                END
+                """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS transactions_fts_delete AFTER DELETE ON transactions BEGIN
+                    INSERT INTO transactions_fts (transactions_fts, rowid, description, notes)
+                    VALUES ('delete', old.id, old.description, old.notes);
+                END
+                """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS transactions_fts_update AFTER UPDATE OF description, notes ON transactions BEGIN
+                    INSERT INTO transactions_fts (transactions_fts, rowid, description, notes)
+                    VALUES ('delete', old.id, old.description, old.notes);
+                    INSERT INTO transactions_fts (rowid, description, notes)
+                    VALUES (new.id, new.description, new.notes);
+                END
+                """);
+        }
+    }
+    
     /**
      * Insert default categories if they don't exist
      */
@@ -169,6 +527,20 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Get the path of the database file
+     */
+    public String getDatabaseName() {
+        return databaseName;
+    }
+    
+    /**
+     * Get the path of the archive database attached to every connection as "archive"
+     */
+    public String getArchiveName() {
+        return archiveName;
+    }
+    
     /**
      * Get the database connection
      */
@@ -0,0 +1,305 @@
+package com.moneytracker.database;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Routes each tenant (a user or household) to its own SQLite database file.
+ *
+ * Shards are opened on first use and kept open for reuse; once more than
+ * {@code maxOpenShards} are open, the least recently used idle ones are closed.
+ * A shard in use is never closed, so the limit may be exceeded briefly under
+ * load. Because every tenant has its own file, indexes and caches, one tenant's
+ * data size has no effect on the queries of another.
+ */
+public class ShardRouter implements AutoCloseable {
+    
+    private static final String SHARD_PREFIX = "tenant_";
+    private static final String SHARD_SUFFIX = ".db";
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    
+    /**
+     * Work run against one tenant's shard
+     */
+    @FunctionalInterface
+    public interface ShardWork<T> {
+        T run(Shard shard) throws SQLException;
+    }
+    
+    private final Path directory;
+    private final int maxOpenShards;
+    // Access-ordered, so iteration starts at the least recently used shard
+    private final LinkedHashMap<String, Shard> openShards = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * @param directory     directory holding one database file per tenant
+     * @param maxOpenShards number of idle shards kept open
+     */
+    public ShardRouter(Path directory, int maxOpenShards) {
+        this.directory = directory;
+        this.maxOpenShards = Math.max(1, maxOpenShards);
+    }
+    
+    /**
+     * Run work against a tenant's shard, opening and initializing it first if needed.
+     * The shard stays open for the duration of the work.
+     */
+    public <T> T withShard(String tenantId, ShardWork<T> work) throws SQLException {
+        Shard shard = acquire(tenantId);
+        try {
+            shard.open();
+            return work.run(shard);
+        } finally {
+            release(shard);
+        }
+    }
+    
+    /**
+     * Run work against every tenant's shard, a few shards at a time
+     * @param parallelism number of shards worked on at once
+     * @return the failure of each tenant whose work failed; empty if all succeeded
+     */
+    public Map<String, Exception> forEachShard(ShardWork<?> work, int parallelism) throws SQLException {
+        List<String> tenants = listTenants();
+        Map<String, Exception> failures = new ConcurrentHashMap<>();
+        if (tenants.isEmpty()) {
+            return failures;
+        }
+        
+        // Never open more shards at once than the router keeps, or the job would thrash the LRU
+        int threads = Math.max(1, Math.min(Math.min(parallelism, maxOpenShards), tenants.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "anton-shard-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(tenants.size());
+            for (String tenantId : tenants) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        withShard(tenantId, work);
+                    } catch (Exception e) {
+                        failures.put(tenantId, e);
+                        System.err.println("Shard job failed for tenant " + tenantId + ": " + e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while running shard jobs", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Shard job failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+    
+    /**
+     * Let SQLite refresh its query planner statistics on every shard
+     */
+    public Map<String, Exception> optimizeAll(int parallelism) throws SQLException {
+        return forEachShard(shard -> {
+            try (Statement stmt = shard.getDatabaseManager().getConnection().createStatement()) {
+                stmt.execute("PRAGMA optimize");
+            }
+            return null;
+        }, parallelism);
+    }
+    
+    /**
+     * IDs of all tenants with a shard file, open or not
+     */
+    public List<String> listTenants() throws SQLException {
+        List<String> tenants = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return tenants;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SHARD_PREFIX + "*" + SHARD_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String tenantId = name.substring(SHARD_PREFIX.length(), name.length() - SHARD_SUFFIX.length());
+                if (TENANT_ID.matcher(tenantId).matches()) {
+                    tenants.add(tenantId);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to list shards in " + directory, e);
+        }
+        tenants.sort(null);
+        return tenants;
+    }
+    
+    /**
+     * Number of shards currently open
+     */
+    public synchronized int getOpenShardCount() {
+        return openShards.size();
+    }
+    
+    /**
+     * Close every open shard
+     */
+    @Override
+    public void close() {
+        List<Shard> shards;
+        synchronized (this) {
+            shards = new ArrayList<>(openShards.values());
+            openShards.clear();
+        }
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+    
+    private Shard acquire(String tenantId) {
+        if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant ID: " + tenantId);
+        }
+        List<Shard> evicted;
+        Shard shard;
+        synchronized (this) {
+            shard = openShards.computeIfAbsent(tenantId,
+                id -> new Shard(id, directory.resolve(SHARD_PREFIX + id + SHARD_SUFFIX)));
+            shard.users++;
+            evicted = evictIdleShards();
+        }
+        closeAll(evicted);
+        return shard;
+    }
+    
+    private void release(Shard shard) {
+        List<Shard> evicted;
+        synchronized (this) {
+            shard.users--;
+            evicted = evictIdleShards();
+        }
+        closeAll(evicted);
+    }
+    
+    /**
+     * Remove least recently used idle shards beyond the limit; the caller closes them
+     * outside the router lock so other tenants are not held up
+     */
+    private List<Shard> evictIdleShards() {
+        List<Shard> evicted = new ArrayList<>();
+        Iterator<Shard> eldestFirst = openShards.values().iterator();
+        while (openShards.size() > maxOpenShards && eldestFirst.hasNext()) {
+            Shard shard = eldestFirst.next();
+            if (shard.users == 0) {
+                eldestFirst.remove();
+                evicted.add(shard);
+            }
+        }
+        return evicted;
+    }
+    
+    private static void closeAll(List<Shard> shards) {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+    
+    /**
+     * One tenant's database and the services built on it
+     */
+    public static final class Shard {
+        private final String tenantId;
+        private final Path file;
+        // Creation order, so services are closed before the ones they were built on
+        private final Map<Class<?>, Object> services = Collections.synchronizedMap(new LinkedHashMap<>());
+        private DatabaseManager databaseManager;
+        // Guarded by the router
+        private int users;
+        
+        private Shard(String tenantId, Path file) {
+            this.tenantId = tenantId;
+            this.file = file;
+        }
+        
+        public String getTenantId() {
+            return tenantId;
+        }
+        
+        public synchronized DatabaseManager getDatabaseManager() {
+            return databaseManager;
+        }
+        
+        /**
+         * Get this shard's instance of a service, creating it on first use. Services
+         * live as long as the shard stays open, so their in-memory caches are reused;
+         * those that are {@link AutoCloseable} are closed with it.
+         */
+        public <T> T getService(Class<T> type, Function<DatabaseManager, T> factory) {
+            DatabaseManager manager = getDatabaseManager();
+            return type.cast(services.computeIfAbsent(type, key -> factory.apply(manager)));
+        }
+        
+        /**
+         * Open and initialize the database on first use; opening one shard never
+         * waits for another
+         */
+        private synchronized void open() throws SQLException {
+            if (databaseManager != null) {
+                return;
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            try {
+                Files.createDirectories(parent);
+            } catch (IOException e) {
+                throw new SQLException("Failed to create shard directory " + parent, e);
+            }
+            DatabaseManager manager = new DatabaseManager(file.toString());
+            manager.initializeDatabase();
+            databaseManager = manager;
+        }
+        
+        private synchronized void close() {
+            List<Object> created;
+            synchronized (services) {
+                created = new ArrayList<>(services.values());
+                services.clear();
+            }
+            for (int i = created.size() - 1; i >= 0; i--) {
+                if (created.get(i) instanceof AutoCloseable service) {
+                    try {
+                        service.close();
+                    } catch (Exception e) {
+                        System.err.println("Failed to close " + service.getClass().getSimpleName()
+                            + " for tenant " + tenantId + ": " + e.getMessage());
+                    }
+                }
+            }
+            if (databaseManager == null) {
+                return;
+            }
+            try {
+                databaseManager.closeConnection();
+            } catch (SQLException e) {
+                System.err.println("Failed to close shard for tenant " + tenantId + ": " + e.getMessage());
+            }
+            databaseManager = null;
+        }
+    }
+}
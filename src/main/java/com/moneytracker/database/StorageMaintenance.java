@@ -0,0 +1,219 @@
+package com.moneytracker.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps the database files compact and the query planner informed.
+ *
+ * SQLite never shrinks a file by itself: pages freed by deletes, such as
+ * clearing demo data or archiving, go on a free list and leave the tables
+ * scattered across the file. With incremental auto-vacuum, {@link #reclaim}
+ * returns those pages to the file system a few at a time, each step a short
+ * write transaction, so it can stop as soon as the application gets busy.
+ */
+public class StorageMaintenance {
+    
+    public static final int DEFAULT_PAGES_PER_STEP = 256;
+    public static final Duration DEFAULT_STEP_PAUSE = Duration.ofMillis(20);
+    
+    /** Databases every connection has, the main file and the attached archive */
+    private static final List<String> SCHEMAS = List.of("main", "archive");
+    /** Rows ANALYZE samples per index, so a first run stays quick on large tables */
+    private static final int ANALYSIS_LIMIT = 1000;
+    
+    /**
+     * Size and fragmentation of one database file
+     */
+    public static class StorageStats {
+        private final String schema;
+        private final long pageSize;
+        private final long pageCount;
+        private final long freePages;
+        private final String autoVacuum;
+        
+        public StorageStats(String schema, long pageSize, long pageCount, long freePages, String autoVacuum) {
+            this.schema = schema;
+            this.pageSize = pageSize;
+            this.pageCount = pageCount;
+            this.freePages = freePages;
+            this.autoVacuum = autoVacuum;
+        }
+        
+        public String getSchema() { return schema; }
+        public long getPageSize() { return pageSize; }
+        public long getPageCount() { return pageCount; }
+        public long getFreePages() { return freePages; }
+        public long getFileBytes() { return pageCount * pageSize; }
+        public long getFreeBytes() { return freePages * pageSize; }
+        
+        /**
+         * Auto-vacuum mode: NONE, FULL or INCREMENTAL
+         */
+        public String getAutoVacuum() { return autoVacuum; }
+        
+        /**
+         * Share of the file's pages that are free, from 0 to 1
+         */
+        public double getFragmentation() {
+            return pageCount == 0 ? 0 : (double) freePages / pageCount;
+        }
+        
+        public boolean isIncremental() {
+            return "INCREMENTAL".equals(autoVacuum);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d KB, %d free pages (%.1f%%), auto_vacuum=%s",
+                schema, getFileBytes() / 1024, freePages, getFragmentation() * 100, autoVacuum);
+        }
+    }
+    
+    private final DatabaseManager databaseManager;
+    private final int pagesPerStep;
+    private final Duration stepPause;
+    
+    public StorageMaintenance(DatabaseManager databaseManager) {
+        this(databaseManager, DEFAULT_PAGES_PER_STEP, DEFAULT_STEP_PAUSE);
+    }
+    
+    /**
+     * @param pagesPerStep free pages returned to the file system per write transaction
+     * @param stepPause    pause between steps, leaving the write lock to other connections
+     */
+    public StorageMaintenance(DatabaseManager databaseManager, int pagesPerStep, Duration stepPause) {
+        this.databaseManager = databaseManager;
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.stepPause = stepPause;
+    }
+    
+    /**
+     * Current size and fragmentation of the main and archive databases
+     */
+    public List<StorageStats> stats() throws SQLException {
+        List<StorageStats> stats = new ArrayList<>();
+        try (Statement stmt = databaseManager.getConnection().createStatement()) {
+            for (String schema : SCHEMAS) {
+                stats.add(new StorageStats(schema,
+                    pragmaLong(stmt, schema + ".page_size"),
+                    pragmaLong(stmt, schema + ".page_count"),
+                    pragmaLong(stmt, schema + ".freelist_count"),
+                    autoVacuumMode(pragmaLong(stmt, schema + ".auto_vacuum"))));
+            }
+        }
+        return stats;
+    }
+    
+    /**
+     * Return free pages to the file system in small steps, stopping early once
+     * {@code keepGoing} turns false. Databases not in incremental auto-vacuum mode
+     * are skipped; {@link #vacuum} switches them over.
+     * @return pages reclaimed
+     */
+    public long reclaim(BooleanSupplier keepGoing) throws SQLException {
+        long reclaimed = 0;
+        try (Connection connection = databaseManager.openConnection();
+             Statement stmt = connection.createStatement()) {
+            for (String schema : SCHEMAS) {
+                if (!"INCREMENTAL".equals(autoVacuumMode(pragmaLong(stmt, schema + ".auto_vacuum")))) {
+                    continue;
+                }
+                long free = pragmaLong(stmt, schema + ".freelist_count");
+                while (free > 0 && keepGoing.getAsBoolean()) {
+                    // Each step of the pragma frees one page; execute() would only take the first
+                    stmt.executeUpdate("PRAGMA " + schema + ".incremental_vacuum(" + pagesPerStep + ")");
+                    // Writers in between may reuse free pages themselves, which is just as good
+                    long remaining = pragmaLong(stmt, schema + ".freelist_count");
+                    reclaimed += Math.max(0, free - remaining);
+                    free = remaining;
+                    if (!pause()) {
+                        return reclaimed;
+                    }
+                }
+            }
+        }
+        return reclaimed;
+    }
+    
+    /**
+     * Refresh the query planner's statistics: a bounded ANALYZE for a database never
+     * analyzed, otherwise PRAGMA optimize, which only re-analyzes tables that changed
+     */
+    public void optimize() throws SQLException {
+        try (Statement stmt = databaseManager.getConnection().createStatement()) {
+            stmt.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            for (String schema : SCHEMAS) {
+                boolean analyzed;
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT 1 FROM " + schema + ".sqlite_master WHERE name = 'sqlite_stat1'")) {
+                    analyzed = rs.next();
+                }
+                if (!analyzed) {
+                    stmt.execute("ANALYZE " + schema);
+                }
+            }
+            stmt.execute("PRAGMA optimize");
+        }
+    }
+    
+    /**
+     * Copy the WAL back into the database files and truncate it, so reclaimed
+     * pages actually leave the files
+     */
+    public void checkpoint() throws SQLException {
+        try (Statement stmt = databaseManager.getConnection().createStatement()) {
+            for (String schema : SCHEMAS) {
+                stmt.execute("PRAGMA " + schema + ".wal_checkpoint(TRUNCATE)");
+            }
+        }
+    }
+    
+    /**
+     * Rebuild both databases from scratch, defragmenting them and switching files
+     * created before incremental auto-vacuum over to it. Rewrites every page and
+     * blocks writers until done, so only run it on request.
+     */
+    public void vacuum() throws SQLException {
+        try (Connection connection = databaseManager.openConnection();
+             Statement stmt = connection.createStatement()) {
+            for (String schema : SCHEMAS) {
+                stmt.execute("PRAGMA " + schema + ".auto_vacuum = INCREMENTAL");
+                stmt.execute("VACUUM " + schema);
+            }
+        }
+    }
+    
+    private boolean pause() {
+        if (stepPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(stepPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private static String autoVacuumMode(long value) {
+        return switch ((int) value) {
+            case 1 -> "FULL";
+            case 2 -> "INCREMENTAL";
+            default -> "NONE";
+        };
+    }
+    
+    private static long pragmaLong(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.moneytracker.event;
+
+/**
+ * An active budget was marked completed
+ */
+public class BudgetCompleted implements DomainEvent {
+    
+    private final Long budgetId;
+    
+    public BudgetCompleted(Long budgetId) {
+        this.budgetId = budgetId;
+    }
+    
+    public Long getBudgetId() { return budgetId; }
+    
+    @Override
+    public String toString() {
+        return "BudgetCompleted{budgetId=" + budgetId + "}";
+    }
+}
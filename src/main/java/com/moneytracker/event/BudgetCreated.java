@@ -0,0 +1,23 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Budget;
+
+/**
+ * A new active budget was created
+ */
+public class BudgetCreated implements DomainEvent {
+    
+    private final Budget budget;
+    
+    public BudgetCreated(Budget budget) {
+        this.budget = budget;
+    }
+    
+    public Budget getBudget() { return budget; }
+    public Long getBudgetId() { return budget.getId(); }
+    
+    @Override
+    public String toString() {
+        return "BudgetCreated{budget=" + budget + "}";
+    }
+}
@@ -0,0 +1,26 @@
+package com.moneytracker.event;
+
+import java.util.List;
+
+/**
+ * The daily rollover expired ended budgets, topped up their successors and
+ * recalculated daily budgets
+ */
+public class BudgetsRolledOver implements DomainEvent {
+    
+    private final List<Long> expiredBudgetIds;
+    private final List<Long> toppedUpBudgetIds;
+    
+    public BudgetsRolledOver(List<Long> expiredBudgetIds, List<Long> toppedUpBudgetIds) {
+        this.expiredBudgetIds = List.copyOf(expiredBudgetIds);
+        this.toppedUpBudgetIds = List.copyOf(toppedUpBudgetIds);
+    }
+    
+    public List<Long> getExpiredBudgetIds() { return expiredBudgetIds; }
+    public List<Long> getToppedUpBudgetIds() { return toppedUpBudgetIds; }
+    
+    @Override
+    public String toString() {
+        return "BudgetsRolledOver{expired=" + expiredBudgetIds + ", toppedUp=" + toppedUpBudgetIds + "}";
+    }
+}
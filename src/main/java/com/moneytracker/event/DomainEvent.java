@@ -0,0 +1,7 @@
+package com.moneytracker.event;
+
+/**
+ * Marker for events published on the {@link EventBus}
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,318 @@
+package com.moneytracker.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe for domain events.
+ *
+ * Services publish an event once a write has been committed; caches, indexes
+ * and views subscribe to the event types they care about instead of being
+ * called from every write path. Subscribing to a type also receives its
+ * subtypes. The subscribers of each event class are resolved once and cached,
+ * so publishing costs a map lookup plus the deliveries. Each cached route
+ * records the subscription version it was resolved at; subscribing or
+ * cancelling bumps the version, so a route resolved concurrently from the old
+ * subscriber list is never served after the change.
+ *
+ * Synchronous subscribers run on the publishing thread, in subscription order.
+ * Asynchronous subscribers get a bounded queue drained in batches on an
+ * executor; when a queue is full the subscription's {@link Overflow} policy
+ * decides whether the publisher waits or the oldest event is dropped.
+ * A failing subscriber is logged and never fails the write that published.
+ */
+public class EventBus implements AutoCloseable {
+    
+    private static final long EVENT_THREAD_KEEP_ALIVE_SECONDS = 30;
+    
+    /**
+     * What an asynchronous subscription does when its queue is full
+     */
+    public enum Overflow {
+        /** Block the publisher until the subscriber catches up */
+        BLOCK,
+        /** Discard the oldest queued event; for subscribers that can resync */
+        DROP_OLDEST
+    }
+    
+    /**
+     * Handle to a subscriber, used to stop delivery
+     */
+    public interface Subscription {
+        void cancel();
+        
+        /** Events discarded because the queue was full; always 0 for synchronous subscribers */
+        long getDroppedCount();
+    }
+    
+    /**
+     * Subscribers of one event class, as of a subscription version
+     */
+    private static final class Route {
+        final long version;
+        final Subscriber[] subscribers;
+        
+        Route(long version, Subscriber[] subscribers) {
+            this.version = version;
+            this.subscribers = subscribers;
+        }
+    }
+    
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong subscriptionVersion = new AtomicLong();
+    private final Map<Class<?>, Route> routes = new ConcurrentHashMap<>();
+    private ExecutorService defaultExecutor;
+    
+    /**
+     * Deliver events of a type to a handler on the publishing thread
+     */
+    public <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> handler) {
+        return register(new SyncSubscriber<>(type, handler));
+    }
+    
+    /**
+     * Deliver events of a type in batches on the bus's own event thread
+     * @param capacity events queued before the overflow policy applies
+     * @param maxBatch largest batch handed to the handler at once
+     */
+    public <E extends DomainEvent> Subscription subscribeAsync(Class<E> type, int capacity, int maxBatch,
+                                                               Overflow overflow, Consumer<List<E>> handler) {
+        return subscribeAsync(type, defaultExecutor(), capacity, maxBatch, overflow, handler);
+    }
+    
+    /**
+     * Deliver events of a type in batches on the given executor. Batches of one
+     * subscriber never overlap and keep publication order. Do not combine
+     * {@link Overflow#BLOCK} with an executor that may run on a publishing thread,
+     * such as the JavaFX thread, or a full queue can never drain.
+     */
+    public <E extends DomainEvent> Subscription subscribeAsync(Class<E> type, Executor executor, int capacity, int maxBatch,
+                                                               Overflow overflow, Consumer<List<E>> handler) {
+        return register(new AsyncSubscriber<>(type, executor, capacity, maxBatch, overflow, handler));
+    }
+    
+    /**
+     * Deliver an event to every subscriber of its type. Call after the change it
+     * describes has been committed.
+     */
+    public void publish(DomainEvent event) {
+        for (Subscriber subscriber : route(event.getClass())) {
+            subscriber.deliver(event);
+        }
+    }
+    
+    /**
+     * Whether anyone listens for events of the given class; lets publishers skip building events
+     */
+    public boolean hasSubscribers(Class<? extends DomainEvent> eventClass) {
+        return route(eventClass).length > 0;
+    }
+    
+    /**
+     * Cancel every subscription and stop the bus's event thread
+     */
+    @Override
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.cancel();
+        }
+        synchronized (this) {
+            if (defaultExecutor != null) {
+                defaultExecutor.shutdown();
+                defaultExecutor = null;
+            }
+        }
+    }
+    
+    private Subscription register(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        subscriptionVersion.incrementAndGet();
+        return subscriber;
+    }
+    
+    private void unregister(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriptionVersion.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Cached subscribers of an event class, resolved again if subscriptions changed since
+     */
+    private Subscriber[] route(Class<?> eventClass) {
+        long version = subscriptionVersion.get();
+        Route route = routes.get(eventClass);
+        if (route == null || route.version != version) {
+            // The version is read before the list, so a change made during resolve leaves this route stale
+            route = new Route(version, resolve(eventClass));
+            routes.put(eventClass, route);
+        }
+        return route.subscribers;
+    }
+    
+    private Subscriber[] resolve(Class<?> eventClass) {
+        List<Subscriber> matching = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.type.isAssignableFrom(eventClass)) {
+                matching.add(subscriber);
+            }
+        }
+        return matching.toArray(new Subscriber[0]);
+    }
+    
+    private synchronized Executor defaultExecutor() {
+        if (defaultExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, EVENT_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "anton-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            // Buses of idle shards must not pin a thread each
+            executor.allowCoreThreadTimeOut(true);
+            defaultExecutor = executor;
+        }
+        return defaultExecutor;
+    }
+    
+    private abstract class Subscriber implements Subscription {
+        final Class<?> type;
+        
+        Subscriber(Class<?> type) {
+            this.type = type;
+        }
+        
+        abstract void deliver(DomainEvent event);
+        
+        @Override
+        public void cancel() {
+            unregister(this);
+        }
+        
+        @Override
+        public long getDroppedCount() {
+            return 0;
+        }
+    }
+    
+    private final class SyncSubscriber<E> extends Subscriber {
+        private final Class<E> eventType;
+        private final Consumer<? super E> handler;
+        
+        SyncSubscriber(Class<E> type, Consumer<? super E> handler) {
+            super(type);
+            this.eventType = type;
+            this.handler = handler;
+        }
+        
+        @Override
+        void deliver(DomainEvent event) {
+            try {
+                handler.accept(eventType.cast(event));
+            } catch (RuntimeException e) {
+                System.err.println("Event subscriber failed on " + event + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private final class AsyncSubscriber<E> extends Subscriber {
+        private final Class<E> eventType;
+        private final Executor executor;
+        private final BlockingQueue<E> queue;
+        private final int maxBatch;
+        private final Overflow overflow;
+        private final Consumer<List<E>> handler;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled;
+        
+        AsyncSubscriber(Class<E> type, Executor executor, int capacity, int maxBatch,
+                        Overflow overflow, Consumer<List<E>> handler) {
+            super(type);
+            this.eventType = type;
+            this.executor = executor;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.maxBatch = Math.max(1, maxBatch);
+            this.overflow = overflow;
+            this.handler = handler;
+        }
+        
+        @Override
+        void deliver(DomainEvent event) {
+            E typed = eventType.cast(event);
+            if (overflow == Overflow.BLOCK) {
+                try {
+                    // Every queued event has scheduled a drain, so a full queue is already being emptied;
+                    // wake up now and then only to notice cancellation
+                    while (!queue.offer(typed, 50, TimeUnit.MILLISECONDS)) {
+                        if (cancelled) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } else {
+                while (!queue.offer(typed)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+            scheduleDrain();
+        }
+        
+        private void scheduleDrain() {
+            if (!cancelled && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            List<E> batch = new ArrayList<>(Math.min(maxBatch, queue.size() + 1));
+            while (true) {
+                queue.drainTo(batch, maxBatch);
+                if (batch.isEmpty() || cancelled) {
+                    draining.set(false);
+                    // An event queued after the last drainTo but before the flag cleared would be stranded
+                    if (queue.isEmpty() || cancelled || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    handler.accept(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("Event subscriber failed on a batch of " + batch.size() + ": " + e.getMessage());
+                }
+                batch = new ArrayList<>(Math.min(maxBatch, queue.size() + 1));
+            }
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            super.cancel();
+            queue.clear();
+        }
+        
+        @Override
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * A transaction was inserted
+ */
+public class TransactionAdded extends TransactionChange {
+    
+    public TransactionAdded(Transaction transaction, BigDecimal budgetSpentAmount) {
+        super(Kind.ADDED, transaction, null, budgetSpentAmount);
+    }
+}
@@ -0,0 +1,48 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Describes the exact effect of a single transaction write so that views can
+ * patch their state instead of reloading it. Subscribe to this type for every
+ * write, or to one of its subclasses for a single kind.
+ */
+public abstract class TransactionChange implements DomainEvent {
+    
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+    
+    private final Kind kind;
+    private final Transaction transaction;
+    private final Transaction previous;
+    private final BigDecimal budgetSpentAmount;
+    
+    /**
+     * @param kind              what happened to the row
+     * @param transaction       the row after the change (the deleted row for REMOVED)
+     * @param previous          the row before the change (null for ADDED)
+     * @param budgetSpentAmount the owning budget's spent amount after the change, or null without a budget
+     */
+    protected TransactionChange(Kind kind, Transaction transaction, Transaction previous, BigDecimal budgetSpentAmount) {
+        this.kind = kind;
+        this.transaction = transaction;
+        this.previous = previous;
+        this.budgetSpentAmount = budgetSpentAmount;
+    }
+    
+    public Kind getKind() { return kind; }
+    public Transaction getTransaction() { return transaction; }
+    public Transaction getPrevious() { return previous; }
+    public BigDecimal getBudgetSpentAmount() { return budgetSpentAmount; }
+    public Long getBudgetId() { return transaction.getBudgetId(); }
+    
+    @Override
+    public String toString() {
+        return String.format("%s{kind=%s, transaction=%s, budgetSpent=%s}", getClass().getSimpleName(), kind, transaction, budgetSpentAmount);
+    }
+}
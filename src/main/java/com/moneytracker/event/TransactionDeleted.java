@@ -0,0 +1,15 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * A transaction was deleted; the event carries the deleted row
+ */
+public class TransactionDeleted extends TransactionChange {
+    
+    public TransactionDeleted(Transaction transaction, BigDecimal budgetSpentAmount) {
+        super(Kind.REMOVED, transaction, transaction, budgetSpentAmount);
+    }
+}
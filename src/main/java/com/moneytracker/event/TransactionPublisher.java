@@ -0,0 +1,256 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Transaction;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Live stream of newly added transactions, e.g. for a ticker, alerting rules
+ * or forwarding to another process.
+ *
+ * Every subscriber gets its own bounded buffer, filled on the writing thread
+ * without ever blocking: when a subscriber falls behind, its buffer overflows
+ * according to the {@link Overflow} policy and the write carries on. Buffered
+ * transactions are handed to {@code onNext} on the publisher's own threads, in
+ * order and only as far as the subscriber has requested.
+ */
+public class TransactionPublisher implements Flow.Publisher<Transaction>, AutoCloseable {
+    
+    /**
+     * What a subscriber's full buffer does with the next transaction
+     */
+    public enum Overflow {
+        /** Discard the new transaction, keeping the backlog intact */
+        DROP_NEWEST,
+        /** Discard the oldest buffered transaction, so the subscriber always sees the latest ones */
+        KEEP_LATEST
+    }
+    
+    private final EventBus eventBus;
+    private final Predicate<Transaction> filter;
+    private final int bufferSize;
+    private final Overflow overflow;
+    private final ExecutorService executor;
+    private final Set<StreamSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+    
+    /**
+     * @param filter     transactions to publish; null for all
+     * @param bufferSize transactions held per subscriber before the overflow policy applies
+     */
+    public TransactionPublisher(EventBus eventBus, Predicate<Transaction> filter, int bufferSize, Overflow overflow) {
+        this.eventBus = eventBus;
+        this.filter = filter != null ? filter : transaction -> true;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.overflow = overflow;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "anton-transaction-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Match transactions of one budget
+     */
+    public static Predicate<Transaction> forBudget(Long budgetId) {
+        return transaction -> Objects.equals(budgetId, transaction.getBudgetId());
+    }
+    
+    /**
+     * Match expenses or income only
+     */
+    public static Predicate<Transaction> ofType(Transaction.TransactionType type) {
+        return transaction -> transaction.getType() == type;
+    }
+    
+    /**
+     * Match transactions of one category
+     */
+    public static Predicate<Transaction> inCategory(Long categoryId) {
+        return transaction -> Objects.equals(categoryId, transaction.getCategoryId());
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super Transaction> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+        subscription.busSubscription = eventBus.subscribe(TransactionAdded.class, subscription::onAdded);
+        if (subscription.cancelled) {
+            // Cancelled from onSubscribe, before there was anything to unsubscribe
+            subscription.cancel();
+        }
+    }
+    
+    /**
+     * Whether {@link #close} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Number of current subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+    
+    /**
+     * Transactions discarded across all subscribers because a buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Complete every subscriber and stop publishing; undelivered transactions are discarded
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (StreamSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        executor.shutdown();
+    }
+    
+    private final class StreamSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Transaction> subscriber;
+        // Guarded by this
+        private final ArrayDeque<Transaction> buffer = new ArrayDeque<>();
+        private long demand;
+        private Throwable error;
+        private boolean completing;
+        // Non-zero while a drain is queued or running, so deliveries never overlap
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile EventBus.Subscription busSubscription;
+        
+        StreamSubscription(Flow.Subscriber<? super Transaction> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        /**
+         * Runs on the writing thread, so it only buffers
+         */
+        void onAdded(TransactionAdded event) {
+            Transaction transaction = event.getTransaction();
+            if (cancelled || !filter.test(transaction)) {
+                return;
+            }
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    dropped.incrementAndGet();
+                    if (overflow == Overflow.DROP_NEWEST) {
+                        return;
+                    }
+                    buffer.pollFirst();
+                }
+                buffer.addLast(transaction);
+            }
+            scheduleDrain();
+        }
+        
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Requested " + n + " transactions; demand must be positive");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            scheduleDrain();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            EventBus.Subscription current = busSubscription;
+            if (current != null) {
+                current.cancel();
+            }
+            subscriptions.remove(this);
+            synchronized (this) {
+                buffer.clear();
+            }
+        }
+        
+        void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+            scheduleDrain();
+        }
+        
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // The publisher was closed; run the final signals here instead
+                    drain();
+                }
+            }
+        }
+        
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                while (!cancelled) {
+                    Transaction next;
+                    Throwable failure;
+                    boolean done;
+                    synchronized (this) {
+                        failure = error;
+                        done = completing;
+                        next = failure == null && !done && demand > 0 ? buffer.pollFirst() : null;
+                        if (next != null && demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                    }
+                    if (failure != null || done) {
+                        cancel();
+                        if (failure != null) {
+                            subscriber.onError(failure);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                        break;
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(next);
+                    } catch (RuntimeException e) {
+                        System.err.println("Transaction stream subscriber failed, cancelling it: " + e.getMessage());
+                        cancel();
+                    }
+                }
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.moneytracker.event;
+
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * A transaction's amount, description, category or notes were edited
+ */
+public class TransactionUpdated extends TransactionChange {
+    
+    public TransactionUpdated(Transaction transaction, Transaction previous, BigDecimal budgetSpentAmount) {
+        super(Kind.UPDATED, transaction, previous, budgetSpentAmount);
+    }
+}
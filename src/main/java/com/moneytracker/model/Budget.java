@@ -1,7 +1,10 @@
 package com.moneytracker.model;
 
+import com.moneytracker.util.CurrencyUtil;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
@@ -35,12 +38,15 @@ public class Budget {
     private BudgetStatus status;
     private String description;
     private LocalDate lastDailyBudgetUpdate;
+    private LocalDateTime archivedAt;
+    private String currency;
     
     // Constructors
     public Budget() {
         this.spentAmount = BigDecimal.ZERO;
         this.status = BudgetStatus.ACTIVE;
         this.startDate = LocalDate.now();
+        this.currency = CurrencyUtil.DEFAULT_CURRENCY;
     }
     
     public Budget(BigDecimal totalAmount, LocalDate startDate, LocalDate endDate) {
@@ -129,6 +135,33 @@ public class Budget {
         this.lastDailyBudgetUpdate = lastDailyBudgetUpdate;
     }
     
+    /**
+     * When the budget's transactions started moving to the archive, or null while they are hot
+     */
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+    
+    public boolean isArchived() {
+        return archivedAt != null;
+    }
+    
+    /**
+     * ISO 4217 code of the currency the budget's amounts are kept in; expenses in
+     * other currencies are converted to it
+     */
+    public String getCurrency() {
+        return currency;
+    }
+    
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    
     // Business logic methods
     
     /**
@@ -0,0 +1,229 @@
+package com.moneytracker.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A transaction that repeats on a schedule, such as rent, a subscription or a
+ * utility bill. Each occurrence is materialized as an ordinary transaction.
+ */
+public class RecurringTransaction {
+    
+    public enum Frequency {
+        DAILY("Daily"),
+        WEEKLY("Weekly"),
+        MONTHLY("Monthly"),
+        YEARLY("Yearly");
+        
+        private final String displayName;
+        
+        Frequency(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    private Long id;
+    private Transaction.TransactionType type;
+    private BigDecimal amount;
+    private String description;
+    private Long categoryId;
+    private Long budgetId;
+    private String notes;
+    private Frequency frequency;
+    private int intervalCount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int occurrenceCount;
+    private boolean active;
+    
+    // Constructors
+    public RecurringTransaction() {
+        this.type = Transaction.TransactionType.EXPENSE;
+        this.frequency = Frequency.MONTHLY;
+        this.intervalCount = 1;
+        this.startDate = LocalDate.now();
+        this.active = true;
+    }
+    
+    public RecurringTransaction(Transaction.TransactionType type, BigDecimal amount, String description,
+                                Frequency frequency, LocalDate startDate) {
+        this();
+        this.type = type;
+        this.amount = amount;
+        this.description = description;
+        this.frequency = frequency;
+        this.startDate = startDate;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+    
+    public void setType(Transaction.TransactionType type) {
+        this.type = type;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    /**
+     * Budget occurrences are charged to; null to use the active budget covering each occurrence
+     */
+    public Long getBudgetId() {
+        return budgetId;
+    }
+    
+    public void setBudgetId(Long budgetId) {
+        this.budgetId = budgetId;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+    
+    public Frequency getFrequency() {
+        return frequency;
+    }
+    
+    public void setFrequency(Frequency frequency) {
+        this.frequency = frequency;
+    }
+    
+    /**
+     * Number of frequency units between occurrences, e.g. 2 with WEEKLY for fortnightly
+     */
+    public int getIntervalCount() {
+        return intervalCount;
+    }
+    
+    public void setIntervalCount(int intervalCount) {
+        this.intervalCount = intervalCount;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+    
+    /**
+     * Last day an occurrence may fall on, or null to repeat indefinitely
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+    
+    /**
+     * Number of occurrences materialized so far
+     */
+    public int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+    
+    public void setOccurrenceCount(int occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    // Utility methods
+    
+    /**
+     * Date of the given occurrence, counted from the start date. Each date is computed
+     * from the start rather than the previous occurrence, so a schedule on the 31st
+     * falls on the last day of shorter months without drifting to the 28th.
+     */
+    public LocalDate getOccurrenceDate(int occurrence) {
+        long units = (long) occurrence * intervalCount;
+        return switch (frequency) {
+            case DAILY -> startDate.plusDays(units);
+            case WEEKLY -> startDate.plusWeeks(units);
+            case MONTHLY -> startDate.plusMonths(units);
+            case YEARLY -> startDate.plusYears(units);
+        };
+    }
+    
+    /**
+     * Date of the next occurrence to materialize
+     */
+    public LocalDate getNextRunDate() {
+        return getOccurrenceDate(occurrenceCount);
+    }
+    
+    /**
+     * Whether the next occurrence still falls within the schedule
+     */
+    public boolean hasNextOccurrence() {
+        return active && (endDate == null || !getNextRunDate().isAfter(endDate));
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RecurringTransaction that = (RecurringTransaction) obj;
+        return Objects.equals(id, that.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RecurringTransaction{id=%d, type=%s, amount=%s, description='%s', every %d %s, next=%s}",
+                id, type, amount, description, intervalCount, frequency, getNextRunDate());
+    }
+}
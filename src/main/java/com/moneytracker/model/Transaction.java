@@ -32,8 +32,12 @@ public class Transaction {
     private BigDecimal amount;
     private String description;
     private String category;
+    private Long categoryId;
+    private Long budgetId;
     private LocalDateTime timestamp;
     private String notes;
+    private String currency;
+    private BigDecimal budgetAmount;
     
     // Constructors
     public Transaction() {
@@ -93,6 +97,22 @@ public class Transaction {
         this.category = category;
     }
     
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public Long getBudgetId() {
+        return budgetId;
+    }
+    
+    public void setBudgetId(Long budgetId) {
+        this.budgetId = budgetId;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -109,6 +129,29 @@ public class Transaction {
         this.notes = notes;
     }
     
+    /**
+     * ISO 4217 code of the currency the amount was paid in
+     */
+    public String getCurrency() {
+        return currency;
+    }
+    
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    
+    /**
+     * The amount in its budget's currency (rupees without a budget), converted at the
+     * rate in force when it was recorded; budget totals add these up
+     */
+    public BigDecimal getBudgetAmount() {
+        return budgetAmount;
+    }
+    
+    public void setBudgetAmount(BigDecimal budgetAmount) {
+        this.budgetAmount = budgetAmount;
+    }
+    
     // Utility methods
     public boolean isExpense() {
         return type == TransactionType.EXPENSE;
@@ -130,6 +173,7 @@ public class Transaction {
         return Objects.equals(id, that.id) &&
                type == that.type &&
                Objects.equals(amount, that.amount) &&
+               Objects.equals(currency, that.currency) &&
                Objects.equals(description, that.description) &&
                Objects.equals(category, that.category) &&
                Objects.equals(timestamp, that.timestamp);
@@ -137,12 +181,12 @@ public class Transaction {
     
     @Override
     public int hashCode() {
-        return Objects.hash(id, type, amount, description, category, timestamp);
+        return Objects.hash(id, type, amount, currency, description, category, timestamp);
     }
     
     @Override
     public String toString() {
-        return String.format("Transaction{id=%d, type=%s, amount=%s, description='%s', category='%s', timestamp=%s}",
-                id, type, amount, description, category, timestamp);
+        return String.format("Transaction{id=%d, type=%s, amount=%s %s, description='%s', category='%s', timestamp=%s}",
+                id, type, amount, currency, description, category, timestamp);
     }
 }
@@ -0,0 +1,66 @@
+package com.moneytracker.service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link BudgetService#rollOverBudgets} once at start and again whenever the
+ * date changes, so budgets expire and daily budgets are recalculated overnight
+ * without the application being restarted.
+ */
+public class BudgetRolloverJob implements AutoCloseable {
+    
+    private static final long CLOCK_CHECK_SECONDS = 60;
+    
+    private final BudgetService budgetService;
+    private ScheduledExecutorService clock;
+    private LocalDate lastRunDate;
+    
+    public BudgetRolloverJob(BudgetService budgetService) {
+        this.budgetService = budgetService;
+    }
+    
+    /**
+     * Roll over for today, then keep checking the date in the background
+     */
+    public synchronized void start() {
+        if (clock != null) {
+            return;
+        }
+        runIfDateChanged();
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "anton-budget-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clock.scheduleWithFixedDelay(this::runIfDateChanged, CLOCK_CHECK_SECONDS, CLOCK_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (clock != null) {
+            clock.shutdownNow();
+            clock = null;
+        }
+    }
+    
+    private synchronized void runIfDateChanged() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(lastRunDate)) {
+            return;
+        }
+        try {
+            BudgetService.RolloverResult result = budgetService.rollOverBudgets(today);
+            lastRunDate = today;
+            if (!result.getExpiredBudgetIds().isEmpty() || result.getRecalculatedCount() > 0) {
+                System.out.println("Budget rollover for " + today + ": " + result);
+            }
+        } catch (SQLException e) {
+            // Retried on the next clock check
+            System.err.println("Budget rollover failed: " + e.getMessage());
+        }
+    }
+}
@@ -1,45 +1,103 @@
 package com.moneytracker.service;
 
 import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.event.BudgetCompleted;
+import com.moneytracker.event.BudgetCreated;
+import com.moneytracker.event.BudgetsRolledOver;
+import com.moneytracker.event.EventBus;
 import com.moneytracker.model.Budget;
 import com.moneytracker.model.Transaction;
+import com.moneytracker.util.CurrencyUtil;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class for managing budgets in the money tracker application.
  * Provides business logic for budget creation, updates, and calculations.
+ *
+ * Any number of budgets can be active at once, e.g. separate household, travel
+ * and business envelopes running side by side.
  */
-public class BudgetService {
+public class BudgetService implements AutoCloseable {
     
     private final DatabaseManager databaseManager;
+    private final EventBus eventBus;
+    private final boolean ownsEventBus;
+    private final ExchangeRates exchangeRates;
     
     public BudgetService(DatabaseManager databaseManager) {
+        this(databaseManager, new EventBus(), true);
+    }
+    
+    /**
+     * @param eventBus bus the service publishes budget events on, usually shared with {@link TransactionService}
+     */
+    public BudgetService(DatabaseManager databaseManager, EventBus eventBus) {
+        this(databaseManager, eventBus, false);
+    }
+    
+    private BudgetService(DatabaseManager databaseManager, EventBus eventBus, boolean ownsEventBus) {
         this.databaseManager = databaseManager;
+        this.eventBus = eventBus;
+        this.ownsEventBus = ownsEventBus;
+        this.exchangeRates = ExchangeRates.forDatabase(databaseManager);
+    }
+    
+    /**
+     * Bus carrying {@link BudgetCreated} and {@link BudgetCompleted} events
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+    
+    /**
+     * Close the event bus if the service created it; one passed in is left to its owner
+     */
+    @Override
+    public void close() {
+        if (ownsEventBus) {
+            eventBus.close();
+        }
     }
     
     /**
-     * Create a new budget
+     * Create a new active budget in rupees alongside any budgets that are already active
      */
     public Budget createBudget(BigDecimal totalAmount, LocalDate startDate, LocalDate endDate, String description) throws SQLException {
-        // First, mark any existing active budgets as completed
-        completeActiveBudgets();
-        
+        return createBudget(totalAmount, CurrencyUtil.DEFAULT_CURRENCY, startDate, endDate, description);
+    }
+    
+    /**
+     * Create a new active budget kept in the given currency
+     * @param currency ISO 4217 code; rupees or a currency with exchange rates
+     */
+    public Budget createBudget(BigDecimal totalAmount, String currency, LocalDate startDate, LocalDate endDate,
+                               String description) throws SQLException {
+        currency = currency.toUpperCase();
+        if (!exchangeRates.supports(currency)) {
+            throw new IllegalArgumentException("No exchange rates for " + currency + " in " + exchangeRates.getFile());
+        }
         Budget budget = new Budget(totalAmount, startDate, endDate, description);
+        budget.setCurrency(currency);
         budget.calculateInitialDailyBudget();
         
         String sql = """
             INSERT INTO budgets (total_amount, spent_amount, daily_budget, start_date, end_date, 
-                               status, description, last_daily_budget_update) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                               status, description, last_daily_budget_update, currency) 
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
             """;
         
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setBigDecimal(1, budget.getTotalAmount());
             stmt.setBigDecimal(2, budget.getSpentAmount());
             stmt.setBigDecimal(3, budget.getDailyBudget());
@@ -48,13 +106,9 @@ public class BudgetService {
             stmt.setString(6, budget.getStatus().name());
             stmt.setString(7, budget.getDescription());
             stmt.setDate(8, budget.getLastDailyBudgetUpdate() != null ? Date.valueOf(budget.getLastDailyBudgetUpdate()) : null);
+            stmt.setString(9, budget.getCurrency());
             
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating budget failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            try (ResultSet generatedKeys = stmt.executeQuery()) {
                 if (generatedKeys.next()) {
                     budget.setId(generatedKeys.getLong(1));
                 } else {
@@ -65,15 +119,16 @@ public class BudgetService {
         
         // Create initial budget transaction
         insertBudgetTransaction(budget);
+        eventBus.publish(new BudgetCreated(budget));
         
         return budget;
     }
     
     /**
-     * Get the current active budget
+     * Get the most recently created active budget
      */
     public Optional<Budget> getCurrentBudget() throws SQLException {
-        String sql = "SELECT * FROM budgets WHERE status = 'ACTIVE' ORDER BY created_at DESC LIMIT 1";
+        String sql = "SELECT * FROM budgets WHERE status = 'ACTIVE' ORDER BY created_at DESC, id DESC LIMIT 1";
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
@@ -86,6 +141,48 @@ public class BudgetService {
         return Optional.empty();
     }
     
+    /**
+     * Get all active budgets, newest first
+     */
+    public List<Budget> getActiveBudgets() throws SQLException {
+        List<Budget> budgets = new ArrayList<>();
+        String sql = "SELECT * FROM budgets WHERE status = 'ACTIVE' ORDER BY created_at DESC, id DESC";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                budgets.add(mapResultSetToBudget(rs));
+            }
+        }
+        
+        return budgets;
+    }
+    
+    /**
+     * Pick the budget an expense on the given day belongs to. The requested budget
+     * wins while it is active; otherwise the active budget whose period covers the
+     * day and started most recently, so a short travel envelope takes precedence
+     * over the month-long household budget it overlaps.
+     *
+     * @param requestedBudgetId budget chosen by the user, or null
+     * @param date              day of the expense
+     * @return the budget to charge, or empty if no active budget covers the day
+     */
+    public Optional<Budget> routeExpense(Long requestedBudgetId, LocalDate date) throws SQLException {
+        Budget best = null;
+        for (Budget budget : getActiveBudgets()) {
+            if (budget.getId().equals(requestedBudgetId)) {
+                return Optional.of(budget);
+            }
+            boolean covers = !date.isBefore(budget.getStartDate()) && !date.isAfter(budget.getEndDate());
+            if (covers && (best == null || budget.getStartDate().isAfter(best.getStartDate()))) {
+                best = budget;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+    
     /**
      * Update budget spent amount
      */
@@ -119,6 +216,141 @@ public class BudgetService {
         }
     }
     
+    /**
+     * Daily budget maintenance as one set-based database transaction:
+     * <ul>
+     *   <li>every active budget that ended before today is marked EXPIRED;</li>
+     *   <li>its unspent balance is added to its successor, the earliest active budget
+     *       starting after it, preferring one with the same description, and recorded
+     *       as a SET_BUDGET entry;</li>
+     *   <li>every running budget not yet recalculated today, or just topped up, gets
+     *       its daily budget recomputed from what is left over the days remaining,
+     *       with a SET_DAILY_BUDGET entry wherever it changed.</li>
+     * </ul>
+     * Running it again on the same day changes nothing.
+     */
+    public RolloverResult rollOverBudgets(LocalDate today) throws SQLException {
+        Date day = Date.valueOf(today);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        // Reads the budgets before writing them; the transaction holds the write lock
+        // from the start, so a concurrent expense waits instead of being overwritten
+        RolloverResult result = databaseManager.inTransaction(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement("""
+                CREATE TEMP TABLE rollover AS
+                SELECT ended.id AS ended_id, ended.currency,
+                       MAX(ended.total_amount - COALESCE(ended.spent_amount, 0), 0) AS leftover,
+                       COALESCE(
+                           (SELECT successor.id FROM budgets successor
+                            WHERE successor.status = 'ACTIVE' AND successor.end_date >= ?
+                              AND successor.start_date > ended.start_date AND successor.currency = ended.currency
+                              AND successor.description IS ended.description
+                            ORDER BY successor.start_date, successor.id LIMIT 1),
+                           (SELECT successor.id FROM budgets successor
+                            WHERE successor.status = 'ACTIVE' AND successor.end_date >= ?
+                              AND successor.start_date > ended.start_date AND successor.currency = ended.currency
+                            ORDER BY successor.start_date, successor.id LIMIT 1)) AS successor_id
+                FROM budgets ended
+                WHERE ended.status = 'ACTIVE' AND ended.end_date < ?
+                """)) {
+                stmt.setDate(1, day);
+                stmt.setDate(2, day);
+                stmt.setDate(3, day);
+                stmt.executeUpdate();
+            }
+            
+            try (PreparedStatement stmt = connection.prepareStatement("""
+                INSERT INTO transactions (type, amount, description, budget_id, timestamp, currency, budget_amount)
+                SELECT 'SET_BUDGET', leftover, 'Rolled over from budget ' || ended_id, successor_id, ?, currency, leftover
+                FROM rollover
+                WHERE successor_id IS NOT NULL AND leftover > 0
+                """)) {
+                stmt.setTimestamp(1, now);
+                stmt.executeUpdate();
+            }
+            
+            List<Long> expiredBudgetIds = new ArrayList<>();
+            Set<Long> toppedUpBudgetIds = new LinkedHashSet<>();
+            BigDecimal rolledOverAmount = BigDecimal.ZERO;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("""
+                    UPDATE budgets
+                    SET total_amount = total_amount
+                            + (SELECT SUM(leftover) FROM rollover WHERE successor_id = budgets.id),
+                        updated_at = CURRENT_TIMESTAMP
+                    WHERE id IN (SELECT successor_id FROM rollover WHERE leftover > 0)
+                    """);
+                stmt.executeUpdate("""
+                    UPDATE budgets SET status = 'EXPIRED', updated_at = CURRENT_TIMESTAMP
+                    WHERE id IN (SELECT ended_id FROM rollover)
+                    """);
+                
+                try (ResultSet rs = stmt.executeQuery("SELECT ended_id, successor_id, leftover FROM rollover")) {
+                    while (rs.next()) {
+                        expiredBudgetIds.add(rs.getLong("ended_id"));
+                        BigDecimal leftover = rs.getBigDecimal("leftover");
+                        long successorId = rs.getLong("successor_id");
+                        if (!rs.wasNull() && leftover.signum() > 0) {
+                            toppedUpBudgetIds.add(successorId);
+                            rolledOverAmount = rolledOverAmount.add(leftover);
+                        }
+                    }
+                }
+            }
+            
+            // Remaining days include today; dates are stored as local midnights, so round away DST hours
+            try (PreparedStatement stmt = connection.prepareStatement("""
+                CREATE TEMP TABLE daily AS
+                SELECT id, currency,
+                       MAX(ROUND(CAST(total_amount - COALESCE(spent_amount, 0) AS REAL)
+                                 / (CAST(ROUND((end_date - ?) / 86400000.0) AS INTEGER) + 1), 2), 0) AS daily_budget,
+                       daily_budget AS previous_daily_budget
+                FROM budgets
+                WHERE status = 'ACTIVE' AND start_date <= ? AND end_date >= ?
+                  AND (last_daily_budget_update IS NULL OR last_daily_budget_update < ?
+                       OR id IN (SELECT successor_id FROM rollover))
+                """)) {
+                stmt.setDate(1, day);
+                stmt.setDate(2, day);
+                stmt.setDate(3, day);
+                stmt.setDate(4, day);
+                stmt.executeUpdate();
+            }
+            
+            try (PreparedStatement stmt = connection.prepareStatement("""
+                INSERT INTO transactions (type, amount, description, budget_id, timestamp, currency, budget_amount)
+                SELECT 'SET_DAILY_BUDGET', daily_budget, 'Daily budget recalculated', id, ?, currency, daily_budget
+                FROM daily
+                WHERE previous_daily_budget IS NULL OR daily_budget <> previous_daily_budget
+                """)) {
+                stmt.setTimestamp(1, now);
+                stmt.executeUpdate();
+            }
+            
+            int recalculated;
+            try (PreparedStatement stmt = connection.prepareStatement("""
+                UPDATE budgets
+                SET daily_budget = (SELECT daily_budget FROM daily WHERE daily.id = budgets.id),
+                    last_daily_budget_update = ?
+                WHERE id IN (SELECT id FROM daily)
+                """)) {
+                stmt.setDate(1, day);
+                recalculated = stmt.executeUpdate();
+            }
+            
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE temp.rollover");
+                stmt.execute("DROP TABLE temp.daily");
+            }
+            return new RolloverResult(expiredBudgetIds, List.copyOf(toppedUpBudgetIds), rolledOverAmount, recalculated);
+        });
+        
+        if (!result.getExpiredBudgetIds().isEmpty() || result.getRecalculatedCount() > 0) {
+            eventBus.publish(new BudgetsRolledOver(result.getExpiredBudgetIds(), result.getToppedUpBudgetIds()));
+        }
+        return result;
+    }
+    
     /**
      * Get budget by ID
      */
@@ -139,11 +371,21 @@ public class BudgetService {
     }
     
     /**
-     * Get all budgets ordered by creation date (newest first)
+     * Get all budgets not yet archived, ordered by creation date (newest first)
      */
     public List<Budget> getAllBudgets() throws SQLException {
+        return queryBudgets("SELECT * FROM budgets WHERE archived_at IS NULL ORDER BY created_at DESC");
+    }
+    
+    /**
+     * Get archived budgets, most recently ended first
+     */
+    public List<Budget> getArchivedBudgets() throws SQLException {
+        return queryBudgets("SELECT * FROM budgets WHERE archived_at IS NOT NULL ORDER BY end_date DESC, id DESC");
+    }
+    
+    private List<Budget> queryBudgets(String sql) throws SQLException {
         List<Budget> budgets = new ArrayList<>();
-        String sql = "SELECT * FROM budgets ORDER BY created_at DESC";
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
@@ -157,14 +399,40 @@ public class BudgetService {
     }
     
     /**
-     * Complete current active budget and mark as completed
+     * Check whether any budget exists without loading every row
+     */
+    public boolean hasAnyBudget() throws SQLException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM budgets)";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+    
+    /**
+     * Complete the current active budget, leaving other active budgets running
      */
     public void completeCurrentBudget() throws SQLException {
-        String sql = "UPDATE budgets SET status = 'COMPLETED', updated_at = CURRENT_TIMESTAMP WHERE status = 'ACTIVE'";
+        Optional<Budget> current = getCurrentBudget();
+        if (current.isPresent()) {
+            completeBudget(current.get().getId());
+        }
+    }
+    
+    /**
+     * Mark one budget as completed
+     */
+    public void completeBudget(Long budgetId) throws SQLException {
+        String sql = "UPDATE budgets SET status = 'COMPLETED', updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = 'ACTIVE'";
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.executeUpdate();
+            stmt.setLong(1, budgetId);
+            if (stmt.executeUpdate() == 0) {
+                return;
+            }
         }
+        eventBus.publish(new BudgetCompleted(budgetId));
     }
     
     /**
@@ -178,12 +446,13 @@ public class BudgetService {
         
         Budget budget = budgetOpt.get();
         
-        // Calculate total expenses for this budget
+        // Calculate total expenses for this budget, from the archive too once it is archived.
+        // Each expense was converted into the budget's currency when it was recorded
         String expenseSql = """
-            SELECT SUM(amount) as total_expenses, COUNT(*) as transaction_count 
-            FROM transactions 
+            SELECT SUM(budget_amount) as total_expenses, COUNT(*) as transaction_count 
+            FROM %s 
             WHERE budget_id = ? AND type = 'EXPENSE'
-            """;
+            """.formatted(budget.isArchived() ? DatabaseManager.TRANSACTIONS_WITH_ARCHIVE : "transactions");
         
         BigDecimal totalExpenses = BigDecimal.ZERO;
         int transactionCount = 0;
@@ -194,7 +463,8 @@ public class BudgetService {
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     BigDecimal expenses = rs.getBigDecimal("total_expenses");
-                    totalExpenses = expenses != null ? expenses : BigDecimal.ZERO;
+                    // SQLite sums decimals as doubles
+                    totalExpenses = expenses != null ? expenses.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
                     transactionCount = rs.getInt("transaction_count");
                 }
             }
@@ -207,24 +477,19 @@ public class BudgetService {
      * Private helper methods
      */
     
-    private void completeActiveBudgets() throws SQLException {
-        String sql = "UPDATE budgets SET status = 'COMPLETED' WHERE status = 'ACTIVE'";
-        
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.executeUpdate();
-        }
-    }
-    
     private void insertBudgetTransaction(Budget budget) throws SQLException {
         String sql = """
-            INSERT INTO transactions (type, amount, description, budget_id, timestamp) 
-            VALUES ('SET_BUDGET', ?, ?, ?, CURRENT_TIMESTAMP)
+            INSERT INTO transactions (type, amount, description, budget_id, timestamp, currency, budget_amount) 
+            VALUES ('SET_BUDGET', ?, ?, ?, ?, ?, ?)
             """;
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setBigDecimal(1, budget.getTotalAmount());
             stmt.setString(2, "Budget set: " + (budget.getDescription() != null ? budget.getDescription() : "New budget"));
             stmt.setLong(3, budget.getId());
+            stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setString(5, budget.getCurrency());
+            stmt.setBigDecimal(6, budget.getTotalAmount());
             stmt.executeUpdate();
         }
     }
@@ -245,9 +510,46 @@ public class BudgetService {
             budget.setLastDailyBudgetUpdate(lastUpdate.toLocalDate());
         }
         
+        budget.setCurrency(rs.getString("currency"));
+        
+        Timestamp archivedAt = rs.getTimestamp("archived_at");
+        if (archivedAt != null) {
+            budget.setArchivedAt(archivedAt.toLocalDateTime());
+        }
+        
         return budget;
     }
     
+    /**
+     * What one run of {@link #rollOverBudgets} changed
+     */
+    public static class RolloverResult {
+        private final List<Long> expiredBudgetIds;
+        private final List<Long> toppedUpBudgetIds;
+        private final BigDecimal rolledOverAmount;
+        private final int recalculatedCount;
+        
+        public RolloverResult(List<Long> expiredBudgetIds, List<Long> toppedUpBudgetIds, BigDecimal rolledOverAmount,
+                              int recalculatedCount) {
+            this.expiredBudgetIds = List.copyOf(expiredBudgetIds);
+            this.toppedUpBudgetIds = List.copyOf(toppedUpBudgetIds);
+            this.rolledOverAmount = rolledOverAmount;
+            this.recalculatedCount = recalculatedCount;
+        }
+        
+        public List<Long> getExpiredBudgetIds() { return expiredBudgetIds; }
+        /** Successors that received a leftover balance */
+        public List<Long> getToppedUpBudgetIds() { return toppedUpBudgetIds; }
+        public BigDecimal getRolledOverAmount() { return rolledOverAmount; }
+        public int getRecalculatedCount() { return recalculatedCount; }
+        
+        @Override
+        public String toString() {
+            return String.format("RolloverResult{expired=%d, rolledOver=%s into %d, recalculated=%d}",
+                expiredBudgetIds.size(), rolledOverAmount, toppedUpBudgetIds.size(), recalculatedCount);
+        }
+    }
+    
     /**
      * Inner class for budget summary data
      */
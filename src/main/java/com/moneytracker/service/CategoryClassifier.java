@@ -0,0 +1,320 @@
+package com.moneytracker.service;
+
+import com.moneytracker.database.DatabaseManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Local auto-categorizer for expense descriptions.
+ *
+ * Merchant and keyword rules are tried first. Descriptions no rule matches go
+ * to a multinomial naive-Bayes model trained on the user's categorized
+ * transactions, and anything the model is unsure about falls back to the
+ * "Other" category. The model is a handful of per-category token counts, so it
+ * can be retrained incrementally as the user categorizes entries, and many
+ * classifications can run in parallel under a shared read lock.
+ */
+public class CategoryClassifier {
+    
+    private static final String FALLBACK_CATEGORY = "Other";
+    private static final int BATCH_SIZE = 512;
+    private static final int MIN_TRAINING_EXAMPLES = 20;
+    private static final double MIN_CONFIDENCE = 0.5;
+    
+    /**
+     * Keywords and merchants mapped to the default category names
+     */
+    private static final Map<String, List<String>> DEFAULT_RULES = Map.of(
+        "Food & Dining", List.of("lunch", "dinner", "breakfast", "restaurant", "cafe", "coffee", "tea", "grocery",
+            "groceries", "swiggy", "zomato", "bigbasket", "blinkit", "zepto", "dominos", "pizza", "snacks", "milk"),
+        "Transportation", List.of("petrol", "diesel", "fuel", "uber", "ola", "rapido", "metro", "bus", "auto",
+            "taxi", "cab", "parking", "toll", "fastag"),
+        "Shopping", List.of("amazon", "flipkart", "myntra", "ajio", "clothes", "shoes", "electronics", "mall"),
+        "Entertainment", List.of("movie", "movies", "netflix", "hotstar", "spotify", "concert", "bookmyshow", "game", "games"),
+        "Bills & Utilities", List.of("electricity", "water", "internet", "broadband", "wifi", "recharge", "mobile",
+            "gas", "rent", "bill", "dth"),
+        "Healthcare", List.of("pharmacy", "medicine", "medicines", "doctor", "hospital", "clinic", "apollo", "lab", "dental"),
+        "Education", List.of("book", "books", "course", "tuition", "udemy", "coursera", "school", "college", "fees"),
+        "Travel", List.of("flight", "hotel", "train", "irctc", "makemytrip", "goibibo", "airbnb", "trip", "holiday"),
+        "Personal Care", List.of("salon", "haircut", "spa", "grooming", "cosmetics", "gym")
+    );
+    
+    private final DatabaseManager databaseManager;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Long> rules = new HashMap<>();
+    private final Map<Long, CategoryStats> model = new HashMap<>();
+    private final Map<String, Integer> vocabulary = new HashMap<>();
+    private Long fallbackCategoryId;
+    private int trainingExamples;
+    
+    public CategoryClassifier(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+    
+    /**
+     * Resolve the keyword rules and train the model from scratch on every
+     * categorized expense, in one streaming pass
+     */
+    public void train() throws SQLException {
+        Map<String, Long> categoryIds = loadCategoryIds();
+        
+        // Build the new model aside so classification keeps working meanwhile
+        Map<Long, CategoryStats> trained = new HashMap<>();
+        Map<String, Integer> trainedVocabulary = new HashMap<>();
+        int examples = 0;
+        String sql = """
+            SELECT description, category_id
+            FROM transactions
+            WHERE type = 'EXPENSE' AND category_id IS NOT NULL
+            """;
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setFetchSize(1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String[] tokens = tokenize(rs.getString("description"));
+                    if (tokens.length > 0) {
+                        trained.computeIfAbsent(rs.getLong("category_id"), id -> new CategoryStats())
+                            .add(tokens, 1, trainedVocabulary);
+                        examples++;
+                    }
+                }
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            applyRules(categoryIds);
+            model.clear();
+            model.putAll(trained);
+            vocabulary.clear();
+            vocabulary.putAll(trainedVocabulary);
+            trainingExamples = examples;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Category classifier trained on " + examples + " expenses");
+    }
+    
+    /**
+     * Resolve the keyword rules only, leaving the model untrained. Enough for
+     * short-lived callers such as the CLI, which categorize a single expense and
+     * should not pay for a scan of the whole history.
+     */
+    public void loadRules() throws SQLException {
+        Map<String, Long> categoryIds = loadCategoryIds();
+        lock.writeLock().lock();
+        try {
+            applyRules(categoryIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Add one user-categorized description to the model
+     */
+    public void learn(String description, Long categoryId) {
+        adjust(description, categoryId, 1);
+    }
+    
+    /**
+     * Remove one previously learned description, e.g. when the user recategorizes it
+     */
+    public void unlearn(String description, Long categoryId) {
+        adjust(description, categoryId, -1);
+    }
+    
+    /**
+     * Pick a category for a description
+     * @return the category ID, or null if no category fits and there is no fallback category
+     */
+    public Long classify(String description) {
+        String[] tokens = tokenize(description);
+        lock.readLock().lock();
+        try {
+            return classifyTokens(tokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Classify many descriptions, splitting them into batches that run in parallel
+     * @return category IDs in the same order as the descriptions
+     */
+    public List<Long> classifyAll(List<String> descriptions) {
+        Long[] categoryIds = new Long[descriptions.size()];
+        int batches = (descriptions.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+        IntStream.range(0, batches).parallel().forEach(batch -> {
+            int from = batch * BATCH_SIZE;
+            int to = Math.min(from + BATCH_SIZE, descriptions.size());
+            // One lock acquisition per batch rather than per description
+            lock.readLock().lock();
+            try {
+                for (int i = from; i < to; i++) {
+                    categoryIds[i] = classifyTokens(tokenize(descriptions.get(i)));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+        return Arrays.asList(categoryIds);
+    }
+    
+    private Long classifyTokens(String[] tokens) {
+        for (String token : tokens) {
+            Long ruleCategory = rules.get(token);
+            if (ruleCategory != null) {
+                return ruleCategory;
+            }
+        }
+        if (trainingExamples < MIN_TRAINING_EXAMPLES || !anyKnown(tokens)) {
+            return fallbackCategoryId;
+        }
+        
+        // Log-space posteriors with add-one smoothing; tokens never seen in training carry no signal
+        Long bestCategory = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double secondScore = Double.NEGATIVE_INFINITY;
+        int vocabularySize = Math.max(1, vocabulary.size());
+        for (Map.Entry<Long, CategoryStats> entry : model.entrySet()) {
+            CategoryStats stats = entry.getValue();
+            if (stats.examples <= 0) {
+                continue;
+            }
+            double score = Math.log((double) stats.examples / trainingExamples);
+            double denominator = Math.log(stats.tokenTotal + vocabularySize);
+            for (String token : tokens) {
+                if (vocabulary.containsKey(token)) {
+                    score += Math.log(stats.tokenCounts.getOrDefault(token, 0) + 1) - denominator;
+                }
+            }
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                bestCategory = entry.getKey();
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+        
+        // Probability of the best category against the runner-up
+        double confidence = 1 / (1 + Math.exp(secondScore - bestScore));
+        return bestCategory != null && confidence >= MIN_CONFIDENCE ? bestCategory : fallbackCategoryId;
+    }
+    
+    private Map<String, Long> loadCategoryIds() throws SQLException {
+        Map<String, Long> categoryIds = new HashMap<>();
+        try (Statement stmt = databaseManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM categories")) {
+            while (rs.next()) {
+                categoryIds.put(rs.getString("name"), rs.getLong("id"));
+            }
+        }
+        return categoryIds;
+    }
+    
+    /**
+     * Point the keyword rules at the category IDs; callers hold the write lock
+     */
+    private void applyRules(Map<String, Long> categoryIds) {
+        rules.clear();
+        DEFAULT_RULES.forEach((categoryName, keywords) -> {
+            Long categoryId = categoryIds.get(categoryName);
+            if (categoryId != null) {
+                keywords.forEach(keyword -> rules.put(keyword, categoryId));
+            }
+        });
+        fallbackCategoryId = categoryIds.get(FALLBACK_CATEGORY);
+    }
+    
+    private boolean anyKnown(String[] tokens) {
+        for (String token : tokens) {
+            if (vocabulary.containsKey(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void adjust(String description, Long categoryId, int delta) {
+        String[] tokens = tokenize(description);
+        if (categoryId == null || tokens.length == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            model.computeIfAbsent(categoryId, id -> new CategoryStats()).add(tokens, delta, vocabulary);
+            trainingExamples += delta;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Lower-case words of at least two characters, skipping pure numbers such as amounts or order IDs
+     */
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        // Hand-rolled rather than a regex split: this runs once per description in bulk imports
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        boolean allDigits = true;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            char c = i < lowerCase.length() ? lowerCase.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    allDigits = true;
+                }
+                allDigits &= Character.isDigit(c);
+            } else if (start >= 0) {
+                if (i - start >= 2 && !allDigits) {
+                    tokens.add(lowerCase.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+    
+    /**
+     * Token counts of one category; the vocabulary tracks how many categories use each token
+     */
+    private static final class CategoryStats {
+        private final Map<String, Integer> tokenCounts = new HashMap<>();
+        private int examples;
+        private long tokenTotal;
+        
+        void add(String[] tokens, int delta, Map<String, Integer> vocabulary) {
+            examples += delta;
+            for (String token : tokens) {
+                int count = tokenCounts.getOrDefault(token, 0) + delta;
+                if (count > 0) {
+                    if (!tokenCounts.containsKey(token)) {
+                        vocabulary.merge(token, 1, Integer::sum);
+                    }
+                    tokenCounts.put(token, count);
+                } else if (tokenCounts.remove(token) != null) {
+                    vocabulary.computeIfPresent(token, (t, users) -> users > 1 ? users - 1 : null);
+                }
+                tokenTotal = Math.max(0, tokenTotal + delta);
+            }
+        }
+    }
+}
@@ -62,20 +62,15 @@ public class CategoryService {
     public Category createCategory(String name, String description, String color) throws SQLException {
         Category category = new Category(name, description, color);
         
-        String sql = "INSERT INTO categories (name, description, color, is_default) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO categories (name, description, color, is_default) VALUES (?, ?, ?, ?) RETURNING id";
         
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setString(1, category.getName());
             stmt.setString(2, category.getDescription());
             stmt.setString(3, category.getColor());
             stmt.setBoolean(4, category.isDefault());
             
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating category failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            try (ResultSet generatedKeys = stmt.executeQuery()) {
                 if (generatedKeys.next()) {
                     category.setId(generatedKeys.getLong(1));
                 } else {
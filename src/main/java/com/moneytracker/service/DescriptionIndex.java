@@ -0,0 +1,192 @@
+package com.moneytracker.service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory prefix index of distinct transaction descriptions for autocomplete.
+ *
+ * Descriptions are matched case-insensitively and ranked by a recency-weighted
+ * frequency: every use adds a weight that halves for each {@link #HALF_LIFE_DAYS}
+ * of age, so both frequent and recent descriptions rank high. Each node of a
+ * depth-limited trie keeps its best-ranked descriptions precomputed, so a
+ * lookup walks at most {@link #MAX_TRIE_DEPTH} nodes and copies a short list.
+ * Longer prefixes fall back to a range scan of the sorted descriptions, which
+ * is already very selective at that length.
+ */
+public class DescriptionIndex {
+    
+    private static final int HALF_LIFE_DAYS = 30;
+    private static final int MAX_TRIE_DEPTH = 12;
+    private static final int SUGGESTIONS_PER_NODE = 8;
+    
+    private final NavigableMap<String, Entry> entries = new TreeMap<>();
+    private final Node root = new Node();
+    private final long referenceDay = LocalDate.now().toEpochDay();
+    
+    /**
+     * Record one use of a description
+     */
+    public synchronized void record(String description, LocalDateTime timestamp) {
+        String text = normalizeText(description);
+        if (text == null) {
+            return;
+        }
+        String key = text.toLowerCase(Locale.ROOT);
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(k, text));
+        entry.text = text;
+        entry.score += weight(timestamp);
+        // Scores only grow, so every node on the path can be repaired in place
+        promote(entry);
+    }
+    
+    /**
+     * Streams past description uses, e.g. from a database cursor
+     */
+    @FunctionalInterface
+    public interface UseSource {
+        void forEachUse(BiConsumer<String, LocalDateTime> consumer) throws SQLException;
+    }
+    
+    /**
+     * Rebuild the index from a stream of past uses. Scores are accumulated per
+     * description outside the lock, so lookups keep working during the scan,
+     * and each trie path is then written only once.
+     */
+    public void rebuild(UseSource source) throws SQLException {
+        Map<String, Entry> accumulated = new HashMap<>();
+        source.forEachUse((description, timestamp) -> {
+            String text = normalizeText(description);
+            if (text != null) {
+                Entry entry = accumulated.computeIfAbsent(text.toLowerCase(Locale.ROOT), k -> new Entry(k, text));
+                entry.score += weight(timestamp);
+            }
+        });
+        
+        synchronized (this) {
+            // Keep uses recorded while the scan ran; the scan may or may not have seen them
+            for (Entry live : entries.values()) {
+                accumulated.merge(live.key, live, (scanned, recorded) -> scanned.score >= recorded.score ? scanned : recorded);
+            }
+            entries.clear();
+            root.children.clear();
+            root.top.clear();
+            entries.putAll(accumulated);
+            for (Entry entry : entries.values()) {
+                promote(entry);
+            }
+        }
+    }
+    
+    /**
+     * Get up to limit descriptions starting with the prefix, best ranked first
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        List<String> suggestions = new ArrayList<>(limit);
+        String key = prefix == null ? "" : prefix.stripLeading().toLowerCase(Locale.ROOT);
+        
+        if (key.length() <= MAX_TRIE_DEPTH && limit <= SUGGESTIONS_PER_NODE) {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) {
+                for (Entry entry : node.top) {
+                    if (suggestions.size() == limit) {
+                        break;
+                    }
+                    suggestions.add(entry.text);
+                }
+            }
+            return suggestions;
+        }
+        
+        List<Entry> matches = new ArrayList<>(entries.subMap(key, true, key + Character.MAX_VALUE, false).values());
+        matches.sort((a, b) -> Double.compare(b.score, a.score));
+        for (Entry entry : matches) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(entry.text);
+        }
+        return suggestions;
+    }
+    
+    /**
+     * Number of distinct descriptions indexed
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    private void promote(Entry entry) {
+        Node node = root;
+        node.offer(entry);
+        int depth = Math.min(entry.key.length(), MAX_TRIE_DEPTH);
+        for (int i = 0; i < depth; i++) {
+            node = node.children.computeIfAbsent(entry.key.charAt(i), c -> new Node());
+            node.offer(entry);
+        }
+    }
+    
+    private double weight(LocalDateTime timestamp) {
+        long day = timestamp != null ? timestamp.toLocalDate().toEpochDay() : referenceDay;
+        return Math.pow(2, (double) (day - referenceDay) / HALF_LIFE_DAYS);
+    }
+    
+    private static String normalizeText(String description) {
+        if (description == null) {
+            return null;
+        }
+        String text = description.strip();
+        return text.isEmpty() ? null : text;
+    }
+    
+    private static final class Entry {
+        private final String key;
+        private String text;
+        private double score;
+        
+        Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+    
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> top = new ArrayList<>(SUGGESTIONS_PER_NODE + 1);
+        
+        /**
+         * Keep the entry among this node's best if it ranks high enough
+         */
+        void offer(Entry entry) {
+            int index = top.indexOf(entry);
+            if (index < 0) {
+                if (top.size() == SUGGESTIONS_PER_NODE && top.get(top.size() - 1).score >= entry.score) {
+                    return;
+                }
+                top.add(entry);
+                index = top.size() - 1;
+            }
+            // Bubble up past lower scores; the list stays sorted best first
+            while (index > 0 && top.get(index - 1).score < entry.score) {
+                top.set(index, top.get(index - 1));
+                top.set(index - 1, entry);
+                index--;
+            }
+            if (top.size() > SUGGESTIONS_PER_NODE) {
+                top.remove(top.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.moneytracker.service;
+
+import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.util.CurrencyUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily exchange rates, loaded from a CSV file next to the database and cached in
+ * memory, for converting amounts into a budget's currency.
+ *
+ * Each line gives the rupees one unit of a currency was worth on a date:
+ * <pre>
+ * # date,currency,rupees per unit
+ * 2026-10-01,USD,83.12
+ * 2026-10-01,EUR,90.45
+ * </pre>
+ * An amount is converted at the latest rate on or before its day, or the earliest
+ * rate for days before the file starts. Each currency's rates are kept as sorted
+ * arrays of days and values, so an aggregate already summed per currency and day
+ * needs one rate lookup per group rather than per transaction. The file is re-read
+ * when it changes.
+ */
+public class ExchangeRates {
+    
+    public static final String FILE_NAME = "fx_rates.csv";
+    
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long RELOAD_CHECK_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final Map<Path, ExchangeRates> SHARED = new ConcurrentHashMap<>();
+    
+    /**
+     * Rates of one currency, in rupees per unit, by day
+     */
+    private static final class RateSeries {
+        private final long[] days;
+        private final double[] rupees;
+        
+        RateSeries(TreeMap<Long, Double> rates) {
+            days = new long[rates.size()];
+            rupees = new double[rates.size()];
+            int i = 0;
+            for (Map.Entry<Long, Double> rate : rates.entrySet()) {
+                days[i] = rate.getKey();
+                rupees[i] = rate.getValue();
+                i++;
+            }
+        }
+        
+        double at(long epochDay) {
+            int index = Arrays.binarySearch(days, epochDay);
+            if (index < 0) {
+                // Latest day before, or the first day for days before the series starts
+                index = Math.max(0, -index - 2);
+            }
+            return rupees[index];
+        }
+    }
+    
+    private final Path file;
+    private volatile Map<String, RateSeries> rates = Map.of();
+    private volatile FileTime loadedModified;
+    private volatile long lastCheckNanos;
+    
+    /**
+     * Rates of the file next to the database, shared by every service using that file
+     */
+    public static ExchangeRates forDatabase(DatabaseManager databaseManager) {
+        Path file = Path.of(databaseManager.getDatabaseName()).toAbsolutePath().resolveSibling(FILE_NAME);
+        return SHARED.computeIfAbsent(file, ExchangeRates::new);
+    }
+    
+    public ExchangeRates(Path file) {
+        this.file = file;
+        reload();
+    }
+    
+    /**
+     * Day a transaction's rate is taken from: its UTC day, which queries get as
+     * timestamp / 86400000 from the stored epoch milliseconds
+     */
+    public static long dayOf(LocalDateTime timestamp) {
+        return Math.floorDiv(Timestamp.valueOf(timestamp).getTime(), MILLIS_PER_DAY);
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * Currencies amounts can be converted between: rupees and every currency in the file
+     */
+    public Set<String> getCurrencies() {
+        Set<String> currencies = new TreeSet<>(current().keySet());
+        currencies.add(CurrencyUtil.DEFAULT_CURRENCY);
+        return currencies;
+    }
+    
+    public boolean supports(String currency) {
+        return CurrencyUtil.DEFAULT_CURRENCY.equals(currency) || current().containsKey(currency);
+    }
+    
+    /**
+     * Factor converting an amount from one currency to another on a day
+     * @throws IllegalArgumentException if either currency has no rates
+     */
+    public double rate(String from, String to, long epochDay) {
+        if (from.equals(to)) {
+            return 1;
+        }
+        Map<String, RateSeries> current = current();
+        return rupeesPerUnit(series(current, from), epochDay) / rupeesPerUnit(series(current, to), epochDay);
+    }
+    
+    /**
+     * Convert a single amount, rounded to cents
+     * @throws IllegalArgumentException if either currency has no rates
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to, long epochDay) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        return amount.multiply(BigDecimal.valueOf(rate(from, to, epochDay))).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private RateSeries series(Map<String, RateSeries> current, String currency) {
+        if (CurrencyUtil.DEFAULT_CURRENCY.equals(currency)) {
+            return null;
+        }
+        RateSeries series = current.get(currency);
+        if (series == null) {
+            throw new IllegalArgumentException("No exchange rates for " + currency + " in " + file);
+        }
+        return series;
+    }
+    
+    private static double rupeesPerUnit(RateSeries series, long epochDay) {
+        return series == null ? 1 : series.at(epochDay);
+    }
+    
+    /**
+     * Rates as of now, re-reading the file if it changed since the last check
+     */
+    private Map<String, RateSeries> current() {
+        long now = System.nanoTime();
+        if (now - lastCheckNanos > RELOAD_CHECK_NANOS) {
+            lastCheckNanos = now;
+            FileTime modified = lastModified();
+            if (modified != null && !modified.equals(loadedModified)) {
+                reload();
+            }
+        }
+        return rates;
+    }
+    
+    private synchronized void reload() {
+        FileTime modified = lastModified();
+        if (modified == null) {
+            return;
+        }
+        
+        Map<String, TreeMap<Long, Double>> parsed = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    if (fields.length != 3) {
+                        throw new IllegalArgumentException("expected date,currency,rate");
+                    }
+                    long day = LocalDate.parse(fields[0].strip()).toEpochDay();
+                    String currency = fields[1].strip().toUpperCase();
+                    double rate = new BigDecimal(fields[2].strip()).doubleValue();
+                    if (rate <= 0) {
+                        throw new IllegalArgumentException("rate must be positive");
+                    }
+                    parsed.computeIfAbsent(currency, code -> new TreeMap<>()).put(day, rate);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.err.println("Skipping line " + lineNumber + " of " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            // Keep the rates already loaded
+            System.err.println("Failed to read exchange rates from " + file + ": " + e.getMessage());
+            return;
+        }
+        
+        Map<String, RateSeries> loaded = new HashMap<>();
+        for (Map.Entry<String, TreeMap<Long, Double>> currency : parsed.entrySet()) {
+            loaded.put(currency.getKey(), new RateSeries(currency.getValue()));
+        }
+        rates = Map.copyOf(loaded);
+        loadedModified = modified;
+        System.out.println("Loaded exchange rates for " + loaded.size() + " currencies from " + file);
+    }
+    
+    private FileTime lastModified() {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Failed to check exchange rates file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.moneytracker.service;
+
+import com.moneytracker.database.StorageMaintenance;
+import com.moneytracker.event.DomainEvent;
+import com.moneytracker.event.EventBus;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs storage maintenance in the background while the application is idle:
+ * archives old budgets' transactions, corrects budgets whose spent amount has
+ * drifted from their expenses, reclaims free pages, refreshes query planner
+ * statistics and checkpoints the WAL.
+ *
+ * Any domain event counts as activity. A run only starts once none has been
+ * published for the idle delay, and reclaiming stops between steps as soon as
+ * one is, so maintenance never competes with the user's writes for long.
+ */
+public class MaintenanceJob implements AutoCloseable {
+    
+    public static final Duration DEFAULT_IDLE_DELAY = Duration.ofMinutes(2);
+    public static final Duration DEFAULT_RUN_INTERVAL = Duration.ofHours(6);
+    
+    private static final long IDLE_CHECK_SECONDS = 30;
+    
+    /**
+     * What one maintenance run did
+     */
+    public static class MaintenanceReport {
+        private final TransactionArchiver.ArchiveResult archived;
+        private final int reconciledBudgets;
+        private final long reclaimedPages;
+        private final List<StorageMaintenance.StorageStats> before;
+        private final List<StorageMaintenance.StorageStats> after;
+        private final boolean interrupted;
+        private final Duration elapsed;
+        
+        public MaintenanceReport(TransactionArchiver.ArchiveResult archived, int reconciledBudgets, long reclaimedPages,
+                                 List<StorageMaintenance.StorageStats> before, List<StorageMaintenance.StorageStats> after,
+                                 boolean interrupted, Duration elapsed) {
+            this.archived = archived;
+            this.reconciledBudgets = reconciledBudgets;
+            this.reclaimedPages = reclaimedPages;
+            this.before = before;
+            this.after = after;
+            this.interrupted = interrupted;
+            this.elapsed = elapsed;
+        }
+        
+        public TransactionArchiver.ArchiveResult getArchived() { return archived; }
+        public int getReconciledBudgets() { return reconciledBudgets; }
+        public long getReclaimedPages() { return reclaimedPages; }
+        public List<StorageMaintenance.StorageStats> getBefore() { return before; }
+        public List<StorageMaintenance.StorageStats> getAfter() { return after; }
+        
+        /**
+         * Whether activity cut the run short; the next run picks up where it stopped
+         */
+        public boolean isInterrupted() { return interrupted; }
+        public Duration getElapsed() { return elapsed; }
+        
+        @Override
+        public String toString() {
+            return "MaintenanceReport{" + archived + ", reconciledBudgets=" + reconciledBudgets
+                + ", reclaimedPages=" + reclaimedPages + ", before=" + before
+                + ", after=" + after + (interrupted ? ", interrupted" : "") + ", elapsed=" + elapsed.toMillis() + "ms}";
+        }
+    }
+    
+    private final StorageMaintenance storageMaintenance;
+    private final TransactionArchiver archiver;
+    private final TransactionService transactionService;
+    private final EventBus eventBus;
+    private final Duration idleDelay;
+    private final Duration runInterval;
+    private volatile long lastActivityNanos = System.nanoTime();
+    private long lastRunNanos;
+    private boolean hasRun;
+    private EventBus.Subscription activity;
+    private ScheduledExecutorService clock;
+    
+    public MaintenanceJob(StorageMaintenance storageMaintenance, TransactionArchiver archiver,
+                          TransactionService transactionService, EventBus eventBus) {
+        this(storageMaintenance, archiver, transactionService, eventBus, DEFAULT_IDLE_DELAY, DEFAULT_RUN_INTERVAL);
+    }
+    
+    /**
+     * @param idleDelay   time without activity before a run may start
+     * @param runInterval minimum time between the starts of two runs
+     */
+    public MaintenanceJob(StorageMaintenance storageMaintenance, TransactionArchiver archiver,
+                          TransactionService transactionService, EventBus eventBus,
+                          Duration idleDelay, Duration runInterval) {
+        this.storageMaintenance = storageMaintenance;
+        this.archiver = archiver;
+        this.transactionService = transactionService;
+        this.eventBus = eventBus;
+        this.idleDelay = idleDelay;
+        this.runInterval = runInterval;
+    }
+    
+    /**
+     * Start watching for activity and checking for idle time in the background
+     */
+    public synchronized void start() {
+        if (clock != null) {
+            return;
+        }
+        lastActivityNanos = System.nanoTime();
+        activity = eventBus.subscribe(DomainEvent.class, event -> lastActivityNanos = System.nanoTime());
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "anton-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        clock.scheduleWithFixedDelay(this::runIfIdle, IDLE_CHECK_SECONDS, IDLE_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (clock != null) {
+            clock.shutdownNow();
+            clock = null;
+        }
+        if (activity != null) {
+            activity.cancel();
+            activity = null;
+        }
+    }
+    
+    /**
+     * Run maintenance now, stopping the reclaim early only if {@code interruptible}
+     * and activity is seen
+     */
+    public MaintenanceReport runNow(boolean interruptible) throws SQLException {
+        long started = System.nanoTime();
+        List<StorageMaintenance.StorageStats> before = storageMaintenance.stats();
+        TransactionArchiver.ArchiveResult archived = archiver.archive(LocalDate.now());
+        int reconciled = transactionService.reconcileSpentAmounts();
+        
+        // Only activity from here on stops the reclaim
+        long startedActivity = lastActivityNanos;
+        long reclaimed = storageMaintenance.reclaim(() -> !interruptible || lastActivityNanos == startedActivity);
+        boolean interrupted = interruptible && lastActivityNanos != startedActivity;
+        
+        storageMaintenance.optimize();
+        storageMaintenance.checkpoint();
+        return new MaintenanceReport(archived, reconciled, reclaimed, before, storageMaintenance.stats(), interrupted,
+            Duration.ofNanos(System.nanoTime() - started));
+    }
+    
+    private synchronized void runIfIdle() {
+        long now = System.nanoTime();
+        if (now - lastActivityNanos < idleDelay.toNanos()) {
+            return;
+        }
+        if (hasRun && now - lastRunNanos < runInterval.toNanos()) {
+            return;
+        }
+        try {
+            MaintenanceReport report = runNow(true);
+            if (!report.isInterrupted()) {
+                lastRunNanos = now;
+                hasRun = true;
+            }
+            System.out.println("Storage maintenance: " + report);
+        } catch (SQLException e) {
+            // Retried on the next idle check
+            System.err.println("Storage maintenance failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.moneytracker.service;
+
+import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.model.Budget;
+import com.moneytracker.model.RecurringTransaction;
+import com.moneytracker.model.Transaction;
+import com.moneytracker.util.TimingWheel;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores recurring transaction definitions (rent, subscriptions, bills) and
+ * materializes each occurrence as an ordinary transaction once its day arrives.
+ *
+ * While started, pending occurrences sit on a {@link TimingWheel} keyed by epoch
+ * day: the clock is checked every minute, and a check costs O(1) however many
+ * schedules exist, touching only the schedules actually due. Occurrences missed
+ * while the application was not running are caught up at start in one batched
+ * database transaction, together with the bookkeeping of what was inserted, so
+ * a crash can never insert an occurrence twice.
+ */
+public class RecurringTransactionService implements AutoCloseable {
+    
+    private static final int WHEEL_LEVELS = 3;
+    // 64 days per turn of the first wheel; three wheels reach over 700 years ahead
+    private static final int WHEEL_BITS = 6;
+    private static final long CLOCK_CHECK_SECONDS = 60;
+    private static final String DEFAULT_EXPENSE_CATEGORY = "Bills & Utilities";
+    
+    private final DatabaseManager databaseManager;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    // Active definitions by ID and the wheel of their next occurrences, guarded by this
+    private final Map<Long, RecurringTransaction> definitions = new HashMap<>();
+    private TimingWheel<Long> wheel;
+    private ScheduledExecutorService clock;
+    
+    public RecurringTransactionService(DatabaseManager databaseManager, TransactionService transactionService,
+                                       BudgetService budgetService) {
+        this.databaseManager = databaseManager;
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+    }
+    
+    /**
+     * Catch up on everything missed, then materialize occurrences as their days arrive
+     */
+    public synchronized void start() throws SQLException {
+        if (clock != null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        wheel = new TimingWheel<>(today.toEpochDay(), WHEEL_LEVELS, WHEEL_BITS);
+        List<Transaction> caughtUp = reload(today);
+        if (!caughtUp.isEmpty()) {
+            System.out.println("Caught up " + caughtUp.size() + " recurring transactions");
+        }
+        
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "anton-recurring");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clock.scheduleWithFixedDelay(this::tick, CLOCK_CHECK_SECONDS, CLOCK_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Stop the clock; nothing is materialized until the next start or {@link #runDue}
+     */
+    @Override
+    public synchronized void close() {
+        if (clock != null) {
+            clock.shutdownNow();
+            clock = null;
+        }
+        wheel = null;
+        definitions.clear();
+    }
+    
+    /**
+     * Materialize every occurrence due on or before the given day
+     * @return the transactions inserted
+     */
+    public synchronized List<Transaction> runDue(LocalDate today) throws SQLException {
+        if (wheel == null) {
+            return materialize(loadDefinitions("active = 1 AND next_run_date <= ?", Date.valueOf(today)), today);
+        }
+        
+        Map<Long, RecurringTransaction> due = new LinkedHashMap<>();
+        wheel.advanceTo(today.toEpochDay(), id -> {
+            RecurringTransaction definition = definitions.get(id);
+            // Deactivated or already materialized definitions leave stale timers behind; skip them
+            if (definition != null && !definition.getNextRunDate().isAfter(today)) {
+                due.putIfAbsent(id, definition);
+            }
+        });
+        try {
+            return materialize(new ArrayList<>(due.values()), today);
+        } catch (SQLException e) {
+            // Another process may have materialized some of these; start over from the database
+            reload(today);
+            throw e;
+        }
+    }
+    
+    /**
+     * Save a new definition; occurrences already due are materialized right away
+     * if the scheduler is running. An expense without a category is filed under
+     * bills and utilities.
+     */
+    public RecurringTransaction createRecurringTransaction(RecurringTransaction definition) throws SQLException {
+        if (definition.getType() != Transaction.TransactionType.EXPENSE
+                && definition.getType() != Transaction.TransactionType.INCOME) {
+            throw new IllegalArgumentException("Only expenses and income can recur");
+        }
+        if (definition.getAmount() == null || definition.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (definition.getIntervalCount() < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1");
+        }
+        if (definition.getEndDate() != null && definition.getEndDate().isBefore(definition.getStartDate())) {
+            throw new IllegalArgumentException("End date is before start date");
+        }
+        if (definition.getCategoryId() == null && definition.getType() == Transaction.TransactionType.EXPENSE) {
+            definition.setCategoryId(getCategoryIdByName(DEFAULT_EXPENSE_CATEGORY));
+        }
+        definition.setOccurrenceCount(0);
+        definition.setActive(true);
+        
+        String sql = """
+            INSERT INTO recurring_transactions (type, amount, description, category_id, budget_id, notes,
+                                                frequency, interval_count, start_date, end_date,
+                                                occurrence_count, next_run_date, active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, 1)
+            RETURNING id
+            """;
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setString(1, definition.getType().name());
+            stmt.setBigDecimal(2, definition.getAmount());
+            stmt.setString(3, definition.getDescription());
+            stmt.setObject(4, definition.getCategoryId());
+            stmt.setObject(5, definition.getBudgetId());
+            stmt.setString(6, definition.getNotes());
+            stmt.setString(7, definition.getFrequency().name());
+            stmt.setInt(8, definition.getIntervalCount());
+            stmt.setDate(9, Date.valueOf(definition.getStartDate()));
+            stmt.setDate(10, definition.getEndDate() != null ? Date.valueOf(definition.getEndDate()) : null);
+            stmt.setDate(11, Date.valueOf(definition.getNextRunDate()));
+            
+            try (ResultSet generatedKeys = stmt.executeQuery()) {
+                if (generatedKeys.next()) {
+                    definition.setId(generatedKeys.getLong(1));
+                } else {
+                    throw new SQLException("Creating recurring transaction failed, no ID obtained.");
+                }
+            }
+        }
+        
+        synchronized (this) {
+            if (wheel != null) {
+                track(definition);
+                runDue(LocalDate.now());
+            }
+        }
+        return definition;
+    }
+    
+    /**
+     * Get all active definitions, soonest occurrence first
+     */
+    public List<RecurringTransaction> getRecurringTransactions() throws SQLException {
+        return loadDefinitions("active = 1");
+    }
+    
+    /**
+     * Get a definition by ID, active or not
+     */
+    public Optional<RecurringTransaction> getRecurringTransactionById(Long id) throws SQLException {
+        List<RecurringTransaction> found = loadDefinitions("id = ?", id);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+    
+    /**
+     * Stop a definition from recurring; transactions already materialized are kept
+     */
+    public void deactivateRecurringTransaction(Long id) throws SQLException {
+        String sql = "UPDATE recurring_transactions SET active = 0 WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            stmt.executeUpdate();
+        }
+        synchronized (this) {
+            // Its timer stays on the wheel and is skipped when it fires
+            definitions.remove(id);
+        }
+    }
+    
+    private void tick() {
+        try {
+            runDue(LocalDate.now());
+        } catch (Exception e) {
+            System.err.println("Failed to materialize recurring transactions: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Rebuild the wheel from the database, materializing whatever is due
+     */
+    private List<Transaction> reload(LocalDate today) throws SQLException {
+        definitions.clear();
+        wheel = new TimingWheel<>(today.toEpochDay(), WHEEL_LEVELS, WHEEL_BITS);
+        List<RecurringTransaction> due = new ArrayList<>();
+        for (RecurringTransaction definition : loadDefinitions("active = 1")) {
+            if (definition.getNextRunDate().isAfter(today)) {
+                track(definition);
+            } else {
+                due.add(definition);
+            }
+        }
+        return materialize(due, today);
+    }
+    
+    private void track(RecurringTransaction definition) {
+        if (definition.hasNextOccurrence()) {
+            definitions.put(definition.getId(), definition);
+            wheel.schedule(definition.getNextRunDate().toEpochDay(), definition.getId());
+        }
+    }
+    
+    /**
+     * Insert every occurrence of the given definitions up to today and advance
+     * their counts, all in one database transaction
+     */
+    private List<Transaction> materialize(List<RecurringTransaction> due, LocalDate today) throws SQLException {
+        if (due.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> batch = new ArrayList<>();
+        Map<RecurringTransaction, Integer> counts = new HashMap<>();
+        Map<LocalDate, Optional<Budget>> routes = new HashMap<>();
+        for (RecurringTransaction definition : due) {
+            int count = definition.getOccurrenceCount();
+            while (isWithinSchedule(definition, count) && !definition.getOccurrenceDate(count).isAfter(today)) {
+                batch.add(toTransaction(definition, definition.getOccurrenceDate(count), routes));
+                count++;
+            }
+            counts.put(definition, count);
+        }
+        
+        String sql = """
+            UPDATE recurring_transactions
+            SET occurrence_count = ?, next_run_date = ?, active = ?
+            WHERE id = ? AND occurrence_count = ?
+            """;
+        
+        transactionService.addTransactions(batch, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (Map.Entry<RecurringTransaction, Integer> entry : counts.entrySet()) {
+                    RecurringTransaction definition = entry.getKey();
+                    int count = entry.getValue();
+                    stmt.setInt(1, count);
+                    stmt.setDate(2, Date.valueOf(definition.getOccurrenceDate(count)));
+                    stmt.setBoolean(3, isWithinSchedule(definition, count));
+                    stmt.setLong(4, definition.getId());
+                    // Matching the count we started from makes a concurrent run roll this one back
+                    stmt.setInt(5, definition.getOccurrenceCount());
+                    stmt.addBatch();
+                }
+                for (int updated : stmt.executeBatch()) {
+                    if (updated == 0) {
+                        throw new SQLException("Recurring transactions were materialized concurrently");
+                    }
+                }
+            }
+            return null;
+        });
+        
+        for (Map.Entry<RecurringTransaction, Integer> entry : counts.entrySet()) {
+            RecurringTransaction definition = entry.getKey();
+            definition.setOccurrenceCount(entry.getValue());
+            definition.setActive(isWithinSchedule(definition, entry.getValue()));
+            if (wheel != null) {
+                definitions.remove(definition.getId());
+                track(definition);
+            }
+        }
+        return batch;
+    }
+    
+    private static boolean isWithinSchedule(RecurringTransaction definition, int occurrence) {
+        return definition.getEndDate() == null || !definition.getOccurrenceDate(occurrence).isAfter(definition.getEndDate());
+    }
+    
+    /**
+     * Build one occurrence. Expenses go to the definition's budget while it is active,
+     * otherwise to the active budget covering the occurrence's day.
+     */
+    private Transaction toTransaction(RecurringTransaction definition, LocalDate date,
+                                      Map<LocalDate, Optional<Budget>> routes) throws SQLException {
+        Transaction transaction = new Transaction(definition.getType(), definition.getAmount(), definition.getDescription());
+        transaction.setCategoryId(definition.getCategoryId());
+        transaction.setNotes(definition.getNotes());
+        transaction.setTimestamp(date.atStartOfDay());
+        if (definition.getType() == Transaction.TransactionType.EXPENSE) {
+            Optional<Budget> budget = definition.getBudgetId() != null
+                ? budgetService.routeExpense(definition.getBudgetId(), date)
+                : routes.get(date);
+            if (budget == null) {
+                budget = budgetService.routeExpense(null, date);
+                routes.put(date, budget);
+            }
+            transaction.setBudgetId(budget.map(Budget::getId).orElse(null));
+        }
+        return transaction;
+    }
+    
+    private List<RecurringTransaction> loadDefinitions(String where, Object... parameters) throws SQLException {
+        String sql = "SELECT * FROM recurring_transactions WHERE " + where + " ORDER BY next_run_date, id";
+        List<RecurringTransaction> found = new ArrayList<>();
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    found.add(mapResultSetToDefinition(rs));
+                }
+            }
+        }
+        return found;
+    }
+    
+    private Long getCategoryIdByName(String name) throws SQLException {
+        String sql = "SELECT id FROM categories WHERE name = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setString(1, name);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+    
+    private RecurringTransaction mapResultSetToDefinition(ResultSet rs) throws SQLException {
+        RecurringTransaction definition = new RecurringTransaction();
+        definition.setId(rs.getLong("id"));
+        definition.setType(Transaction.TransactionType.valueOf(rs.getString("type")));
+        definition.setAmount(rs.getBigDecimal("amount"));
+        definition.setDescription(rs.getString("description"));
+        long categoryId = rs.getLong("category_id");
+        definition.setCategoryId(rs.wasNull() ? null : categoryId);
+        long budgetId = rs.getLong("budget_id");
+        definition.setBudgetId(rs.wasNull() ? null : budgetId);
+        definition.setNotes(rs.getString("notes"));
+        definition.setFrequency(RecurringTransaction.Frequency.valueOf(rs.getString("frequency")));
+        definition.setIntervalCount(rs.getInt("interval_count"));
+        definition.setStartDate(rs.getDate("start_date").toLocalDate());
+        Date endDate = rs.getDate("end_date");
+        definition.setEndDate(endDate != null ? endDate.toLocalDate() : null);
+        definition.setOccurrenceCount(rs.getInt("occurrence_count"));
+        definition.setActive(rs.getBoolean("active"));
+        return definition;
+    }
+}
@@ -0,0 +1,303 @@
+package com.moneytracker.service;
+
+import com.moneytracker.model.Budget;
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Projects end-of-period spend and the run-out date of each budget from
+ * exponentially weighted daily spending rates, overall and per category.
+ *
+ * A budget's history is replayed once, on its first forecast. After that each
+ * expense write adjusts the rates in O(1): an EWMA is linear in its inputs, so
+ * an amount added to or removed from a past day changes the rate by that amount
+ * times the day's decayed weight. Producing a forecast touches only the
+ * per-category rate state, never the transaction history.
+ */
+public class SpendForecaster {
+    
+    /**
+     * Weight of the most recent day; about a two-week memory
+     */
+    private static final double SMOOTHING = 0.15;
+    
+    /**
+     * Streams a budget's past expenses, oldest first
+     */
+    @FunctionalInterface
+    public interface ExpenseHistorySource {
+        void forEachExpense(Long budgetId, Consumer<Transaction> consumer) throws SQLException;
+    }
+    
+    private final ExpenseHistorySource history;
+    private final ToDoubleFunction<Transaction> amountOf;
+    private final Map<Long, BudgetRates> budgets = new ConcurrentHashMap<>();
+    
+    public SpendForecaster(ExpenseHistorySource history) {
+        this(history, expense -> expense.getAmount().doubleValue());
+    }
+    
+    /**
+     * @param amountOf an expense's amount in its budget's currency
+     */
+    public SpendForecaster(ExpenseHistorySource history, ToDoubleFunction<Transaction> amountOf) {
+        this.history = history;
+        this.amountOf = amountOf;
+    }
+    
+    /**
+     * Forecast a budget as of today
+     */
+    public SpendForecast getForecast(Budget budget) throws SQLException {
+        return getForecast(budget, LocalDate.now());
+    }
+    
+    /**
+     * Forecast a budget as of the given day
+     */
+    public SpendForecast getForecast(Budget budget, LocalDate today) throws SQLException {
+        BudgetRates rates = budgets.get(budget.getId());
+        if (rates == null) {
+            rates = seed(budget);
+        }
+        return rates.forecast(budget, today);
+    }
+    
+    /**
+     * Record an expense that was written to a budget
+     */
+    public void expenseAdded(Transaction expense) {
+        apply(expense, 1);
+    }
+    
+    /**
+     * Record an expense that was deleted from a budget
+     */
+    public void expenseRemoved(Transaction expense) {
+        apply(expense, -1);
+    }
+    
+    /**
+     * Record an expense whose amount or category changed
+     */
+    public void expenseUpdated(Transaction previous, Transaction updated) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(updated, 1);
+    }
+    
+    private BudgetRates seed(Budget budget) throws SQLException {
+        BudgetRates rates = new BudgetRates(budget.getStartDate().toEpochDay());
+        history.forEachExpense(budget.getId(), expense -> rates.add(expense, amountOf.applyAsDouble(expense)));
+        // Two first forecasts racing each other both replay the history; keep the one registered first
+        BudgetRates existing = budgets.putIfAbsent(budget.getId(), rates);
+        return existing != null ? existing : rates;
+    }
+    
+    private void apply(Transaction expense, int sign) {
+        if (!expense.isExpense() || expense.getBudgetId() == null) {
+            return;
+        }
+        // Budgets never forecast yet pick the write up when their history is replayed
+        BudgetRates rates = budgets.get(expense.getBudgetId());
+        if (rates != null) {
+            rates.add(expense, sign * amountOf.applyAsDouble(expense));
+        }
+    }
+    
+    private static String categoryOf(Transaction expense) {
+        return expense.getCategory() != null ? expense.getCategory() : "Uncategorized";
+    }
+    
+    /**
+     * Overall and per-category rates of one budget
+     */
+    private static final class BudgetRates {
+        private final long startDay;
+        private final DailyRate total;
+        private final Map<String, DailyRate> categories = new HashMap<>();
+        
+        BudgetRates(long startDay) {
+            this.startDay = startDay;
+            this.total = new DailyRate(startDay);
+        }
+        
+        synchronized void add(Transaction expense, double amount) {
+            long day = Math.max(startDay, expense.getTimestamp().toLocalDate().toEpochDay());
+            total.add(day, amount);
+            categories.computeIfAbsent(categoryOf(expense), name -> new DailyRate(startDay)).add(day, amount);
+        }
+        
+        synchronized SpendForecast forecast(Budget budget, LocalDate today) {
+            long todayDay = today.toEpochDay();
+            // Whole days left after today, within the budget period
+            long daysAfterToday = Math.max(0, ChronoUnit.DAYS.between(today, budget.getEndDate()));
+            BigDecimal spent = budget.getSpentAmount() != null ? budget.getSpentAmount() : BigDecimal.ZERO;
+            
+            double dailyRate = total.rateAsOf(todayDay);
+            double projectedSpend = spent.doubleValue() + projectedFutureSpend(total, todayDay, daysAfterToday);
+            
+            Map<String, BigDecimal> categoryRates = new HashMap<>();
+            Map<String, BigDecimal> categoryProjections = new HashMap<>();
+            for (Map.Entry<String, DailyRate> entry : categories.entrySet()) {
+                DailyRate rate = entry.getValue();
+                categoryRates.put(entry.getKey(), money(rate.rateAsOf(todayDay)));
+                categoryProjections.put(entry.getKey(),
+                    money(rate.totalSpent() + projectedFutureSpend(rate, todayDay, daysAfterToday)));
+            }
+            
+            LocalDate runOutDate = null;
+            double remaining = budget.getTotalAmount().doubleValue() - spent.doubleValue();
+            if (remaining <= 0) {
+                runOutDate = today;
+            } else if (dailyRate > 0) {
+                runOutDate = today.plusDays((long) Math.ceil(remaining / dailyRate));
+            }
+            
+            return new SpendForecast(budget.getId(), money(dailyRate), money(projectedSpend),
+                budget.getTotalAmount().subtract(money(projectedSpend)), runOutDate,
+                categoryRates, categoryProjections);
+        }
+        
+        /**
+         * Expected spend for the rest of today plus every remaining day at the current rate
+         */
+        private static double projectedFutureSpend(DailyRate rate, long todayDay, long daysAfterToday) {
+            double dailyRate = rate.rateAsOf(todayDay);
+            return Math.max(0, dailyRate - rate.spentOn(todayDay)) + dailyRate * daysAfterToday;
+        }
+        
+        private static BigDecimal money(double amount) {
+            return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+    
+    /**
+     * Bias-corrected EWMA of daily spend. Closed days are folded into the rate;
+     * the newest day stays open until a later day is seen, so a partial day never
+     * drags the rate down. Days without expenses count as zero.
+     */
+    private static final class DailyRate {
+        private long lastClosedDay;
+        // Weighted sum of closed days and the sum of their weights, for bias correction
+        private double rate;
+        private double weight;
+        private long openDay;
+        private double openTotal;
+        private double spent;
+        
+        DailyRate(long startDay) {
+            this.lastClosedDay = startDay - 1;
+            this.openDay = startDay;
+        }
+        
+        void add(long day, double amount) {
+            spent += amount;
+            if (day > openDay) {
+                closeOpenDay();
+                openDay = day;
+            }
+            if (day == openDay) {
+                openTotal += amount;
+            } else {
+                // A correction to a closed day: its contribution has decayed since
+                rate += SMOOTHING * Math.pow(1 - SMOOTHING, lastClosedDay - day) * amount;
+            }
+        }
+        
+        /**
+         * Smoothed spend per day over the days before the given day; with no
+         * closed days yet, today's spend so far is the best estimate
+         */
+        double rateAsOf(long today) {
+            double currentRate = rate;
+            double currentWeight = weight;
+            long closedThrough = lastClosedDay;
+            if (openDay < today) {
+                long gap = openDay - closedThrough - 1;
+                currentRate = currentRate * Math.pow(1 - SMOOTHING, gap + 1) + SMOOTHING * openTotal;
+                currentWeight = 1 - Math.pow(1 - SMOOTHING, gap + 1) * (1 - currentWeight);
+                closedThrough = openDay;
+            }
+            long idleDays = today - 1 - closedThrough;
+            if (idleDays > 0) {
+                double decay = Math.pow(1 - SMOOTHING, idleDays);
+                currentRate *= decay;
+                currentWeight = 1 - decay * (1 - currentWeight);
+            }
+            if (currentWeight <= 0) {
+                return Math.max(0, spentOn(today));
+            }
+            return Math.max(0, currentRate / currentWeight);
+        }
+        
+        double spentOn(long day) {
+            return day == openDay ? openTotal : 0;
+        }
+        
+        double totalSpent() {
+            return spent;
+        }
+        
+        private void closeOpenDay() {
+            long gap = openDay - lastClosedDay - 1;
+            double decay = Math.pow(1 - SMOOTHING, gap);
+            rate = rate * decay * (1 - SMOOTHING) + SMOOTHING * openTotal;
+            weight = SMOOTHING + (1 - SMOOTHING) * (1 - decay * (1 - weight));
+            lastClosedDay = openDay;
+            openTotal = 0;
+        }
+    }
+    
+    /**
+     * Projection of one budget's spending to the end of its period
+     */
+    public static class SpendForecast {
+        private final Long budgetId;
+        private final BigDecimal dailyRate;
+        private final BigDecimal projectedSpend;
+        private final BigDecimal projectedRemaining;
+        private final LocalDate runOutDate;
+        private final Map<String, BigDecimal> categoryDailyRates;
+        private final Map<String, BigDecimal> categoryProjectedSpend;
+        
+        public SpendForecast(Long budgetId, BigDecimal dailyRate, BigDecimal projectedSpend, BigDecimal projectedRemaining,
+                             LocalDate runOutDate, Map<String, BigDecimal> categoryDailyRates,
+                             Map<String, BigDecimal> categoryProjectedSpend) {
+            this.budgetId = budgetId;
+            this.dailyRate = dailyRate;
+            this.projectedSpend = projectedSpend;
+            this.projectedRemaining = projectedRemaining;
+            this.runOutDate = runOutDate;
+            this.categoryDailyRates = Map.copyOf(categoryDailyRates);
+            this.categoryProjectedSpend = Map.copyOf(categoryProjectedSpend);
+        }
+        
+        public Long getBudgetId() { return budgetId; }
+        public BigDecimal getDailyRate() { return dailyRate; }
+        public BigDecimal getProjectedSpend() { return projectedSpend; }
+        public BigDecimal getProjectedRemaining() { return projectedRemaining; }
+        /** Day the budget is expected to run out at the current rate, or null if spending has stopped */
+        public LocalDate getRunOutDate() { return runOutDate; }
+        public Map<String, BigDecimal> getCategoryDailyRates() { return categoryDailyRates; }
+        public Map<String, BigDecimal> getCategoryProjectedSpend() { return categoryProjectedSpend; }
+        
+        /**
+         * Whether spending at the current rate runs out before the budget period ends
+         */
+        public boolean runsOutBefore(LocalDate endDate) {
+            return runOutDate != null && runOutDate.isBefore(endDate);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.moneytracker.service;
+
+import com.moneytracker.model.Transaction;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the largest expenses of each budget incrementally.
+ * Every budget keeps a bounded, ordered set holding exactly its top K expenses
+ * for some K no larger than the capacity: writes cost O(log capacity) and the
+ * sorted view is cached between writes, so reads do not touch the database.
+ *
+ * A budget is loaded from the database on first use, and reloaded only when
+ * deletions have drained its set below the number of rows callers may ask for
+ * while further expenses remain unseen.
+ */
+public class TopExpenseTracker {
+    
+    /**
+     * Largest expenses in the budget's currency first; ties are broken by the newest
+     * ID, matching the ORDER BY of the SQL fallback so both views agree on ordering.
+     */
+    public static final Comparator<Transaction> LARGEST_FIRST =
+        Comparator.comparing(Transaction::getBudgetAmount).thenComparing(Transaction::getId).reversed();
+    
+    /**
+     * Reads a budget's largest expenses from the database
+     */
+    @FunctionalInterface
+    public interface TopExpenseLoader {
+        List<Transaction> loadTopExpenses(Long budgetId, int limit) throws SQLException;
+    }
+    
+    private final TopExpenseLoader loader;
+    private final int size;
+    private final int capacity;
+    private final Map<Long, BudgetTopExpenses> budgets = new ConcurrentHashMap<>();
+    
+    /**
+     * @param loader index-backed query used to seed and repair a budget's set
+     * @param size   number of expenses callers may ask for
+     */
+    public TopExpenseTracker(TopExpenseLoader loader, int size) {
+        this.loader = loader;
+        this.size = size;
+        // Headroom so that a few deletions do not immediately force a reload
+        this.capacity = size * 2;
+    }
+    
+    /**
+     * Number of top expenses that can be served from memory
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Get a budget's largest expenses, largest first, at most {@link #getSize()} of them
+     */
+    public List<Transaction> getTopExpenses(Long budgetId) throws SQLException {
+        return budgets.computeIfAbsent(budgetId, BudgetTopExpenses::new).top();
+    }
+    
+    /**
+     * Get a budget's single largest expense amount in the budget's currency, or zero if it has none
+     */
+    public BigDecimal getBiggestExpense(Long budgetId) throws SQLException {
+        List<Transaction> top = getTopExpenses(budgetId);
+        return top.isEmpty() ? BigDecimal.ZERO : top.get(0).getBudgetAmount();
+    }
+    
+    /**
+     * Record an expense that was written to a budget
+     */
+    public void expenseAdded(Transaction expense) {
+        BudgetTopExpenses topExpenses = tracked(expense);
+        if (topExpenses != null) {
+            topExpenses.add(expense);
+        }
+    }
+    
+    /**
+     * Record an expense that was deleted from a budget
+     */
+    public void expenseRemoved(Transaction expense) {
+        BudgetTopExpenses topExpenses = tracked(expense);
+        if (topExpenses != null) {
+            topExpenses.remove(expense);
+        }
+    }
+    
+    /**
+     * Record an expense whose amount or details changed
+     */
+    public void expenseUpdated(Transaction previous, Transaction updated) {
+        BudgetTopExpenses topExpenses = tracked(updated);
+        if (topExpenses != null) {
+            topExpenses.replace(previous, updated);
+        }
+    }
+    
+    /**
+     * Forget all tracked budgets, e.g. after rows were changed in bulk
+     */
+    public void clear() {
+        budgets.clear();
+    }
+    
+    private BudgetTopExpenses tracked(Transaction expense) {
+        if (!expense.isExpense() || expense.getBudgetId() == null) {
+            return null;
+        }
+        // Budgets nobody has read yet are loaded lazily with the write already applied
+        return budgets.get(expense.getBudgetId());
+    }
+    
+    /**
+     * Top expenses of a single budget. The held set is always the true top K,
+     * so any expense not held ranks at or below the smallest held one.
+     */
+    private class BudgetTopExpenses {
+        
+        private final Long budgetId;
+        private final TreeSet<Transaction> held = new TreeSet<>(LARGEST_FIRST);
+        private boolean loaded;
+        private boolean complete;
+        private List<Transaction> cachedTop;
+        
+        BudgetTopExpenses(Long budgetId) {
+            this.budgetId = budgetId;
+        }
+        
+        synchronized List<Transaction> top() throws SQLException {
+            if (!loaded || (!complete && held.size() < size)) {
+                reload();
+            }
+            if (cachedTop == null) {
+                List<Transaction> top = new ArrayList<>(Math.min(size, held.size()));
+                for (Transaction expense : held) {
+                    if (top.size() == size) {
+                        break;
+                    }
+                    top.add(expense);
+                }
+                cachedTop = List.copyOf(top);
+            }
+            return cachedTop;
+        }
+        
+        synchronized void add(Transaction expense) {
+            if (!loaded) {
+                return;
+            }
+            // An unseen expense could outrank a new one below the held set
+            if (!complete && !held.isEmpty() && LARGEST_FIRST.compare(expense, held.last()) > 0) {
+                return;
+            }
+            held.add(expense);
+            if (held.size() > capacity) {
+                held.pollLast();
+                complete = false;
+            }
+            cachedTop = null;
+        }
+        
+        synchronized void remove(Transaction expense) {
+            if (loaded && held.remove(expense)) {
+                cachedTop = null;
+            }
+        }
+        
+        synchronized void replace(Transaction previous, Transaction updated) {
+            if (previous != null) {
+                remove(previous);
+            }
+            add(updated);
+        }
+        
+        private void reload() throws SQLException {
+            List<Transaction> expenses = loader.loadTopExpenses(budgetId, capacity);
+            held.clear();
+            held.addAll(expenses);
+            complete = expenses.size() < capacity;
+            loaded = true;
+            cachedTop = null;
+        }
+    }
+}
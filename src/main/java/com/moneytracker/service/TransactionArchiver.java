@@ -0,0 +1,127 @@
+package com.moneytracker.service;
+
+import com.moneytracker.database.DatabaseManager;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the transactions of budgets that ended a while ago out of the hot
+ * transactions table into the attached archive database, so the hot table and
+ * its indexes only carry recent history.
+ *
+ * A budget is marked archived before its rows start moving; from then on its
+ * queries read the hot table and the archive together, so they stay complete
+ * while the rows move batch by batch, and after an interrupted run, which the
+ * next run finishes.
+ */
+public class TransactionArchiver {
+    
+    public static final int DEFAULT_ARCHIVE_AFTER_DAYS = 30;
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+    
+    /**
+     * What one {@link #archive} moved
+     */
+    public static class ArchiveResult {
+        private final int budgetCount;
+        private final int transactionCount;
+        
+        public ArchiveResult(int budgetCount, int transactionCount) {
+            this.budgetCount = budgetCount;
+            this.transactionCount = transactionCount;
+        }
+        
+        public int getBudgetCount() { return budgetCount; }
+        public int getTransactionCount() { return transactionCount; }
+        
+        @Override
+        public String toString() {
+            return "ArchiveResult{budgets=" + budgetCount + ", transactions=" + transactionCount + "}";
+        }
+    }
+    
+    private final DatabaseManager databaseManager;
+    private final TransactionService transactionService;
+    private final int archiveAfterDays;
+    private final int batchSize;
+    
+    public TransactionArchiver(DatabaseManager databaseManager, TransactionService transactionService) {
+        this(databaseManager, transactionService, DEFAULT_ARCHIVE_AFTER_DAYS, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * @param archiveAfterDays days after its end date a completed or expired budget is archived
+     * @param batchSize        transactions moved per database transaction
+     */
+    public TransactionArchiver(DatabaseManager databaseManager, TransactionService transactionService,
+                               int archiveAfterDays, int batchSize) {
+        this.databaseManager = databaseManager;
+        this.transactionService = transactionService;
+        this.archiveAfterDays = Math.max(0, archiveAfterDays);
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    /**
+     * Archive every completed or expired budget that ended more than the configured
+     * number of days before today, along with any budget a previous run left unfinished
+     */
+    public ArchiveResult archive(LocalDate today) throws SQLException {
+        List<Long> budgetIds = findBudgetsToArchive(today.minusDays(archiveAfterDays));
+        int moved = 0;
+        for (Long budgetId : budgetIds) {
+            markArchived(budgetId);
+            int batch;
+            do {
+                batch = transactionService.archiveTransactions(budgetId, batchSize);
+                moved += batch;
+            } while (batch == batchSize);
+        }
+        
+        ArchiveResult result = new ArchiveResult(budgetIds.size(), moved);
+        if (!budgetIds.isEmpty()) {
+            System.out.println("Archived " + moved + " transactions of " + budgetIds.size() + " budgets");
+        }
+        return result;
+    }
+    
+    private List<Long> findBudgetsToArchive(LocalDate endedBefore) throws SQLException {
+        List<Long> budgetIds = new ArrayList<>();
+        String sql = """
+            SELECT b.id FROM budgets b
+            WHERE b.status IN ('COMPLETED', 'EXPIRED') AND b.end_date < ?
+              AND (b.archived_at IS NULL
+                   OR EXISTS (SELECT 1 FROM main.transactions t WHERE t.budget_id = b.id))
+            ORDER BY b.end_date, b.id
+            """;
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(endedBefore));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    budgetIds.add(rs.getLong(1));
+                }
+            }
+        }
+        
+        return budgetIds;
+    }
+    
+    private void markArchived(Long budgetId) throws SQLException {
+        String sql = "UPDATE budgets SET archived_at = COALESCE(archived_at, ?) WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(2, budgetId);
+            stmt.executeUpdate();
+        }
+    }
+}
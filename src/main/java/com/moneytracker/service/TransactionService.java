@@ -1,99 +1,249 @@
 package com.moneytracker.service;
 
 import com.moneytracker.database.DatabaseManager;
+import com.moneytracker.event.EventBus;
+import com.moneytracker.event.TransactionAdded;
+import com.moneytracker.event.TransactionChange;
+import com.moneytracker.event.TransactionDeleted;
+import com.moneytracker.event.TransactionPublisher;
+import com.moneytracker.event.TransactionUpdated;
+import com.moneytracker.model.Budget;
 import com.moneytracker.model.Category;
 import com.moneytracker.model.Transaction;
+import com.moneytracker.util.CurrencyUtil;
+import com.moneytracker.util.StripedLock;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing transactions in the money tracker application.
  * Provides business logic for transaction creation, updates, and analysis.
+ *
+ * Writes are serialized per budget through striped locks rather than globally:
+ * a budget's spent amount and in-memory trackers are adjusted by each write's
+ * delta while its lock is held, so writes to different budgets run in parallel.
+ * The delta commits in the same database transaction as the row it accounts for.
+ *
+ * A transaction may be in any currency with exchange rates. It is converted into
+ * its budget's currency once, when recorded, and budget totals add up that stored
+ * amount, so later changes to the rates never put them out of step.
  */
-public class TransactionService {
+public class TransactionService implements AutoCloseable {
+    
+    private static final int TOP_EXPENSE_COUNT = 10;
+    private static final int BUDGET_LOCK_STRIPES = 64;
+    private static final int DESCRIPTION_QUEUE_CAPACITY = 1024;
+    private static final int DESCRIPTION_BATCH_SIZE = 64;
     
     private final DatabaseManager databaseManager;
+    private final EventBus eventBus;
+    private final boolean ownsEventBus;
+    private final EventBus.Subscription descriptionFeed;
+    private final Set<TransactionPublisher> publishers = ConcurrentHashMap.newKeySet();
+    private final TopExpenseTracker topExpenses;
+    private final DescriptionIndex descriptionIndex = new DescriptionIndex();
+    private final CategoryClassifier categoryClassifier;
+    private final SpendForecaster spendForecaster;
+    private final StripedLock budgetLocks = new StripedLock(BUDGET_LOCK_STRIPES);
+    private final ExchangeRates exchangeRates;
+    /** Budgets' currencies, which never change once a budget is created */
+    private final Map<Long, String> budgetCurrencies = new ConcurrentHashMap<>();
     
     public TransactionService(DatabaseManager databaseManager) {
+        this(databaseManager, new EventBus(), true);
+    }
+    
+    /**
+     * @param eventBus bus the service publishes its transaction events on, usually shared with {@link BudgetService}
+     */
+    public TransactionService(DatabaseManager databaseManager, EventBus eventBus) {
+        this(databaseManager, eventBus, false);
+    }
+    
+    private TransactionService(DatabaseManager databaseManager, EventBus eventBus, boolean ownsEventBus) {
         this.databaseManager = databaseManager;
+        this.eventBus = eventBus;
+        this.ownsEventBus = ownsEventBus;
+        this.topExpenses = new TopExpenseTracker(this::queryTopExpenses, TOP_EXPENSE_COUNT);
+        this.categoryClassifier = new CategoryClassifier(databaseManager);
+        this.exchangeRates = ExchangeRates.forDatabase(databaseManager);
+        this.spendForecaster = new SpendForecaster(this::forEachBudgetExpense, this::budgetAmountOf);
+        // Autocomplete can lag a write by a moment, so the index is fed off the writing thread
+        this.descriptionFeed = eventBus.subscribeAsync(TransactionChange.class, DESCRIPTION_QUEUE_CAPACITY, DESCRIPTION_BATCH_SIZE,
+            EventBus.Overflow.BLOCK, this::recordDescriptions);
+    }
+    
+    /**
+     * Bus carrying a {@link TransactionChange} for every successful write
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+    
+    /**
+     * Stream transactions as they are added, e.g.
+     * {@code streamTransactions(TransactionPublisher.forBudget(id).and(TransactionPublisher.ofType(EXPENSE)), 256, KEEP_LATEST)}.
+     * Close the publisher when done with it.
+     * @param filter     transactions to publish; null for all
+     * @param bufferSize transactions held per subscriber that has fallen behind
+     */
+    public TransactionPublisher streamTransactions(Predicate<Transaction> filter, int bufferSize,
+                                                   TransactionPublisher.Overflow overflow) {
+        TransactionPublisher publisher = new TransactionPublisher(eventBus, filter, bufferSize, overflow);
+        publishers.removeIf(TransactionPublisher::isClosed);
+        publishers.add(publisher);
+        return publisher;
     }
     
     /**
-     * Add a new expense transaction
+     * Close the publishers still streaming and stop feeding the autocomplete index;
+     * the event bus is closed too unless it was passed in
+     */
+    @Override
+    public void close() {
+        for (TransactionPublisher publisher : publishers) {
+            publisher.close();
+        }
+        publishers.clear();
+        descriptionFeed.cancel();
+        if (ownsEventBus) {
+            eventBus.close();
+        }
+    }
+    
+    /**
+     * Add a new expense transaction in its budget's currency. A null category is filled
+     * in by the auto-categorizer; an explicit category is learned from.
      */
     public Transaction addExpense(BigDecimal amount, String description, Long categoryId, String notes, Long budgetId) throws SQLException {
+        return addExpense(amount, null, description, categoryId, notes, budgetId);
+    }
+    
+    /**
+     * Add a new expense transaction in the given currency
+     * @param currency ISO 4217 code; null for the budget's currency
+     * @throws IllegalArgumentException if the currency has no exchange rates
+     */
+    public Transaction addExpense(BigDecimal amount, String currency, String description, Long categoryId,
+                                  String notes, Long budgetId) throws SQLException {
+        currency = currency != null ? currency.toUpperCase() : budgetCurrency(budgetId);
+        
+        boolean chosenByUser = categoryId != null;
+        if (!chosenByUser) {
+            categoryId = categoryClassifier.classify(description);
+        }
+        
         Transaction transaction = new Transaction(Transaction.TransactionType.EXPENSE, amount, description);
         transaction.setNotes(notes);
+        transaction.setCategoryId(categoryId);
+        transaction.setBudgetId(budgetId);
+        transaction.setCurrency(currency);
+        convertToBudgetCurrency(transaction);
         
         String sql = """
-            INSERT INTO transactions (type, amount, description, category_id, notes, timestamp, budget_id) 
-            VALUES (?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO transactions (type, amount, description, category_id, notes, timestamp, budget_id, currency,
+                                      budget_amount) 
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
             """;
         
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, transaction.getType().name());
-            stmt.setBigDecimal(2, transaction.getAmount());
-            stmt.setString(3, transaction.getDescription());
-            stmt.setObject(4, categoryId);
-            stmt.setString(5, transaction.getNotes());
-            stmt.setTimestamp(6, Timestamp.valueOf(transaction.getTimestamp()));
-            stmt.setObject(7, budgetId);
-            
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating transaction failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    transaction.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating transaction failed, no ID obtained.");
+        transaction.setCategory(getCategoryName(categoryId));
+        
+        BigDecimal spentAmount;
+        Lock budgetLock = budgetLocks.forKey(budgetId);
+        budgetLock.lock();
+        try {
+            // The row and its delta commit together, so spent_amount cannot miss a row
+            databaseManager.inTransaction(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setString(1, transaction.getType().name());
+                    stmt.setBigDecimal(2, transaction.getAmount());
+                    stmt.setString(3, transaction.getDescription());
+                    stmt.setObject(4, transaction.getCategoryId());
+                    stmt.setString(5, transaction.getNotes());
+                    stmt.setTimestamp(6, Timestamp.valueOf(transaction.getTimestamp()));
+                    stmt.setObject(7, budgetId);
+                    stmt.setString(8, transaction.getCurrency());
+                    stmt.setBigDecimal(9, transaction.getBudgetAmount());
+                    
+                    // RETURNING reads the ID within the insert itself, whichever connection runs it
+                    try (ResultSet generatedKeys = stmt.executeQuery()) {
+                        if (generatedKeys.next()) {
+                            transaction.setId(generatedKeys.getLong(1));
+                        } else {
+                            throw new SQLException("Creating transaction failed, no ID obtained.");
+                        }
+                    }
                 }
-            }
+                addToSpentAmount(connection, budgetId, budgetAmount(transaction));
+                return null;
+            });
+            
+            spentAmount = spentAmountOf(budgetId);
+            topExpenses.expenseAdded(transaction);
+            spendForecaster.expenseAdded(transaction);
+        } finally {
+            budgetLock.unlock();
         }
         
-        // Update budget spent amount if applicable
-        if (budgetId != null) {
-            updateBudgetSpentAmount(budgetId);
+        if (chosenByUser) {
+            categoryClassifier.learn(description, categoryId);
         }
+        eventBus.publish(new TransactionAdded(transaction, spentAmount));
         
         return transaction;
     }
     
     /**
-     * Add income transaction
+     * Add income transaction in rupees
      */
     public Transaction addIncome(BigDecimal amount, String description, String notes) throws SQLException {
+        return addIncome(amount, CurrencyUtil.DEFAULT_CURRENCY, description, notes);
+    }
+    
+    /**
+     * Add income transaction in the given currency
+     * @throws IllegalArgumentException if the currency has no exchange rates
+     */
+    public Transaction addIncome(BigDecimal amount, String currency, String description, String notes) throws SQLException {
         Transaction transaction = new Transaction(Transaction.TransactionType.INCOME, amount, description);
         transaction.setNotes(notes);
+        transaction.setCurrency(currency.toUpperCase());
+        convertToBudgetCurrency(transaction);
         
         String sql = """
-            INSERT INTO transactions (type, amount, description, notes, timestamp) 
-            VALUES (?, ?, ?, ?, ?)
+            INSERT INTO transactions (type, amount, description, notes, timestamp, currency, budget_amount) 
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
             """;
         
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setString(1, transaction.getType().name());
             stmt.setBigDecimal(2, transaction.getAmount());
             stmt.setString(3, transaction.getDescription());
             stmt.setString(4, transaction.getNotes());
             stmt.setTimestamp(5, Timestamp.valueOf(transaction.getTimestamp()));
+            stmt.setString(6, transaction.getCurrency());
+            stmt.setBigDecimal(7, transaction.getBudgetAmount());
             
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating transaction failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            try (ResultSet generatedKeys = stmt.executeQuery()) {
                 if (generatedKeys.next()) {
                     transaction.setId(generatedKeys.getLong(1));
                 } else {
@@ -102,9 +252,99 @@ public class TransactionService {
             }
         }
         
+        eventBus.publish(new TransactionAdded(transaction, null));
+        
         return transaction;
     }
     
+    /**
+     * Insert many transactions as one database transaction, e.g. recurring transactions
+     * caught up after downtime. Each budget's spent amount is adjusted once by the batch
+     * total, and an added event is published per transaction after the commit.
+     * Transactions without a currency are taken to be in their budget's currency.
+     * @param sameTransaction further work committed or rolled back together with the
+     *                        inserts, e.g. recording what was inserted; may be null
+     * @return the transactions, with their IDs set
+     */
+    public List<Transaction> addTransactions(List<Transaction> transactions,
+                                             DatabaseManager.TransactionWork<?> sameTransaction) throws SQLException {
+        Map<Long, BigDecimal> budgetDeltas = new HashMap<>();
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getCurrency() == null) {
+                transaction.setCurrency(budgetCurrency(transaction.getBudgetId()));
+            }
+            convertToBudgetCurrency(transaction);
+            if (transaction.getBudgetId() != null) {
+                budgetDeltas.merge(transaction.getBudgetId(), budgetAmount(transaction), BigDecimal::add);
+            }
+            Long categoryId = transaction.getCategoryId();
+            if (categoryId != null && !categoryNames.containsKey(categoryId)) {
+                categoryNames.put(categoryId, getCategoryName(categoryId));
+            }
+            transaction.setCategory(categoryNames.get(categoryId));
+        }
+        
+        String sql = """
+            INSERT INTO transactions (type, amount, description, category_id, notes, timestamp, budget_id, currency,
+                                      budget_amount)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
+            """;
+        
+        Map<Long, BigDecimal> spentAmounts = new HashMap<>();
+        List<Lock> locks = budgetLocks.forKeys(budgetDeltas.keySet());
+        locks.forEach(Lock::lock);
+        try {
+            databaseManager.inTransaction(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (Transaction transaction : transactions) {
+                        stmt.setString(1, transaction.getType().name());
+                        stmt.setBigDecimal(2, transaction.getAmount());
+                        stmt.setString(3, transaction.getDescription());
+                        stmt.setObject(4, transaction.getCategoryId());
+                        stmt.setString(5, transaction.getNotes());
+                        stmt.setTimestamp(6, Timestamp.valueOf(transaction.getTimestamp()));
+                        stmt.setObject(7, transaction.getBudgetId());
+                        stmt.setString(8, transaction.getCurrency());
+                        stmt.setBigDecimal(9, transaction.getBudgetAmount());
+                        
+                        try (ResultSet generatedKeys = stmt.executeQuery()) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Creating transaction failed, no ID obtained.");
+                            }
+                            transaction.setId(generatedKeys.getLong(1));
+                        }
+                    }
+                }
+                for (Map.Entry<Long, BigDecimal> delta : budgetDeltas.entrySet()) {
+                    addToSpentAmount(connection, delta.getKey(), delta.getValue());
+                }
+                if (sameTransaction != null) {
+                    sameTransaction.run(connection);
+                }
+                return null;
+            });
+            
+            for (Long budgetId : budgetDeltas.keySet()) {
+                spentAmounts.put(budgetId, getBudgetSpentAmount(budgetId));
+            }
+            for (Transaction transaction : transactions) {
+                topExpenses.expenseAdded(transaction);
+                spendForecaster.expenseAdded(transaction);
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+        
+        for (Transaction transaction : transactions) {
+            eventBus.publish(new TransactionAdded(transaction, spentAmounts.get(transaction.getBudgetId())));
+        }
+        return transactions;
+    }
+    
     /**
      * Get all transactions for a specific budget
      */
@@ -112,14 +352,76 @@ public class TransactionService {
         List<Transaction> transactions = new ArrayList<>();
         String sql = """
             SELECT t.*, c.name as category_name 
-            FROM transactions t 
+            FROM %s t 
             LEFT JOIN categories c ON t.category_id = c.id 
             WHERE t.budget_id = ? 
             ORDER BY t.timestamp DESC
-            """;
+            """.formatted(transactionsOf(budgetId));
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Transaction transaction = mapResultSetToTransaction(rs);
+                    transaction.setCategory(rs.getString("category_name"));
+                    transactions.add(transaction);
+                }
+            }
+        }
+        
+        return transactions;
+    }
+    
+    /**
+     * Count the transactions belonging to a budget
+     */
+    public int countTransactionsByBudget(Long budgetId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM %s WHERE budget_id = ?".formatted(transactionsOf(budgetId));
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Get one page of a budget's transactions, newest first.
+     * When the last row of the previous page is known the page is found by seeking
+     * on (timestamp, id) through the index instead of skipping offset rows.
+     */
+    public List<Transaction> getTransactionsPage(Long budgetId, int offset, int limit, Transaction previousRow) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        boolean seek = previousRow != null && previousRow.getId() != null && previousRow.getTimestamp() != null;
+        String sql = (seek ? """
+            SELECT t.*, c.name as category_name
+            FROM %s t
+            LEFT JOIN categories c ON t.category_id = c.id
+            WHERE t.budget_id = ? AND (t.timestamp, t.id) < (?, ?)
+            ORDER BY t.timestamp DESC, t.id DESC
+            LIMIT ?
+            """ : """
+            SELECT t.*, c.name as category_name
+            FROM %s t
+            LEFT JOIN categories c ON t.category_id = c.id
+            WHERE t.budget_id = ?
+            ORDER BY t.timestamp DESC, t.id DESC
+            LIMIT ? OFFSET ?
+            """).formatted(transactionsOf(budgetId));
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setLong(1, budgetId);
+            if (seek) {
+                stmt.setTimestamp(2, Timestamp.valueOf(previousRow.getTimestamp()));
+                stmt.setLong(3, previousRow.getId());
+                stmt.setInt(4, limit);
+            } else {
+                stmt.setInt(2, limit);
+                stmt.setInt(3, offset);
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -133,6 +435,186 @@ public class TransactionService {
         return transactions;
     }
     
+    /**
+     * Get the largest single expense in a budget, served from the incrementally
+     * maintained top expenses rather than a scan
+     */
+    public BigDecimal getBiggestExpense(Long budgetId) throws SQLException {
+        return topExpenses.getBiggestExpense(budgetId);
+    }
+    
+    /**
+     * Get a budget's largest expenses, largest first
+     */
+    public List<Transaction> getTopExpenses(Long budgetId, int limit) throws SQLException {
+        if (limit > topExpenses.getSize()) {
+            return queryTopExpenses(budgetId, limit);
+        }
+        List<Transaction> top = topExpenses.getTopExpenses(budgetId);
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+    
+    /**
+     * Search transaction descriptions and notes through the FTS5 index, best matches first.
+     * Every word of the query must match, each as a prefix, so partial input finds results
+     * while the user is still typing. Budget and date filters are optional; the archive's
+     * index is searched too when the budget is archived or the dates reach back into it.
+     *
+     * @param query     free text entered by the user
+     * @param budgetId  restrict to one budget, or null for all
+     * @param startDate first day to include, or null
+     * @param endDate   last day to include, or null
+     * @param limit     maximum number of results
+     */
+    public List<Transaction> searchTransactions(String query, Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                int limit) throws SQLException {
+        String matchQuery = toMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
+        
+        List<RankedTransaction> matches = searchIn("main", matchQuery, budgetId, startDate, endDate, limit);
+        boolean archiveNeeded = budgetId != null
+            ? transactionsOf(budgetId).equals(DatabaseManager.TRANSACTIONS_WITH_ARCHIVE)
+            : archiveReaches(startDate);
+        if (archiveNeeded) {
+            // A row caught in both by an interrupted archive move is only listed once
+            Set<Long> hotIds = new HashSet<>();
+            for (RankedTransaction match : matches) {
+                hotIds.add(match.transaction.getId());
+            }
+            for (RankedTransaction match : searchIn("archive", matchQuery, budgetId, startDate, endDate, limit)) {
+                if (!hotIds.contains(match.transaction.getId())) {
+                    matches.add(match);
+                }
+            }
+            matches.sort(Comparator.comparingDouble((RankedTransaction match) -> match.rank)
+                .thenComparing(match -> match.transaction.getTimestamp(), Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(match -> match.transaction.getId(), Comparator.reverseOrder()));
+        }
+        
+        List<Transaction> transactions = new ArrayList<>();
+        for (RankedTransaction match : matches.subList(0, Math.min(limit, matches.size()))) {
+            transactions.add(match.transaction);
+        }
+        return transactions;
+    }
+    
+    /**
+     * Run a search against the hot ("main") or the archive database's index
+     */
+    private List<RankedTransaction> searchIn(String schema, String matchQuery, Long budgetId, LocalDate startDate,
+                                             LocalDate endDate, int limit) throws SQLException {
+        List<RankedTransaction> matches = new ArrayList<>();
+        
+        // Descriptions are weighted above notes; ties fall back to the newest first
+        StringBuilder sql = new StringBuilder("""
+            SELECT t.*, c.name as category_name, bm25(transactions_fts, 4.0, 1.0) as rank 
+            FROM %1$s.transactions_fts 
+            JOIN %1$s.transactions t ON t.id = transactions_fts.rowid 
+            LEFT JOIN categories c ON t.category_id = c.id 
+            WHERE transactions_fts MATCH ? 
+            """.formatted(schema));
+        if (budgetId != null) {
+            sql.append("AND t.budget_id = ? ");
+        }
+        if (startDate != null) {
+            sql.append("AND t.timestamp >= ? ");
+        }
+        if (endDate != null) {
+            sql.append("AND t.timestamp < ? ");
+        }
+        sql.append("ORDER BY rank, t.timestamp DESC, t.id DESC LIMIT ?");
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql.toString())) {
+            int parameter = 1;
+            stmt.setString(parameter++, matchQuery);
+            if (budgetId != null) {
+                stmt.setLong(parameter++, budgetId);
+            }
+            if (startDate != null) {
+                stmt.setTimestamp(parameter++, Timestamp.valueOf(startDate.atStartOfDay()));
+            }
+            if (endDate != null) {
+                stmt.setTimestamp(parameter++, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            }
+            stmt.setInt(parameter, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Transaction transaction = mapResultSetToTransaction(rs);
+                    transaction.setCategory(rs.getString("category_name"));
+                    matches.add(new RankedTransaction(transaction, rs.getDouble("rank")));
+                }
+            }
+        }
+        
+        return matches;
+    }
+    
+    /**
+     * Build the description autocomplete index with one streaming pass over past expenses
+     */
+    public void buildDescriptionIndex() throws SQLException {
+        String sql = "SELECT description, timestamp FROM transactions WHERE type = 'EXPENSE'";
+        
+        descriptionIndex.rebuild(consumer -> {
+            try (Statement stmt = databaseManager.getConnection().createStatement()) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        Timestamp timestamp = rs.getTimestamp("timestamp");
+                        consumer.accept(rs.getString("description"), timestamp != null ? timestamp.toLocalDateTime() : null);
+                    }
+                }
+            }
+        });
+        System.out.println("Description index built: " + descriptionIndex.size() + " distinct descriptions");
+    }
+    
+    /**
+     * Project a budget's end-of-period spend and run-out date. The budget's history is
+     * read once; later calls are answered from incrementally maintained rates.
+     */
+    public SpendForecaster.SpendForecast getSpendForecast(Budget budget) throws SQLException {
+        return spendForecaster.getForecast(budget);
+    }
+    
+    /**
+     * Train the auto-categorizer on all categorized expenses
+     */
+    public void trainCategoryClassifier() throws SQLException {
+        categoryClassifier.train();
+    }
+    
+    /**
+     * Load only the auto-categorizer's keyword rules, for short-lived callers
+     */
+    public void loadCategoryRules() throws SQLException {
+        categoryClassifier.loadRules();
+    }
+    
+    /**
+     * Suggest a category for an expense description
+     */
+    public Long classifyCategory(String description) {
+        return categoryClassifier.classify(description);
+    }
+    
+    /**
+     * Suggest categories for many descriptions at once, e.g. for an import; runs in parallel batches
+     */
+    public List<Long> classifyCategories(List<String> descriptions) {
+        return categoryClassifier.classifyAll(descriptions);
+    }
+    
+    /**
+     * Suggest previously used descriptions starting with the prefix, most frequent and recent first
+     */
+    public List<String> suggestDescriptions(String prefix, int limit) {
+        return descriptionIndex.suggest(prefix, limit);
+    }
+    
     /**
      * Get all transactions within a date range
      */
@@ -140,15 +622,16 @@ public class TransactionService {
         List<Transaction> transactions = new ArrayList<>();
         String sql = """
             SELECT t.*, c.name as category_name 
-            FROM transactions t 
+            FROM %s t 
             LEFT JOIN categories c ON t.category_id = c.id 
-            WHERE DATE(t.timestamp) BETWEEN ? AND ? 
+            WHERE t.timestamp >= ? AND t.timestamp < ? 
             ORDER BY t.timestamp DESC
-            """;
+            """.formatted(transactionsFrom(startDate));
         
+        // Timestamps are stored as epoch milliseconds, so the range is compared in millis too
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.setDate(1, Date.valueOf(startDate));
-            stmt.setDate(2, Date.valueOf(endDate));
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -192,61 +675,259 @@ public class TransactionService {
     
     /**
      * Delete a transaction
+     * @throws IllegalStateException if the transaction has been archived
      */
     public void deleteTransaction(Long transactionId) throws SQLException {
-        // First get the transaction details for budget update
-        Optional<Transaction> transactionOpt = getTransactionById(transactionId);
-        
-        String sql = "DELETE FROM transactions WHERE id = ?";
+        Optional<Transaction> transactionOpt;
+        BigDecimal spentAmount;
+        Lock budgetLock = budgetLocks.forKey(getBudgetIdOfTransaction(transactionId));
+        budgetLock.lock();
+        try {
+            // Read under the lock so the delta below matches the row actually deleted
+            transactionOpt = findTransaction(transactionId, "main");
+            if (transactionOpt.isEmpty()) {
+                rejectIfArchived(transactionId);
+                return;
+            }
+            Transaction transaction = transactionOpt.get();
+            
+            String sql = "DELETE FROM transactions WHERE id = ?";
+            
+            databaseManager.inTransaction(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setLong(1, transactionId);
+                    stmt.executeUpdate();
+                }
+                addToSpentAmount(connection, transaction.getBudgetId(), budgetAmount(transaction).negate());
+                return null;
+            });
+            spentAmount = spentAmountOf(transaction.getBudgetId());
+            topExpenses.expenseRemoved(transaction);
+            spendForecaster.expenseRemoved(transaction);
+        } finally {
+            budgetLock.unlock();
+        }
         
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.setLong(1, transactionId);
-            stmt.executeUpdate();
+        Transaction transaction = transactionOpt.get();
+        eventBus.publish(new TransactionDeleted(transaction, spentAmount));
+    }
+    
+    /**
+     * Update a transaction
+     * @throws IllegalStateException if the transaction has been archived
+     */
+    public void updateTransaction(Long transactionId, BigDecimal amount, String description, Long categoryId, String notes) throws SQLException {
+        Optional<Transaction> previousOpt;
+        Optional<Transaction> updatedOpt;
+        BigDecimal spentAmount;
+        // An update never moves a transaction between budgets, so its budget picks the lock
+        Lock budgetLock = budgetLocks.forKey(getBudgetIdOfTransaction(transactionId));
+        budgetLock.lock();
+        try {
+            previousOpt = findTransaction(transactionId, "main");
+            if (previousOpt.isEmpty()) {
+                rejectIfArchived(transactionId);
+                return;
+            }
+            
+            Transaction previous = previousOpt.get();
+            BigDecimal budgetAmount = rescaleBudgetAmount(previous, amount);
+            
+            String sql = """
+                UPDATE transactions 
+                SET amount = ?, budget_amount = ?, description = ?, category_id = ?, notes = ? 
+                WHERE id = ?
+                """;
+            
+            databaseManager.inTransaction(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setBigDecimal(1, amount);
+                    stmt.setBigDecimal(2, budgetAmount);
+                    stmt.setString(3, description);
+                    stmt.setObject(4, categoryId);
+                    stmt.setString(5, notes);
+                    stmt.setLong(6, transactionId);
+                    stmt.executeUpdate();
+                }
+                if (previous.isExpense()) {
+                    addToSpentAmount(connection, previous.getBudgetId(), budgetAmount.subtract(budgetAmount(previous)));
+                }
+                return null;
+            });
+            
+            updatedOpt = findTransaction(transactionId, "main");
+            if (updatedOpt.isEmpty()) {
+                return;
+            }
+            spentAmount = spentAmountOf(previous.getBudgetId());
+            topExpenses.expenseUpdated(previousOpt.get(), updatedOpt.get());
+            spendForecaster.expenseUpdated(previousOpt.get(), updatedOpt.get());
+        } finally {
+            budgetLock.unlock();
         }
         
-        // Update budget if it was an expense
-        if (transactionOpt.isPresent()) {
-            Transaction transaction = transactionOpt.get();
-            if (transaction.isExpense()) {
-                // Get budget ID for this transaction and update spent amount
-                updateBudgetSpentAmountForTransaction(transactionId);
+        // An edited category is a correction; retrain on it
+        if (updatedOpt.get().isExpense()) {
+            Transaction previous = previousOpt.get();
+            if (!Objects.equals(previous.getCategoryId(), categoryId) || !Objects.equals(description, previous.getDescription())) {
+                categoryClassifier.unlearn(previous.getDescription(), previous.getCategoryId());
+                categoryClassifier.learn(description, categoryId);
             }
         }
+        eventBus.publish(new TransactionUpdated(updatedOpt.get(), previousOpt.get(), spentAmount));
     }
     
     /**
-     * Update a transaction
+     * Get transaction by ID, looking in the archive if it is no longer hot
      */
-    public void updateTransaction(Long transactionId, BigDecimal amount, String description, Long categoryId, String notes) throws SQLException {
+    public Optional<Transaction> getTransactionById(Long id) throws SQLException {
+        Optional<Transaction> transaction = findTransaction(id, "main");
+        return transaction.isPresent() ? transaction : findTransaction(id, "archive");
+    }
+    
+    /**
+     * Move the oldest of an archived budget's hot transactions, up to batchSize, to the
+     * archive database. Holding the budget's lock keeps its writes out of the batch
+     * while it moves.
+     *
+     * SQLite does not commit one transaction across attached WAL databases atomically,
+     * so the rows are copied and then deleted in two transactions that each write to one
+     * database. A crash in between leaves rows in both, which readers see once (the hot
+     * copy wins) and the next batch copies again over the stale archive copy.
+     * @return the number of transactions moved; fewer than batchSize once none are left
+     */
+    public int archiveTransactions(Long budgetId, int batchSize) throws SQLException {
+        Lock budgetLock = budgetLocks.forKey(budgetId);
+        budgetLock.lock();
+        try {
+            Long lastId = databaseManager.inTransaction(connection -> {
+                long batchEnd;
+                try (PreparedStatement stmt = connection.prepareStatement("""
+                    SELECT MAX(id) FROM (
+                        SELECT id FROM main.transactions WHERE budget_id = ? ORDER BY id LIMIT ?
+                    )
+                    """)) {
+                    stmt.setLong(1, budgetId);
+                    stmt.setInt(2, batchSize);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        batchEnd = rs.next() ? rs.getLong(1) : 0;
+                        if (rs.wasNull()) {
+                            return null;
+                        }
+                    }
+                }
+                
+                // Replace copies an interrupted move left behind, through the FTS delete trigger
+                try (PreparedStatement stmt = connection.prepareStatement("""
+                    DELETE FROM archive.transactions
+                    WHERE id IN (SELECT id FROM main.transactions WHERE budget_id = ? AND id <= ?)
+                    """)) {
+                    stmt.setLong(1, budgetId);
+                    stmt.setLong(2, batchEnd);
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = connection.prepareStatement("""
+                    INSERT INTO archive.transactions (%1$s)
+                    SELECT %1$s FROM main.transactions WHERE budget_id = ? AND id <= ?
+                    """.formatted(DatabaseManager.TRANSACTION_COLUMNS))) {
+                    stmt.setLong(1, budgetId);
+                    stmt.setLong(2, batchEnd);
+                    stmt.executeUpdate();
+                }
+                return batchEnd;
+            });
+            if (lastId == null) {
+                return 0;
+            }
+            
+            // Only rows the archive is confirmed to hold leave the hot table
+            return databaseManager.inTransaction(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement("""
+                    DELETE FROM main.transactions
+                    WHERE budget_id = ? AND id <= ? AND id IN (SELECT id FROM archive.transactions)
+                    """)) {
+                    stmt.setLong(1, budgetId);
+                    stmt.setLong(2, lastId);
+                    return stmt.executeUpdate();
+                }
+            });
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+    
+    /**
+     * Recompute every budget's spent amount from its expenses and correct those that
+     * have drifted from the sum, e.g. through a write that failed between its row and
+     * its delta before both committed together
+     * @return the number of budgets corrected
+     */
+    public int reconcileSpentAmounts() throws SQLException {
+        List<Long> budgetIds = new ArrayList<>();
+        try (Statement stmt = databaseManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM budgets")) {
+            while (rs.next()) {
+                budgetIds.add(rs.getLong(1));
+            }
+        }
+        
+        int corrected = 0;
+        for (Long budgetId : budgetIds) {
+            Lock budgetLock = budgetLocks.forKey(budgetId);
+            budgetLock.lock();
+            try {
+                BigDecimal expenses = sumBudgetAmounts(budgetId);
+                BigDecimal spentAmount = getBudgetSpentAmount(budgetId);
+                if (spentAmount != null && spentAmount.setScale(2, RoundingMode.HALF_UP).compareTo(expenses) == 0) {
+                    continue;
+                }
+                try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(
+                        "UPDATE budgets SET spent_amount = ? WHERE id = ?")) {
+                    stmt.setBigDecimal(1, expenses);
+                    stmt.setLong(2, budgetId);
+                    stmt.executeUpdate();
+                }
+                System.err.println("Corrected spent amount of budget " + budgetId + " from " + spentAmount + " to " + expenses);
+                corrected++;
+            } finally {
+                budgetLock.unlock();
+            }
+        }
+        return corrected;
+    }
+    
+    private BigDecimal sumBudgetAmounts(Long budgetId) throws SQLException {
         String sql = """
-            UPDATE transactions 
-            SET amount = ?, description = ?, category_id = ?, notes = ? 
-            WHERE id = ?
-            """;
+            SELECT COALESCE(SUM(budget_amount), 0) FROM %s WHERE budget_id = ? AND type = 'EXPENSE'
+            """.formatted(transactionsOf(budgetId));
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.setBigDecimal(1, amount);
-            stmt.setString(2, description);
-            stmt.setObject(3, categoryId);
-            stmt.setString(4, notes);
-            stmt.setLong(5, transactionId);
-            stmt.executeUpdate();
+            stmt.setLong(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                // SQLite sums decimals as doubles
+                return rs.getBigDecimal(1).setScale(2, RoundingMode.HALF_UP);
+            }
         }
-        
-        // Update budget spent amount
-        updateBudgetSpentAmountForTransaction(transactionId);
     }
     
     /**
-     * Get transaction by ID
+     * Archived transactions are read-only: their budget has ended and its totals are final
      */
-    public Optional<Transaction> getTransactionById(Long id) throws SQLException {
+    private void rejectIfArchived(Long transactionId) throws SQLException {
+        if (findTransaction(transactionId, "archive").isPresent()) {
+            throw new IllegalStateException("Transaction " + transactionId + " is archived and can no longer be changed");
+        }
+    }
+    
+    private Optional<Transaction> findTransaction(Long id, String schema) throws SQLException {
         String sql = """
             SELECT t.*, c.name as category_name 
-            FROM transactions t 
+            FROM %s.transactions t 
             LEFT JOIN categories c ON t.category_id = c.id 
             WHERE t.id = ?
-            """;
+            """.formatted(schema);
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setLong(1, id);
@@ -264,18 +945,18 @@ public class TransactionService {
     }
     
     /**
-     * Get spending by category for a specific budget
+     * Get spending by category for a specific budget, in the budget's currency
      */
     public Map<String, BigDecimal> getSpendingByCategory(Long budgetId) throws SQLException {
         Map<String, BigDecimal> spendingByCategory = new HashMap<>();
         String sql = """
-            SELECT c.name, SUM(t.amount) as total_amount 
-            FROM transactions t 
+            SELECT c.name, SUM(t.budget_amount) as total_amount 
+            FROM %s t 
             LEFT JOIN categories c ON t.category_id = c.id 
             WHERE t.budget_id = ? AND t.type = 'EXPENSE' 
             GROUP BY c.name 
             ORDER BY total_amount DESC
-            """;
+            """.formatted(transactionsOf(budgetId));
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setLong(1, budgetId);
@@ -285,7 +966,7 @@ public class TransactionService {
                     String categoryName = rs.getString("name");
                     if (categoryName == null) categoryName = "Uncategorized";
                     BigDecimal amount = rs.getBigDecimal("total_amount");
-                    spendingByCategory.put(categoryName, amount);
+                    spendingByCategory.put(categoryName, amount.setScale(2, RoundingMode.HALF_UP));
                 }
             }
         }
@@ -294,31 +975,43 @@ public class TransactionService {
     }
     
     /**
-     * Get daily spending for the current month
+     * Get daily spending between two dates, in rupees. Days are local dates; each
+     * day's total per currency is converted at that day's rate.
      */
     public Map<LocalDate, BigDecimal> getDailySpending(LocalDate startDate, LocalDate endDate) throws SQLException {
-        Map<LocalDate, BigDecimal> dailySpending = new HashMap<>();
+        Map<LocalDate, Map<String, BigDecimal>> totals = new HashMap<>();
+        // Timestamps are stored as epoch milliseconds, so the local date is derived from seconds;
+        // amounts are summed here rather than in SQL, which would add them up as doubles
         String sql = """
-            SELECT DATE(timestamp) as spending_date, SUM(amount) as daily_total 
-            FROM transactions 
-            WHERE type = 'EXPENSE' AND DATE(timestamp) BETWEEN ? AND ? 
-            GROUP BY DATE(timestamp) 
-            ORDER BY spending_date
-            """;
+            SELECT DATE(timestamp / 1000, 'unixepoch', 'localtime') as spending_date, currency, amount 
+            FROM %s 
+            WHERE type = 'EXPENSE' AND timestamp >= ? AND timestamp < ? 
+            """.formatted(transactionsFrom(startDate));
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
-            stmt.setDate(1, Date.valueOf(startDate));
-            stmt.setDate(2, Date.valueOf(endDate));
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            stmt.setFetchSize(1000);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    LocalDate date = rs.getDate("spending_date").toLocalDate();
-                    BigDecimal amount = rs.getBigDecimal("daily_total");
-                    dailySpending.put(date, amount);
+                    LocalDate date = LocalDate.parse(rs.getString("spending_date"));
+                    String currency = Objects.requireNonNullElse(rs.getString("currency"), CurrencyUtil.DEFAULT_CURRENCY);
+                    totals.computeIfAbsent(date, day -> new HashMap<>())
+                        .merge(currency, rs.getBigDecimal("amount"), BigDecimal::add);
                 }
             }
         }
         
+        Map<LocalDate, BigDecimal> dailySpending = new HashMap<>();
+        for (Map.Entry<LocalDate, Map<String, BigDecimal>> day : totals.entrySet()) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (Map.Entry<String, BigDecimal> byCurrency : day.getValue().entrySet()) {
+                total = total.add(exchangeRates.convert(byCurrency.getValue(), byCurrency.getKey(),
+                    CurrencyUtil.DEFAULT_CURRENCY, day.getKey().toEpochDay()));
+            }
+            dailySpending.put(day.getKey(), total.setScale(2, RoundingMode.HALF_UP));
+        }
         return dailySpending;
     }
     
@@ -326,40 +1019,275 @@ public class TransactionService {
      * Private helper methods
      */
     
-    private void updateBudgetSpentAmount(Long budgetId) throws SQLException {
+    private void forEachBudgetExpense(Long budgetId, Consumer<Transaction> consumer) throws SQLException {
         String sql = """
-            UPDATE budgets 
-            SET spent_amount = (
-                SELECT COALESCE(SUM(amount), 0) 
-                FROM transactions 
-                WHERE budget_id = ? AND type = 'EXPENSE'
-            ) 
-            WHERE id = ?
-            """;
+            SELECT t.*, c.name as category_name 
+            FROM %s t 
+            LEFT JOIN categories c ON t.category_id = c.id 
+            WHERE t.budget_id = ? AND t.type = 'EXPENSE' 
+            ORDER BY t.timestamp, t.id
+            """.formatted(transactionsOf(budgetId));
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setLong(1, budgetId);
+            stmt.setFetchSize(1000);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Transaction transaction = mapResultSetToTransaction(rs);
+                    transaction.setCategory(rs.getString("category_name"));
+                    consumer.accept(transaction);
+                }
+            }
+        }
+    }
+    
+    private List<Transaction> queryTopExpenses(Long budgetId, int limit) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        String sql = """
+            SELECT t.*, c.name as category_name 
+            FROM %s t 
+            LEFT JOIN categories c ON t.category_id = c.id 
+            WHERE t.budget_id = ? AND t.type = 'EXPENSE' 
+            ORDER BY t.budget_amount DESC, t.id DESC 
+            LIMIT ?
+            """.formatted(transactionsOf(budgetId));
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, budgetId);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Transaction transaction = mapResultSetToTransaction(rs);
+                    transaction.setCategory(rs.getString("category_name"));
+                    transactions.add(transaction);
+                }
+            }
+        }
+        
+        return transactions;
+    }
+    
+    /**
+     * Table holding a budget's transactions: the hot table, or once the budget is
+     * archived, the hot table together with the archive
+     */
+    private String transactionsOf(Long budgetId) throws SQLException {
+        String sql = "SELECT archived_at IS NOT NULL FROM budgets WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setObject(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1) ? DatabaseManager.TRANSACTIONS_WITH_ARCHIVE : "transactions";
+            }
+        }
+    }
+    
+    /**
+     * Table holding transactions from a date on: the archive only has to be read
+     * when it holds any that recent, which its timestamp index answers in one seek
+     */
+    private String transactionsFrom(LocalDate startDate) throws SQLException {
+        return archiveReaches(startDate) ? DatabaseManager.TRANSACTIONS_WITH_ARCHIVE : "transactions";
+    }
+    
+    private boolean archiveReaches(LocalDate startDate) throws SQLException {
+        String sql = startDate != null
+            ? "SELECT EXISTS (SELECT 1 FROM archive.transactions WHERE timestamp >= ?)"
+            : "SELECT EXISTS (SELECT 1 FROM archive.transactions)";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            if (startDate != null) {
+                stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    
+    /**
+     * A budget's spent amount after a write; callers hold the budget's lock
+     * @return the spent amount, or null without a budget
+     */
+    private BigDecimal spentAmountOf(Long budgetId) throws SQLException {
+        return budgetId != null ? getBudgetSpentAmount(budgetId) : null;
+    }
+    
+    /**
+     * Add a delta to a budget's spent amount in place, instead of re-summing all of its
+     * expenses; run in the same database transaction as the write it accounts for
+     */
+    private static void addToSpentAmount(Connection connection, Long budgetId, BigDecimal delta) throws SQLException {
+        if (budgetId == null || delta.signum() == 0) {
+            return;
+        }
+        String sql = "UPDATE budgets SET spent_amount = COALESCE(spent_amount, 0) + ? WHERE id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setBigDecimal(1, delta);
             stmt.setLong(2, budgetId);
             stmt.executeUpdate();
         }
     }
     
-    private void updateBudgetSpentAmountForTransaction(Long transactionId) throws SQLException {
-        String sql = """
-            UPDATE budgets 
-            SET spent_amount = (
-                SELECT COALESCE(SUM(amount), 0) 
-                FROM transactions 
-                WHERE budget_id = budgets.id AND type = 'EXPENSE'
-            ) 
-            WHERE id = (
-                SELECT budget_id FROM transactions WHERE id = ?
-            )
-            """;
+    private BigDecimal expenseAmount(Transaction transaction) {
+        return transaction.isExpense() && transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+    }
+    
+    /**
+     * What an expense adds to its budget's spent amount, in the budget's currency
+     */
+    private BigDecimal budgetAmount(Transaction transaction) {
+        if (!transaction.isExpense()) {
+            return BigDecimal.ZERO;
+        }
+        return transaction.getBudgetAmount() != null ? transaction.getBudgetAmount() : expenseAmount(transaction);
+    }
+    
+    private double budgetAmountOf(Transaction transaction) {
+        return (transaction.getBudgetAmount() != null ? transaction.getBudgetAmount() : transaction.getAmount()).doubleValue();
+    }
+    
+    /**
+     * Convert a new transaction's amount into its budget's currency at today's rates
+     * for its day; the result is stored with it and never reconverted
+     * @throws IllegalArgumentException if the currency has no exchange rates
+     */
+    private void convertToBudgetCurrency(Transaction transaction) throws SQLException {
+        transaction.setBudgetAmount(exchangeRates.convert(transaction.getAmount(), transaction.getCurrency(),
+            budgetCurrency(transaction.getBudgetId()), ExchangeRates.dayOf(transaction.getTimestamp())));
+    }
+    
+    /**
+     * Budget amount of an edited amount, at the rate the transaction was first converted at
+     */
+    private BigDecimal rescaleBudgetAmount(Transaction previous, BigDecimal amount) throws SQLException {
+        BigDecimal previousBudgetAmount = previous.getBudgetAmount();
+        if (previousBudgetAmount == null || previous.getAmount().signum() == 0) {
+            return exchangeRates.convert(amount, previous.getCurrency(), budgetCurrency(previous.getBudgetId()),
+                ExchangeRates.dayOf(previous.getTimestamp()));
+        }
+        return previousBudgetAmount.multiply(amount).divide(previous.getAmount(), 2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Currency a budget is kept in; rupees without a budget
+     */
+    private String budgetCurrency(Long budgetId) throws SQLException {
+        if (budgetId == null) {
+            return CurrencyUtil.DEFAULT_CURRENCY;
+        }
+        String cached = budgetCurrencies.get(budgetId);
+        if (cached != null) {
+            return cached;
+        }
+        String sql = "SELECT currency FROM budgets WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return CurrencyUtil.DEFAULT_CURRENCY;
+                }
+                String currency = rs.getString(1);
+                budgetCurrencies.put(budgetId, currency);
+                return currency;
+            }
+        }
+    }
+    
+    
+    private Long getBudgetIdOfTransaction(Long transactionId) throws SQLException {
+        String sql = "SELECT budget_id FROM transactions WHERE id = ?";
         
         try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
             stmt.setLong(1, transactionId);
-            stmt.executeUpdate();
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? getNullableLong(rs, "budget_id") : null;
+            }
+        }
+    }
+    
+    /**
+     * Feed new and edited descriptions into the autocomplete index
+     */
+    private void recordDescriptions(List<TransactionChange> changes) {
+        for (TransactionChange change : changes) {
+            Transaction transaction = change.getTransaction();
+            if (change instanceof TransactionAdded) {
+                descriptionIndex.record(transaction.getDescription(), transaction.getTimestamp());
+            } else if (change instanceof TransactionUpdated) {
+                Transaction previous = change.getPrevious();
+                if (previous == null || !Objects.equals(transaction.getDescription(), previous.getDescription())) {
+                    descriptionIndex.record(transaction.getDescription(), LocalDateTime.now());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Turn free text into an FTS5 query matching every word as a prefix.
+     * Words are quoted so user input can never be parsed as FTS5 syntax.
+     */
+    private static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder matchQuery = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (matchQuery.length() > 0) {
+                    matchQuery.append(' ');
+                }
+                matchQuery.append('"').append(word).append("\"*");
+            }
+        }
+        return matchQuery.length() > 0 ? matchQuery.toString() : null;
+    }
+    
+    private BigDecimal getBudgetSpentAmount(Long budgetId) throws SQLException {
+        String sql = "SELECT spent_amount FROM budgets WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, budgetId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(1) : null;
+            }
+        }
+    }
+    
+    private String getCategoryName(Long categoryId) throws SQLException {
+        if (categoryId == null) {
+            return null;
+        }
+        String sql = "SELECT name FROM categories WHERE id = ?";
+        
+        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(sql)) {
+            stmt.setLong(1, categoryId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+    
+    /**
+     * A search match with its bm25 rank, lower being better
+     */
+    private static final class RankedTransaction {
+        final Transaction transaction;
+        final double rank;
+        
+        RankedTransaction(Transaction transaction, double rank) {
+            this.transaction = transaction;
+            this.rank = rank;
         }
     }
     
@@ -370,6 +1298,10 @@ public class TransactionService {
         transaction.setAmount(rs.getBigDecimal("amount"));
         transaction.setDescription(rs.getString("description"));
         transaction.setNotes(rs.getString("notes"));
+        transaction.setCategoryId(getNullableLong(rs, "category_id"));
+        transaction.setBudgetId(getNullableLong(rs, "budget_id"));
+        transaction.setCurrency(rs.getString("currency"));
+        transaction.setBudgetAmount(rs.getBigDecimal("budget_amount"));
         
         Timestamp timestamp = rs.getTimestamp("timestamp");
         if (timestamp != null) {
@@ -378,4 +1310,9 @@ public class TransactionService {
         
         return transaction;
     }
+    
+    private static Long getNullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
 }
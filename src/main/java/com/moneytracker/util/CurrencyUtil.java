@@ -1,16 +1,50 @@
 package com.moneytracker.util;
 
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
 
 /**
- * Utility class for currency formatting in the Indian Rupee (INR) currency
+ * Utility class for currency formatting, in Indian Rupees (INR) unless another
+ * currency is given
  * Provides consistent currency formatting throughout the application
+ *
+ * Formatting is thread-safe and avoids DecimalFormat: amounts are rounded to
+ * paise and their digits are written straight into a per-thread buffer, and
+ * recently formatted values are served from a small lock-free cache, which
+ * keeps table cell rendering cheap.
  */
 public class CurrencyUtil {
     
+    /**
+     * How the digits of the whole-rupee part are grouped
+     */
+    public enum DigitGrouping {
+        /** Groups of three, e.g. 12,345,678.00 */
+        INTERNATIONAL,
+        /** Lakh/crore: three digits, then groups of two, e.g. 1,23,45,678.00 */
+        INDIAN
+    }
+    
+    /**
+     * Currency of budgets and transactions created without one, and the currency
+     * exchange rates are quoted in
+     */
+    public static final String DEFAULT_CURRENCY = "INR";
+    
     private static final String CURRENCY_SYMBOL = "₹";
-    private static final DecimalFormat CURRENCY_FORMAT = new DecimalFormat("#,##0.00");
+    private static final Map<String, String> SYMBOLS = Map.of(
+        "INR", CURRENCY_SYMBOL, "USD", "$", "EUR", "€", "GBP", "£", "JPY", "¥");
+    private static final String GROUPING_PROPERTY = "anton.currency.grouping";
+    private static final int CACHE_SIZE = 256;
+    // Sign, symbol, 19 digits, separators and fraction of any long fit with room to spare
+    private static final int BUFFER_SIZE = 64;
+    
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[BUFFER_SIZE]);
+    private static final CacheEntry[] CACHE = new CacheEntry[CACHE_SIZE];
+    
+    private static volatile DigitGrouping defaultGrouping = readDefaultGrouping();
     
     /**
      * Format a BigDecimal amount as Indian Rupees
@@ -18,10 +52,27 @@ public class CurrencyUtil {
      * @return formatted string with rupee symbol (e.g., "₹1,234.56")
      */
     public static String formatAmount(BigDecimal amount) {
-        if (amount == null) {
-            return CURRENCY_SYMBOL + "0.00";
-        }
-        return CURRENCY_SYMBOL + CURRENCY_FORMAT.format(amount);
+        return format(amount, "", CURRENCY_SYMBOL, defaultGrouping);
+    }
+    
+    /**
+     * Format a BigDecimal amount in the given currency
+     * @param amount the amount to format
+     * @param currency ISO 4217 code; null for rupees
+     * @return formatted string with the currency's symbol (e.g., "$1,234.56", "CHF 1,234.56")
+     */
+    public static String formatAmount(BigDecimal amount, String currency) {
+        return format(amount, "", getCurrencySymbol(currency), defaultGrouping);
+    }
+    
+    /**
+     * Format a BigDecimal amount as Indian Rupees with explicit digit grouping
+     * @param amount the amount to format
+     * @param grouping how to group the whole-rupee digits
+     * @return formatted string with rupee symbol (e.g., "₹1,23,456.78")
+     */
+    public static String formatAmount(BigDecimal amount, DigitGrouping grouping) {
+        return format(amount, "", CURRENCY_SYMBOL, grouping);
     }
     
     /**
@@ -40,10 +91,15 @@ public class CurrencyUtil {
      * @return formatted string with prefix and rupee symbol (e.g., "-₹1,234.56")
      */
     public static String formatAmountWithPrefix(BigDecimal amount, String prefix) {
-        if (amount == null) {
-            return prefix + CURRENCY_SYMBOL + "0.00";
-        }
-        return prefix + CURRENCY_SYMBOL + CURRENCY_FORMAT.format(amount);
+        return format(amount, prefix, CURRENCY_SYMBOL, defaultGrouping);
+    }
+    
+    /**
+     * Format an amount in the given currency with a prefix
+     * @param currency ISO 4217 code; null for rupees
+     */
+    public static String formatAmountWithPrefix(BigDecimal amount, String prefix, String currency) {
+        return format(amount, prefix, getCurrencySymbol(currency), defaultGrouping);
     }
     
     /**
@@ -53,4 +109,154 @@ public class CurrencyUtil {
     public static String getCurrencySymbol() {
         return CURRENCY_SYMBOL;
     }
+    
+    /**
+     * Get a currency's symbol, or its code and a space for currencies without a well-known one
+     * @param currency ISO 4217 code; null for rupees
+     */
+    public static String getCurrencySymbol(String currency) {
+        if (currency == null) {
+            return CURRENCY_SYMBOL;
+        }
+        String symbol = SYMBOLS.get(currency);
+        return symbol != null ? symbol : currency + " ";
+    }
+    
+    /**
+     * Get the grouping used when none is given
+     */
+    public static DigitGrouping getDefaultGrouping() {
+        return defaultGrouping;
+    }
+    
+    /**
+     * Set the grouping used when none is given; also configurable through the
+     * anton.currency.grouping system property
+     */
+    public static void setDefaultGrouping(DigitGrouping grouping) {
+        defaultGrouping = grouping;
+    }
+    
+    private static String format(BigDecimal amount, String prefix, String symbol, DigitGrouping grouping) {
+        if (amount == null) {
+            amount = BigDecimal.ZERO;
+        }
+        // Same rounding as DecimalFormat's default
+        BigInteger paise = amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue();
+        if (paise.signum() == 0 && amount.signum() < 0) {
+            // DecimalFormat keeps the sign of a negative amount that rounds to zero
+            return prefix + symbol + "-0.00";
+        }
+        if (paise.bitLength() < Long.SIZE - 1) {
+            return formatPaise(paise.longValue(), prefix, symbol, grouping);
+        }
+        // Beyond the range of a long: rare enough to build without the buffer
+        String digits = paise.abs().toString();
+        StringBuilder text = new StringBuilder(prefix).append(symbol);
+        if (paise.signum() < 0) {
+            text.append('-');
+        }
+        int wholeDigits = digits.length() - 2;
+        for (int i = 0; i < wholeDigits; i++) {
+            int remaining = wholeDigits - i;
+            if (i > 0 && isGroupBoundary(remaining, grouping)) {
+                text.append(',');
+            }
+            text.append(digits.charAt(i));
+        }
+        return text.append('.').append(digits, wholeDigits, digits.length()).toString();
+    }
+    
+    private static String formatPaise(long paise, String prefix, String symbol, DigitGrouping grouping) {
+        int slot = ((Long.hashCode(paise) * 31 + grouping.ordinal()) * 31 + symbol.hashCode()) & (CACHE_SIZE - 1);
+        CacheEntry cached = CACHE[slot];
+        if (cached != null && cached.matches(paise, prefix, symbol, grouping)) {
+            return cached.text;
+        }
+        
+        // Write right to left: fraction, point, grouped whole digits, sign, symbol, prefix
+        char[] buffer = BUFFER.get();
+        int position = buffer.length;
+        long remaining = Math.abs(paise);
+        buffer[--position] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--position] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--position] = '.';
+        
+        int written = 0;
+        do {
+            if (written > 0 && isGroupBoundary(written, grouping)) {
+                buffer[--position] = ',';
+            }
+            buffer[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+            written++;
+        } while (remaining > 0);
+        
+        if (paise < 0) {
+            buffer[--position] = '-';
+        }
+        for (int i = symbol.length() - 1; i >= 0; i--) {
+            buffer[--position] = symbol.charAt(i);
+        }
+        
+        String text;
+        if (prefix.isEmpty()) {
+            text = new String(buffer, position, buffer.length - position);
+        } else {
+            text = new StringBuilder(prefix.length() + buffer.length - position)
+                .append(prefix).append(buffer, position, buffer.length - position).toString();
+        }
+        CACHE[slot] = new CacheEntry(paise, prefix, symbol, grouping, text);
+        return text;
+    }
+    
+    /**
+     * Whether a separator goes before the digit that has the given number of
+     * whole-rupee digits to its right
+     */
+    private static boolean isGroupBoundary(int digitsToTheRight, DigitGrouping grouping) {
+        if (grouping == DigitGrouping.INDIAN) {
+            return digitsToTheRight == 3 || (digitsToTheRight > 3 && (digitsToTheRight - 3) % 2 == 0);
+        }
+        return digitsToTheRight % 3 == 0;
+    }
+    
+    private static DigitGrouping readDefaultGrouping() {
+        String configured = System.getProperty(GROUPING_PROPERTY);
+        if (configured == null) {
+            return DigitGrouping.INTERNATIONAL;
+        }
+        try {
+            return DigitGrouping.valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown digit grouping '" + configured + "', using international");
+            return DigitGrouping.INTERNATIONAL;
+        }
+    }
+    
+    /**
+     * Immutable cache slot; final fields make racy publication across threads safe
+     */
+    private static final class CacheEntry {
+        private final long paise;
+        private final String prefix;
+        private final String symbol;
+        private final DigitGrouping grouping;
+        private final String text;
+        
+        CacheEntry(long paise, String prefix, String symbol, DigitGrouping grouping, String text) {
+            this.paise = paise;
+            this.prefix = prefix;
+            this.symbol = symbol;
+            this.grouping = grouping;
+            this.text = text;
+        }
+        
+        boolean matches(long paise, String prefix, String symbol, DigitGrouping grouping) {
+            return this.paise == paise && this.grouping == grouping && this.prefix.equals(prefix)
+                && this.symbol.equals(symbol);
+        }
+    }
 }
@@ -0,0 +1,209 @@
+package com.moneytracker.util;
+
+import com.moneytracker.model.Budget;
+import com.moneytracker.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact binary snapshot of the last rendered dashboard state.
+ * Lets the UI render instantly on a cold start, before any SQL has run.
+ *
+ * Amounts are stored as unscaled cents, dates as epoch days and timestamps as
+ * epoch seconds so that the file can be decoded straight from a memory map.
+ */
+public class DashboardSnapshot {
+    
+    private static final int MAGIC = 0x414E5453; // "ANTS"
+    private static final int VERSION = 2;
+    private static final int SCALE = 2;
+    
+    private final Budget budget;
+    private final Map<String, BigDecimal> spendingByCategory;
+    private final List<Transaction> recentTransactions;
+    private final BigDecimal totalExpenses;
+    private final BigDecimal biggestExpense;
+    
+    public DashboardSnapshot(Budget budget, Map<String, BigDecimal> spendingByCategory,
+                             List<Transaction> recentTransactions, BigDecimal totalExpenses, BigDecimal biggestExpense) {
+        this.budget = budget;
+        this.spendingByCategory = Collections.unmodifiableMap(new LinkedHashMap<>(spendingByCategory));
+        this.recentTransactions = List.copyOf(recentTransactions);
+        this.totalExpenses = totalExpenses != null ? totalExpenses : BigDecimal.ZERO;
+        this.biggestExpense = biggestExpense != null ? biggestExpense : BigDecimal.ZERO;
+    }
+    
+    public Budget getBudget() { return budget; }
+    public Map<String, BigDecimal> getSpendingByCategory() { return spendingByCategory; }
+    public List<Transaction> getRecentTransactions() { return recentTransactions; }
+    public BigDecimal getTotalExpenses() { return totalExpenses; }
+    public BigDecimal getBiggestExpense() { return biggestExpense; }
+    
+    /**
+     * Read a snapshot through a read-only memory map.
+     * Returns empty if the file is missing, from another version or unreadable.
+     */
+    public static Optional<DashboardSnapshot> read(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            return Optional.of(decode(buffer));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable dashboard snapshot: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Write the snapshot atomically, replacing any previous one
+     */
+    public void write(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            encode(out);
+        }
+        
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void encode(DataOutputStream out) throws IOException {
+        out.writeBoolean(budget != null);
+        if (budget != null) {
+            out.writeLong(budget.getId() != null ? budget.getId() : -1L);
+            out.writeLong(toCents(budget.getTotalAmount()));
+            out.writeLong(toCents(budget.getSpentAmount()));
+            out.writeLong(toCents(budget.getDailyBudget()));
+            out.writeLong(budget.getStartDate().toEpochDay());
+            out.writeLong(budget.getEndDate().toEpochDay());
+            writeString(out, budget.getDescription());
+            writeString(out, budget.getCurrency());
+        }
+        
+        out.writeLong(toCents(totalExpenses));
+        out.writeLong(toCents(biggestExpense));
+        
+        out.writeInt(spendingByCategory.size());
+        for (Map.Entry<String, BigDecimal> entry : spendingByCategory.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(toCents(entry.getValue()));
+        }
+        
+        out.writeInt(recentTransactions.size());
+        for (Transaction transaction : recentTransactions) {
+            out.writeLong(transaction.getId() != null ? transaction.getId() : -1L);
+            out.writeByte(transaction.getType().ordinal());
+            out.writeLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeLong(toCents(transaction.getAmount()));
+            writeString(out, transaction.getDescription());
+            writeString(out, transaction.getCategory());
+            writeString(out, transaction.getCurrency());
+        }
+    }
+    
+    private static DashboardSnapshot decode(ByteBuffer in) {
+        Budget budget = null;
+        if (in.get() != 0) {
+            budget = new Budget();
+            long id = in.getLong();
+            budget.setId(id >= 0 ? id : null);
+            budget.setTotalAmount(fromCents(in.getLong()));
+            budget.setSpentAmount(fromCents(in.getLong()));
+            budget.setDailyBudget(fromCents(in.getLong()));
+            budget.setStartDate(LocalDate.ofEpochDay(in.getLong()));
+            budget.setEndDate(LocalDate.ofEpochDay(in.getLong()));
+            budget.setDescription(readString(in));
+            budget.setCurrency(readString(in));
+        }
+        
+        BigDecimal totalExpenses = fromCents(in.getLong());
+        BigDecimal biggestExpense = fromCents(in.getLong());
+        
+        int categoryCount = in.getInt();
+        Map<String, BigDecimal> spendingByCategory = new LinkedHashMap<>(categoryCount * 2);
+        for (int i = 0; i < categoryCount; i++) {
+            String name = readString(in);
+            spendingByCategory.put(name, fromCents(in.getLong()));
+        }
+        
+        Transaction.TransactionType[] types = Transaction.TransactionType.values();
+        int rowCount = in.getInt();
+        List<Transaction> recentTransactions = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            Transaction transaction = new Transaction();
+            long id = in.getLong();
+            transaction.setId(id >= 0 ? id : null);
+            transaction.setType(types[in.get()]);
+            transaction.setTimestamp(LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC));
+            transaction.setAmount(fromCents(in.getLong()));
+            transaction.setDescription(readString(in));
+            transaction.setCategory(readString(in));
+            transaction.setCurrency(readString(in));
+            recentTransactions.add(transaction);
+        }
+        
+        return new DashboardSnapshot(budget, spendingByCategory, recentTransactions, totalExpenses, biggestExpense);
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+    
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
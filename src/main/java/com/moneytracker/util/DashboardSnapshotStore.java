@@ -0,0 +1,71 @@
+package com.moneytracker.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persists dashboard snapshots off the FX thread.
+ * Saves are coalesced so that only the most recent snapshot is written.
+ */
+public class DashboardSnapshotStore {
+    
+    public static final String DEFAULT_SNAPSHOT_FILE = "anton_dashboard.snapshot";
+    
+    private final Path path;
+    private final AtomicReference<DashboardSnapshot> pending = new AtomicReference<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anton-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public DashboardSnapshotStore(Path path) {
+        this.path = path;
+    }
+    
+    /**
+     * Load the last saved snapshot, if any
+     */
+    public Optional<DashboardSnapshot> load() {
+        return DashboardSnapshot.read(path);
+    }
+    
+    /**
+     * Queue a snapshot for writing; a newer snapshot replaces one not yet written
+     */
+    public void save(DashboardSnapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+    
+    /**
+     * Write any queued snapshot and stop the writer thread
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writePending();
+    }
+    
+    private void writePending() {
+        DashboardSnapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.write(path);
+        } catch (IOException e) {
+            System.err.println("Failed to save dashboard snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class DemoDataInitializer {
     public void initializeDemoDataIfNeeded() {
         try {
             // Check if there are any existing budgets
-            if (budgetService.getAllBudgets().isEmpty()) {
+            if (!budgetService.hasAnyBudget()) {
                 createDemoBudgetAndTransactions();
                 System.out.println("Demo data initialized successfully");
             }
@@ -95,7 +95,7 @@ public class DemoDataInitializer {
      */
     public boolean hasDemoData() {
         try {
-            return !budgetService.getAllBudgets().isEmpty();
+            return budgetService.hasAnyBudget();
         } catch (Exception e) {
             return false;
         }
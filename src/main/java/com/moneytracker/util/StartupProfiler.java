@@ -0,0 +1,124 @@
+package com.moneytracker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the duration of each application startup phase.
+ * Phases may be recorded from any thread; the report is printed once both the
+ * first frame has been shown and the services are ready.
+ */
+public class StartupProfiler {
+    
+    private final long startNanos;
+    private final long firstFrameBudgetMillis;
+    private final List<Phase> phases = new ArrayList<>();
+    private long firstFrameMillis = -1;
+    private long servicesReadyMillis = -1;
+    
+    public StartupProfiler(long firstFrameBudgetMillis) {
+        this.startNanos = System.nanoTime();
+        this.firstFrameBudgetMillis = firstFrameBudgetMillis;
+    }
+    
+    /**
+     * Run a phase and record how long it took
+     */
+    public <T> T time(String name, PhaseAction<T> action) throws Exception {
+        long phaseStart = System.nanoTime();
+        try {
+            return action.run();
+        } finally {
+            record(name, phaseStart);
+        }
+    }
+    
+    /**
+     * Record a phase that started at the given System.nanoTime() value and ends now
+     */
+    public void record(String name, long phaseStartNanos) {
+        long now = System.nanoTime();
+        synchronized (phases) {
+            phases.add(new Phase(name, Thread.currentThread().getName(),
+                toMillis(phaseStartNanos - startNanos), toMillis(now - phaseStartNanos)));
+        }
+    }
+    
+    /**
+     * Mark the moment the first frame was laid out
+     */
+    public void markFirstFrame() {
+        synchronized (phases) {
+            firstFrameMillis = elapsedMillis();
+            reportIfComplete();
+        }
+    }
+    
+    /**
+     * Mark the moment the services were injected into the UI
+     */
+    public void markServicesReady() {
+        synchronized (phases) {
+            servicesReadyMillis = elapsedMillis();
+            reportIfComplete();
+        }
+    }
+    
+    /**
+     * Milliseconds elapsed since the profiler was created
+     */
+    public long elapsedMillis() {
+        return toMillis(System.nanoTime() - startNanos);
+    }
+    
+    private void reportIfComplete() {
+        if (firstFrameMillis >= 0 && servicesReadyMillis >= 0) {
+            report();
+        }
+    }
+    
+    /**
+     * Print all recorded phases and flag a first frame that missed its budget
+     */
+    private void report() {
+        StringBuilder sb = new StringBuilder("Startup phases:\n");
+        for (Phase phase : phases) {
+            sb.append(String.format("  %-20s +%5d ms  %5d ms  [%s]%n",
+                phase.name, phase.offsetMillis, phase.durationMillis, phase.thread));
+        }
+        sb.append(String.format("  Time to first frame: %d ms (budget %d ms)%n", firstFrameMillis, firstFrameBudgetMillis));
+        sb.append(String.format("  Services ready:      %d ms", servicesReadyMillis));
+        System.out.println(sb);
+        
+        if (firstFrameMillis > firstFrameBudgetMillis) {
+            System.err.println("Warning: first frame exceeded startup budget by "
+                + (firstFrameMillis - firstFrameBudgetMillis) + " ms");
+        }
+    }
+    
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+    
+    /**
+     * A unit of startup work that may throw
+     */
+    @FunctionalInterface
+    public interface PhaseAction<T> {
+        T run() throws Exception;
+    }
+    
+    private static class Phase {
+        private final String name;
+        private final String thread;
+        private final long offsetMillis;
+        private final long durationMillis;
+        
+        Phase(String name, String thread, long offsetMillis, long durationMillis) {
+            this.name = name;
+            this.thread = thread;
+            this.offsetMillis = offsetMillis;
+            this.durationMillis = durationMillis;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.moneytracker.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks handed out by key hash.
+ *
+ * Work on one key is always serialized, while work on different keys usually
+ * lands on different stripes and proceeds in parallel. Unlike a lock per key
+ * the memory use is bounded and nothing has to be cleaned up when a key goes
+ * away; two keys sharing a stripe only costs some contention.
+ */
+public final class StripedLock {
+    
+    private final Lock[] stripes;
+    
+    /**
+     * @param stripes minimum number of locks; rounded up to a power of two
+     */
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Get the lock guarding a key; null keys share one stripe
+     */
+    public Lock forKey(Object key) {
+        return stripes[indexOf(key)];
+    }
+    
+    /**
+     * Get the distinct locks guarding several keys, in stripe order. Taking them
+     * in the returned order cannot deadlock with another caller doing the same.
+     */
+    public List<Lock> forKeys(Collection<?> keys) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) {
+            indexes.add(indexOf(key));
+        }
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+    
+    /**
+     * Number of locks
+     */
+    public int size() {
+        return stripes.length;
+    }
+    
+    private int indexOf(Object key) {
+        int hash = key != null ? key.hashCode() : 0;
+        // Spread the high bits down so sequential IDs and hashes differing only high up still spread
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,165 @@
+package com.moneytracker.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: timers keyed by an integer tick (e.g. an epoch
+ * day) that fire once the wheel has advanced to their tick.
+ *
+ * Each level is a ring of buckets; level 0 has one bucket per tick and each
+ * higher level covers a whole turn of the level below per bucket. Scheduling a
+ * timer and advancing by one tick are O(1) however many timers are pending:
+ * a tick only touches its own bucket, plus, when a lower level completes a turn,
+ * the one higher-level bucket whose timers are now near enough to move down.
+ * Timers further out than the top level can reach wait in an overflow list.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class TimingWheel<T> {
+    
+    private static final class Timer<T> {
+        final long deadline;
+        final T item;
+        
+        Timer(long deadline, T item) {
+            this.deadline = deadline;
+            this.item = item;
+        }
+    }
+    
+    private final int bitsPerLevel;
+    private final int mask;
+    private final List<List<ArrayDeque<Timer<T>>>> levels;
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    // Timers scheduled at or before the current tick, fired on the next advance
+    private final List<Timer<T>> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+    
+    /**
+     * @param startTick    tick the wheel starts at
+     * @param levelCount   number of wheels
+     * @param bitsPerLevel log2 of the buckets per wheel; the wheels together reach
+     *                     2^(levelCount * bitsPerLevel) ticks ahead
+     */
+    public TimingWheel(long startTick, int levelCount, int bitsPerLevel) {
+        this.currentTick = startTick;
+        this.bitsPerLevel = bitsPerLevel;
+        this.mask = (1 << bitsPerLevel) - 1;
+        this.levels = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            List<ArrayDeque<Timer<T>>> buckets = new ArrayList<>(1 << bitsPerLevel);
+            for (int bucket = 0; bucket <= mask; bucket++) {
+                buckets.add(new ArrayDeque<>());
+            }
+            levels.add(buckets);
+        }
+    }
+    
+    /**
+     * Fire an item once the wheel reaches the given tick; a tick already reached
+     * fires on the next advance
+     */
+    public void schedule(long deadline, T item) {
+        place(new Timer<>(deadline, item));
+        size++;
+    }
+    
+    /**
+     * Advance the wheel to a tick, handing every item that fell due to the consumer
+     * in deadline order. Moving back in time does nothing.
+     */
+    public void advanceTo(long tick, Consumer<? super T> expired) {
+        fire(due, expired);
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                break;
+            }
+            currentTick++;
+            cascade();
+            ArrayDeque<Timer<T>> bucket = levels.get(0).get(bucketIndex(currentTick, 0));
+            while (!bucket.isEmpty()) {
+                Timer<T> timer = bucket.poll();
+                size--;
+                expired.accept(timer.item);
+            }
+            // Timers cascaded down onto this very tick
+            fire(due, expired);
+        }
+    }
+    
+    /**
+     * Tick the wheel is at
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+    
+    /**
+     * Number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+    
+    private void fire(List<Timer<T>> timers, Consumer<? super T> expired) {
+        if (timers.isEmpty()) {
+            return;
+        }
+        List<Timer<T>> firing = new ArrayList<>(timers);
+        timers.clear();
+        firing.sort((a, b) -> Long.compare(a.deadline, b.deadline));
+        for (Timer<T> timer : firing) {
+            size--;
+            expired.accept(timer.item);
+        }
+    }
+    
+    /**
+     * When the lower levels have just completed a turn, move the timers of the
+     * matching higher-level buckets down, highest level first so they can cascade
+     * further in the same tick
+     */
+    private void cascade() {
+        int levelCount = levels.size();
+        if ((currentTick & ((1L << (bitsPerLevel * levelCount)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Timer<T>> waiting = new ArrayList<>(overflow);
+            overflow.clear();
+            waiting.forEach(this::place);
+        }
+        for (int level = levelCount - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (bitsPerLevel * level)) - 1)) != 0) {
+                continue;
+            }
+            ArrayDeque<Timer<T>> bucket = levels.get(level).get(bucketIndex(currentTick, level));
+            List<Timer<T>> moving = new ArrayList<>(bucket);
+            bucket.clear();
+            moving.forEach(this::place);
+        }
+    }
+    
+    /**
+     * Put a timer on the lowest level whose higher digits it shares with the current tick
+     */
+    private void place(Timer<T> timer) {
+        if (timer.deadline <= currentTick) {
+            due.add(timer);
+            return;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            if (timer.deadline >>> (bitsPerLevel * (level + 1)) == currentTick >>> (bitsPerLevel * (level + 1))) {
+                levels.get(level).get(bucketIndex(timer.deadline, level)).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+    
+    private int bucketIndex(long tick, int level) {
+        return (int) (tick >>> (bitsPerLevel * level)) & mask;
+    }
+}
@@ -0,0 +1,219 @@
+package com.moneytracker.controller;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedObservableListTest {
+    
+    private static final String LOADING = "loading";
+    private static final int PAGE_SIZE = 3;
+    
+    private final List<String> source = rows(10);
+    private final List<Integer> loadedOffsets = new ArrayList<>();
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private final Queue<Runnable> fxThread = new ArrayDeque<>();
+    private final PagedObservableList<String> list = new PagedObservableList<>(
+        (offset, limit, previousRow) -> {
+            loadedOffsets.add(offset);
+            return new ArrayList<>(source.subList(offset, Math.min(offset + limit, source.size())));
+        },
+        source.size(), PAGE_SIZE, 10, LOADING, background::add, fxThread::add);
+    
+    @Test
+    void missReturnsPlaceholderAndLoadsInBackground() {
+        List<ListChangeListener.Change<? extends String>> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> changes.add(change));
+        
+        assertEquals(LOADING, list.get(4));
+        assertTrue(loadedOffsets.isEmpty());
+        
+        runPending();
+        
+        assertEquals("r4", list.get(4));
+        assertEquals(1, changes.size());
+        ListChangeListener.Change<? extends String> change = changes.get(0);
+        assertTrue(change.next());
+        assertTrue(change.wasReplaced());
+        assertEquals(3, change.getFrom());
+        assertEquals(6, change.getTo());
+        assertEquals(List.of("r3", "r4", "r5"), change.getAddedSubList());
+    }
+    
+    @Test
+    void prefetchesInTheDirectionOfScrolling() {
+        list.get(9);
+        runPending();
+        loadedOffsets.clear();
+        
+        list.get(6);
+        runPending();
+        
+        assertEquals(List.of(6, 3), loadedOffsets);
+        assertEquals("r3", list.get(3));
+        runPending();
+        assertEquals(List.of(6, 3, 0), loadedOffsets);
+    }
+    
+    @Test
+    void prefetchesAheadWhenScrollingDown() {
+        list.get(0);
+        runPending();
+        
+        assertEquals(List.of(0, 3), loadedOffsets);
+    }
+    
+    @Test
+    void insertShiftsRowsAcrossPageBoundaries() {
+        cacheAll();
+        
+        source.add(1, "new");
+        list.insertRow(1, "new");
+        
+        assertCachedMatchSource();
+    }
+    
+    @Test
+    void insertAtEndOfFullPageStartsNextPage() {
+        cacheAll();
+        
+        source.add(PAGE_SIZE, "new");
+        list.insertRow(PAGE_SIZE, "new");
+        
+        assertCachedMatchSource();
+    }
+    
+    @Test
+    void insertDropsPagesAfterAnUncachedOne() {
+        list.putPage(0, new ArrayList<>(source.subList(0, 3)));
+        list.putPage(2, new ArrayList<>(source.subList(6, 9)));
+        
+        source.add(0, "new");
+        list.insertRow(0, "new");
+        
+        assertEquals(1, list.getCachedPageCount());
+        assertEquals(LOADING, list.get(6));
+        assertMatchesSource();
+    }
+    
+    @Test
+    void removeShiftsRowsAcrossPageBoundaries() {
+        cacheAll();
+        
+        source.remove(1);
+        list.removeRow(1);
+        
+        assertCachedMatchSource();
+    }
+    
+    @Test
+    void removeLeavesPageShortBeforeAnUncachedOne() {
+        list.putPage(0, new ArrayList<>(source.subList(0, 3)));
+        list.putPage(1, new ArrayList<>(source.subList(3, 6)));
+        
+        source.remove(0);
+        list.removeRow(0);
+        
+        assertEquals("r3", list.get(2));
+        assertEquals(LOADING, list.get(5));
+        assertMatchesSource();
+    }
+    
+    @Test
+    void shiftDiscardsLoadsInFlight() {
+        assertEquals(LOADING, list.get(7));
+        runBackground();
+        
+        source.add(0, "new");
+        list.insertRow(0, "new");
+        runPending();
+        
+        assertMatchesSource();
+    }
+    
+    @Test
+    void leadingRowsReadsCachedPagesWithoutLoading() {
+        list.putPage(0, new ArrayList<>(source.subList(0, 3)));
+        list.putPage(1, new ArrayList<>(source.subList(3, 6)));
+        
+        assertEquals(List.of("r0", "r1", "r2", "r3"), list.leadingRows(4));
+        assertEquals(source.subList(0, 6), list.leadingRows(20));
+        assertTrue(background.isEmpty());
+    }
+    
+    @Test
+    void firstPageOutlivesTheWindow() {
+        PagedObservableList<String> narrow = new PagedObservableList<>(
+            (offset, limit, previousRow) -> new ArrayList<>(source.subList(offset, Math.min(offset + limit, source.size()))),
+            source.size(), PAGE_SIZE, 0, LOADING, background::add, fxThread::add);
+        for (int i = 0; i < source.size(); i++) {
+            narrow.get(i);
+            runPending();
+        }
+        
+        assertEquals(List.of("r0", "r1"), narrow.leadingRows(2));
+    }
+    
+    private void cacheAll() {
+        for (int pageIndex = 0; pageIndex * PAGE_SIZE < source.size(); pageIndex++) {
+            int from = pageIndex * PAGE_SIZE;
+            list.putPage(pageIndex, new ArrayList<>(source.subList(from, Math.min(from + PAGE_SIZE, source.size()))));
+        }
+    }
+    
+    /**
+     * Every row must be answered from the patched pages, without a fetch
+     */
+    private void assertCachedMatchSource() {
+        assertEquals(source.size(), list.size());
+        for (int i = 0; i < source.size(); i++) {
+            assertEquals(source.get(i), list.get(i), "row " + i);
+        }
+        runPending();
+        assertTrue(loadedOffsets.isEmpty(), "fetched " + loadedOffsets);
+    }
+    
+    /**
+     * Rows may need loading first, but must then agree with the source
+     */
+    private void assertMatchesSource() {
+        assertEquals(source.size(), list.size());
+        for (int i = 0; i < source.size(); i++) {
+            list.get(i);
+            runPending();
+        }
+        for (int i = 0; i < source.size(); i++) {
+            assertEquals(source.get(i), list.get(i), "row " + i);
+        }
+        assertFalse(list.contains(LOADING));
+    }
+    
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.poll().run();
+        }
+    }
+    
+    private void runPending() {
+        while (!background.isEmpty() || !fxThread.isEmpty()) {
+            runBackground();
+            while (!fxThread.isEmpty()) {
+                fxThread.poll().run();
+            }
+        }
+    }
+    
+    private static List<String> rows(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "r" + i).collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,136 @@
+package com.moneytracker.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asynchronous subscribers drain on an executor the test runs by hand
+ */
+class EventBusTest {
+    
+    private final EventBus bus = new EventBus();
+    private final Queue<Runnable> executor = new ConcurrentLinkedQueue<>();
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    
+    @AfterEach
+    void closeBus() {
+        bus.close();
+    }
+    
+    @Test
+    void dropOldestKeepsTheLatestEvents() {
+        EventBus.Subscription subscription = subscribe(2, 10, EventBus.Overflow.DROP_OLDEST);
+        
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(new Ping(i));
+        }
+        runExecutor();
+        
+        assertEquals(List.of(List.of(4, 5)), batches);
+        assertEquals(3, subscription.getDroppedCount());
+    }
+    
+    @Test
+    void drainsInBatchesOfAtMostMaxBatch() {
+        subscribe(10, 2, EventBus.Overflow.BLOCK);
+        
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(new Ping(i));
+        }
+        runExecutor();
+        
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), batches);
+    }
+    
+    @Test
+    void blockWaitsForTheSubscriberInsteadOfDropping() throws Exception {
+        EventBus.Subscription subscription = subscribe(1, 10, EventBus.Overflow.BLOCK);
+        bus.publish(new Ping(1));
+        
+        Thread publisher = new Thread(() -> {
+            for (int i = 2; i <= 4; i++) {
+                bus.publish(new Ping(i));
+            }
+        });
+        publisher.start();
+        publisher.join(200);
+        assertTrue(publisher.isAlive(), "publisher should wait while the queue is full");
+        
+        while (publisher.isAlive() || !executor.isEmpty()) {
+            Runnable task = executor.poll();
+            if (task != null) {
+                task.run();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        
+        assertEquals(List.of(1, 2, 3, 4), received());
+        assertEquals(0, subscription.getDroppedCount());
+    }
+    
+    @Test
+    void cancelledBlockingPublisherGivesUp() throws Exception {
+        EventBus.Subscription subscription = subscribe(1, 10, EventBus.Overflow.BLOCK);
+        bus.publish(new Ping(1));
+        Thread publisher = new Thread(() -> bus.publish(new Ping(2)));
+        publisher.start();
+        
+        subscription.cancel();
+        publisher.join(1000);
+        
+        assertFalse(publisher.isAlive());
+        runExecutor();
+        assertTrue(batches.isEmpty());
+    }
+    
+    @Test
+    void synchronousSubscribersSeeSubtypes() {
+        List<Integer> seen = new ArrayList<>();
+        bus.subscribe(Ping.class, ping -> seen.add(ping.number));
+        
+        bus.publish(new LoudPing(7));
+        
+        assertEquals(List.of(7), seen);
+    }
+    
+    private EventBus.Subscription subscribe(int capacity, int maxBatch, EventBus.Overflow overflow) {
+        return bus.subscribeAsync(Ping.class, executor::add, capacity, maxBatch, overflow,
+            pings -> batches.add(pings.stream().map(ping -> ping.number).collect(Collectors.toList())));
+    }
+    
+    private List<Integer> received() {
+        return batches.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+    
+    private void runExecutor() {
+        while (!executor.isEmpty()) {
+            executor.poll().run();
+        }
+    }
+    
+    private static class Ping implements DomainEvent {
+        private final int number;
+        
+        Ping(int number) {
+            this.number = number;
+        }
+    }
+    
+    private static final class LoudPing extends Ping {
+        LoudPing(int number) {
+            super(number);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.moneytracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Exercises the naive-Bayes model through learn and unlearn; no rules are loaded,
+ * so the fallback category is null
+ */
+class CategoryClassifierTest {
+    
+    private static final Long SHOPPING = 1L;
+    private static final Long STATIONERY = 2L;
+    private static final Long TEMPORARY = 3L;
+    
+    private final CategoryClassifier classifier = new CategoryClassifier(null);
+    
+    @Test
+    void fallsBackUntilEnoughExamples() {
+        learn("alpha shop", SHOPPING, 19);
+        
+        assertNull(classifier.classify("alpha"));
+        
+        learn("alpha shop", SHOPPING, 1);
+        
+        assertEquals(SHOPPING, classifier.classify("alpha"));
+    }
+    
+    @Test
+    void tokenOfTheSmallerCategoryOutweighsItsPrior() {
+        train();
+        
+        assertEquals(STATIONERY, classifier.classify("beta"));
+    }
+    
+    @Test
+    void smoothingKeepsCategoriesMissingAToken() {
+        train();
+        
+        // Neither category has seen both tokens, yet one still wins instead of both scoring zero
+        assertEquals(SHOPPING, classifier.classify("alpha beta"));
+    }
+    
+    @Test
+    void unseenTokensCarryNoSignal() {
+        train();
+        
+        assertNull(classifier.classify("gamma"));
+        assertEquals(STATIONERY, classifier.classify("beta gamma 12345"));
+    }
+    
+    @Test
+    void unlearnUndoesLearn() {
+        train();
+        List<Long> before = classifier.classifyAll(List.of("alpha", "beta", "alpha beta", "beta store"));
+        
+        learn("beta store delta", TEMPORARY, 100);
+        assertEquals(TEMPORARY, classifier.classify("beta"));
+        assertEquals(TEMPORARY, classifier.classify("delta"));
+        
+        unlearn("beta store delta", TEMPORARY, 100);
+        
+        assertEquals(before, classifier.classifyAll(List.of("alpha", "beta", "alpha beta", "beta store")));
+        // The token left the vocabulary with its last use
+        assertNull(classifier.classify("delta"));
+    }
+    
+    @Test
+    void unlearnBelowMinimumFallsBackAgain() {
+        learn("alpha shop", SHOPPING, 20);
+        unlearn("alpha shop", SHOPPING, 1);
+        
+        assertNull(classifier.classify("alpha"));
+    }
+    
+    @Test
+    void ignoresDescriptionsWithoutTokens() {
+        learn("alpha shop", SHOPPING, 20);
+        learn("12 - 7", STATIONERY, 50);
+        learn("alpha", null, 50);
+        
+        assertEquals(SHOPPING, classifier.classify("alpha"));
+        assertNull(classifier.classify(""));
+    }
+    
+    /**
+     * 40 shopping examples against 5 stationery ones
+     */
+    private void train() {
+        learn("alpha shop", SHOPPING, 40);
+        learn("beta store", STATIONERY, 5);
+    }
+    
+    private void learn(String description, Long categoryId, int times) {
+        for (int i = 0; i < times; i++) {
+            classifier.learn(description, categoryId);
+        }
+    }
+    
+    private void unlearn(String description, Long categoryId, int times) {
+        for (int i = 0; i < times; i++) {
+            classifier.unlearn(description, categoryId);
+        }
+    }
+}
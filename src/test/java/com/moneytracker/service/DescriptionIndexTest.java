@@ -0,0 +1,98 @@
+package com.moneytracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DescriptionIndexTest {
+    
+    private final DescriptionIndex index = new DescriptionIndex();
+    private final LocalDateTime now = LocalDateTime.now();
+    
+    @Test
+    void entryOutsideANodesTopIsRepairedIntoEveryNodeOnItsPath() {
+        // One more description than a node keeps, all equally ranked, so "coffee 9" is left out
+        for (int i = 1; i <= 9; i++) {
+            index.record("Coffee " + i, now);
+        }
+        assertFalse(index.suggest("c", 8).contains("Coffee 9"));
+        
+        index.record("Coffee 9", now);
+        
+        assertEquals(List.of("Coffee 9"), index.suggest("c", 1));
+        assertEquals(List.of("Coffee 9"), index.suggest("coff", 1));
+        assertEquals(List.of("Coffee 9"), index.suggest("coffee 9", 1));
+        assertEquals(8, index.suggest("coffee", 8).size());
+    }
+    
+    @Test
+    void risingEntryOvertakesWithinATop() {
+        index.record("Tea", now);
+        index.record("Tea", now);
+        index.record("Taxi", now);
+        
+        assertEquals(List.of("Tea", "Taxi"), index.suggest("t", 2));
+        
+        index.record("Taxi", now);
+        index.record("Taxi", now);
+        
+        assertEquals(List.of("Taxi", "Tea"), index.suggest("t", 2));
+        assertEquals(List.of("Taxi"), index.suggest("ta", 2));
+    }
+    
+    @Test
+    void recentUsesOutrankOlderOnes() {
+        index.record("Apple store", now.minusDays(60));
+        index.record("Apple store", now.minusDays(60));
+        index.record("Amazon", now);
+        
+        assertEquals(List.of("Amazon", "Apple store"), index.suggest("a", 2));
+    }
+    
+    @Test
+    void matchesCaseInsensitivelyAndKeepsTheLatestSpelling() {
+        index.record("  Uber ", now);
+        index.record("uber", now);
+        
+        assertEquals(1, index.size());
+        assertEquals(List.of("uber"), index.suggest("U", 5));
+    }
+    
+    @Test
+    void longPrefixesAndLargeLimitsFallBackToARangeScan() {
+        index.record("Electricity bill october", now);
+        index.record("Electricity bill october", now);
+        index.record("Electricity bill november", now);
+        for (int i = 0; i < 10; i++) {
+            index.record("Electric scooter " + i, now.minusDays(90));
+        }
+        
+        assertEquals(List.of("Electricity bill october", "Electricity bill november"),
+            index.suggest("electricity bill", 5));
+        assertEquals(12, index.suggest("elec", 20).size());
+        assertEquals("Electricity bill october", index.suggest("elec", 20).get(0));
+    }
+    
+    @Test
+    void rebuildKeepsUsesRecordedMeanwhile() throws Exception {
+        index.record("Rent", now);
+        index.record("Rent", now);
+        index.record("Rent", now);
+        
+        index.rebuild(consumer -> use(consumer, "Recharge", "Rent", "Recharge"));
+        
+        assertEquals(List.of("Rent", "Recharge"), index.suggest("re", 5));
+        assertEquals(2, index.size());
+    }
+    
+    private void use(BiConsumer<String, LocalDateTime> consumer, String... descriptions) {
+        for (String description : descriptions) {
+            consumer.accept(description, now);
+        }
+    }
+}
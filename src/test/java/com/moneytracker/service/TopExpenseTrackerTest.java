@@ -0,0 +1,142 @@
+package com.moneytracker.service;
+
+import com.moneytracker.model.Transaction;
+import com.moneytracker.model.Transaction.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the tracker over an in-memory list standing in for the budget's rows
+ */
+class TopExpenseTrackerTest {
+    
+    private static final Long BUDGET = 1L;
+    private static final int SIZE = 2;
+    
+    private final List<Transaction> rows = new ArrayList<>();
+    private int loads;
+    private final TopExpenseTracker tracker = new TopExpenseTracker((budgetId, limit) -> {
+        loads++;
+        return rows.stream()
+            .filter(row -> row.getBudgetId().equals(budgetId))
+            .sorted(TopExpenseTracker.LARGEST_FIRST)
+            .limit(limit)
+            .collect(Collectors.toList());
+    }, SIZE);
+    
+    @Test
+    void removingAHeldEntryPromotesTheNextOne() throws Exception {
+        addRows(10, 20, 30, 40, 50, 60);
+        assertEquals(List.of(60, 50), topAmounts());
+        
+        remove(50);
+        
+        assertEquals(List.of(60, 40), topAmounts());
+        assertEquals(1, loads);
+    }
+    
+    @Test
+    void reloadsOnceDeletionsDrainTheHeadroom() throws Exception {
+        addRows(10, 20, 30, 40, 50, 60);
+        topAmounts();
+        
+        remove(60);
+        remove(50);
+        assertEquals(List.of(40, 30), topAmounts());
+        assertEquals(1, loads);
+        
+        remove(40);
+        
+        assertEquals(List.of(30, 20), topAmounts());
+        assertEquals(2, loads);
+    }
+    
+    @Test
+    void completeSetNeverReloads() throws Exception {
+        addRows(10, 20, 30);
+        topAmounts();
+        
+        remove(30);
+        remove(20);
+        
+        assertEquals(List.of(10), topAmounts());
+        remove(10);
+        assertEquals(List.of(), topAmounts());
+        assertEquals(1, loads);
+    }
+    
+    @Test
+    void addedExpenseRanksAmongHeldOnes() throws Exception {
+        addRows(10, 20, 30, 40, 50, 60);
+        topAmounts();
+        
+        add(55);
+        
+        assertEquals(List.of(60, 55), topAmounts());
+        assertEquals(new BigDecimal(60), tracker.getBiggestExpense(BUDGET));
+    }
+    
+    @Test
+    void updatedExpenseMovesWithinTheTop() throws Exception {
+        addRows(10, 20, 30, 40, 50, 60);
+        topAmounts();
+        
+        Transaction previous = find(60);
+        Transaction updated = expense(previous.getId(), 5);
+        rows.set(rows.indexOf(previous), updated);
+        tracker.expenseUpdated(previous, updated);
+        
+        assertEquals(List.of(50, 40), topAmounts());
+    }
+    
+    @Test
+    void tiesRankNewestFirst() throws Exception {
+        addRows(30, 30, 30);
+        
+        List<Long> ids = tracker.getTopExpenses(BUDGET).stream().map(Transaction::getId).collect(Collectors.toList());
+        
+        assertEquals(List.of(3L, 2L), ids);
+    }
+    
+    private List<Integer> topAmounts() throws Exception {
+        return tracker.getTopExpenses(BUDGET).stream()
+            .map(expense -> expense.getBudgetAmount().intValueExact())
+            .collect(Collectors.toList());
+    }
+    
+    private void addRows(int... amounts) {
+        for (int amount : amounts) {
+            rows.add(expense(rows.size() + 1L, amount));
+        }
+    }
+    
+    private void add(int amount) {
+        Transaction expense = expense(rows.size() + 1L, amount);
+        rows.add(expense);
+        tracker.expenseAdded(expense);
+    }
+    
+    private void remove(int amount) {
+        Transaction expense = find(amount);
+        rows.remove(expense);
+        tracker.expenseRemoved(expense);
+    }
+    
+    private Transaction find(int amount) {
+        return rows.stream().filter(row -> row.getBudgetAmount().intValueExact() == amount).findFirst().orElseThrow();
+    }
+    
+    private static Transaction expense(long id, int amount) {
+        Transaction expense = new Transaction(TransactionType.EXPENSE, new BigDecimal(amount), "expense " + id);
+        expense.setId(id);
+        expense.setBudgetId(BUDGET);
+        expense.setBudgetAmount(new BigDecimal(amount));
+        return expense;
+    }
+}
@@ -0,0 +1,96 @@
+package com.moneytracker.util;
+
+import com.moneytracker.util.CurrencyUtil.DigitGrouping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the hand-written formatter against the DecimalFormat it replaced
+ */
+class CurrencyUtilTest {
+    
+    /** The formatting CurrencyUtil used before it wrote digits itself */
+    private static final DecimalFormat BASELINE =
+        new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+    
+    @AfterEach
+    void restoreGrouping() {
+        CurrencyUtil.setDefaultGrouping(DigitGrouping.INTERNATIONAL);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "0", "0.5", "0.05", "0.99", "1", "12.3", "999.99", "1000", "1234.56", "123456.78", "12345678.9",
+        "-0.5", "-0.99", "-1", "-1234.56", "-12345678.9",
+        "0.005", "0.015", "0.025", "1.005", "2.675", "-0.015", "-1.005", "-0.004", "0.0049", "0.0051", "999.995",
+        "92233720368547758.07", "92233720368547758.08", "-92233720368547758.08",
+        "123456789012345678901234.56", "-123456789012345678901234.565"
+    })
+    void matchesDecimalFormat(String value) {
+        BigDecimal amount = new BigDecimal(value);
+        
+        assertEquals("₹" + BASELINE.format(amount), CurrencyUtil.formatAmount(amount));
+    }
+    
+    @Test
+    void matchesDecimalFormatWithPrefix() {
+        BigDecimal amount = new BigDecimal("-1234.5");
+        
+        assertEquals("-₹" + BASELINE.format(amount), CurrencyUtil.formatAmountWithPrefix(amount, "-"));
+    }
+    
+    @Test
+    void formatsDoublesLikeDecimalFormat() {
+        assertEquals("₹" + BASELINE.format(BigDecimal.valueOf(0.1 + 0.2)), CurrencyUtil.formatAmount(0.1 + 0.2));
+    }
+    
+    @Test
+    void formatsNullAsZero() {
+        assertEquals("₹0.00", CurrencyUtil.formatAmount((BigDecimal) null));
+    }
+    
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "0.5          | ₹0.50",
+        "999          | ₹999.00",
+        "1234         | ₹1,234.00",
+        "-1234        | ₹-1,234.00",
+        "123456       | ₹1,23,456.00",
+        "12345678     | ₹1,23,45,678.00",
+        "-12345678.9  | ₹-1,23,45,678.90",
+        "123456789    | ₹12,34,56,789.00",
+        "1.005        | ₹1.00",
+        "1.015        | ₹1.02",
+        "123456789012345678901.23 | ₹12,34,56,78,90,12,34,56,78,901.23"
+    })
+    void groupsIndianDigits(String value, String expected) {
+        assertEquals(expected, CurrencyUtil.formatAmount(new BigDecimal(value), DigitGrouping.INDIAN));
+    }
+    
+    @Test
+    void usesDefaultGrouping() {
+        CurrencyUtil.setDefaultGrouping(DigitGrouping.INDIAN);
+        
+        assertEquals("₹12,34,567.00", CurrencyUtil.formatAmount(new BigDecimal("1234567")));
+    }
+    
+    @Test
+    void cacheDoesNotMixCurrencies() {
+        BigDecimal amount = new BigDecimal("42");
+        
+        assertEquals("₹42.00", CurrencyUtil.formatAmount(amount));
+        assertEquals("$42.00", CurrencyUtil.formatAmount(amount, "USD"));
+        assertEquals("CHF 42.00", CurrencyUtil.formatAmount(amount, "CHF"));
+        assertEquals("₹42.00", CurrencyUtil.formatAmount(amount, (String) null));
+    }
+}
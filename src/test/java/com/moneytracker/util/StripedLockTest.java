@@ -0,0 +1,95 @@
+package com.moneytracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedLockTest {
+    
+    @Test
+    void roundsUpToAPowerOfTwo() {
+        assertEquals(64, new StripedLock(64).size());
+        assertEquals(8, new StripedLock(5).size());
+        assertEquals(2, new StripedLock(0).size());
+    }
+    
+    @Test
+    void sameKeySameLock() {
+        StripedLock locks = new StripedLock(16);
+        
+        assertSame(locks.forKey(42L), locks.forKey(Long.valueOf(42)));
+        assertSame(locks.forKey(null), locks.forKey(null));
+    }
+    
+    @Test
+    void sequentialIdsSpreadOverEveryStripe() {
+        StripedLock locks = new StripedLock(16);
+        
+        long distinct = LongStream.range(0, 16).mapToObj(locks::forKey).distinct().count();
+        
+        assertEquals(16, distinct);
+    }
+    
+    @Test
+    void forKeysIsDistinctAndIndependentOfKeyOrder() {
+        StripedLock locks = new StripedLock(4);
+        List<Long> keys = LongStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<Long> shuffled = new ArrayList<>(keys);
+        Collections.shuffle(shuffled);
+        
+        List<Lock> inOrder = locks.forKeys(keys);
+        
+        assertEquals(4, inOrder.size());
+        assertEquals(4, new HashSet<>(inOrder).size());
+        assertEquals(inOrder, locks.forKeys(shuffled));
+        assertEquals(List.of(locks.forKey(3L)), locks.forKeys(Arrays.asList(3L, 3L)));
+    }
+    
+    @Test
+    void overlappingKeySetsTakenInOrderDoNotDeadlock() throws Exception {
+        StripedLock locks = new StripedLock(8);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // Each thread lists the same keys in a different order
+                List<Long> keys = LongStream.range(0, 8).boxed().collect(Collectors.toList());
+                Collections.rotate(keys, t * 2);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        List<Lock> held = locks.forKeys(keys);
+                        held.forEach(Lock::lock);
+                        held.forEach(Lock::unlock);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,122 @@
+package com.moneytracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uses two levels of four buckets, so level 1 turns every 4 ticks and the wheels
+ * reach 16 ticks ahead
+ */
+class TimingWheelTest {
+    
+    private static final int LEVELS = 2;
+    private static final int BITS = 2;
+    
+    @Test
+    void firesEachTimerOnItsTickAcrossLevelBoundaries() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0, LEVELS, BITS);
+        long[] deadlines = {1, 3, 4, 5, 8, 15, 16, 17, 31, 33, 64};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        
+        Map<Long, Long> firedAt = stepTo(wheel, 70);
+        
+        assertEquals(deadlines.length, firedAt.size());
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get(deadline), "timer " + deadline);
+        }
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void cascadesFromAnUnalignedStart() {
+        TimingWheel<Long> wheel = new TimingWheel<>(6, LEVELS, BITS);
+        long[] deadlines = {7, 8, 11, 12, 16, 21, 22, 40};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        
+        Map<Long, Long> firedAt = stepTo(wheel, 45);
+        
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get(deadline), "timer " + deadline);
+        }
+    }
+    
+    @Test
+    void timersScheduledMidwayCascadeToo() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0, LEVELS, BITS);
+        Map<Long, Long> firedAt = new LinkedHashMap<>();
+        for (long tick = 1; tick <= 40; tick++) {
+            if (tick == 6) {
+                wheel.schedule(9, 9L);
+                wheel.schedule(19, 19L);
+                wheel.schedule(30, 30L);
+            }
+            long now = tick;
+            wheel.advanceTo(tick, item -> firedAt.put(item, now));
+        }
+        
+        assertEquals(Map.of(9L, 9L, 19L, 19L, 30L, 30L), firedAt);
+    }
+    
+    @Test
+    void jumpFiresInDeadlineOrder() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0, LEVELS, BITS);
+        for (long deadline : new long[] {33, 5, 17, 2, 16, 4}) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> fired = new ArrayList<>();
+        
+        wheel.advanceTo(20, fired::add);
+        
+        assertEquals(List.of(2L, 4L, 5L, 16L, 17L), fired);
+        assertEquals(20, wheel.getCurrentTick());
+        assertEquals(1, wheel.size());
+    }
+    
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, LEVELS, BITS);
+        wheel.schedule(3, 3L);
+        wheel.schedule(10, 10L);
+        List<Long> fired = new ArrayList<>();
+        
+        wheel.advanceTo(10, fired::add);
+        
+        assertEquals(List.of(3L, 10L), fired);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void movingBackDoesNothing() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, LEVELS, BITS);
+        wheel.schedule(12, 12L);
+        List<Long> fired = new ArrayList<>();
+        
+        wheel.advanceTo(5, fired::add);
+        
+        assertTrue(fired.isEmpty());
+        assertEquals(10, wheel.getCurrentTick());
+    }
+    
+    /**
+     * Advance one tick at a time, recording the tick each item fired on
+     */
+    private static Map<Long, Long> stepTo(TimingWheel<Long> wheel, long lastTick) {
+        Map<Long, Long> firedAt = new LinkedHashMap<>();
+        for (long tick = wheel.getCurrentTick() + 1; tick <= lastTick; tick++) {
+            long now = tick;
+            wheel.advanceTo(tick, item -> firedAt.put(item, now));
+        }
+        return firedAt;
+    }
+}